@@ -0,0 +1,95 @@
+package com.yat3s.chopin.benchmark;
+
+import com.yat3s.chopin.core.DampingCurve;
+import com.yat3s.chopin.core.DragPhysics;
+import com.yat3s.chopin.core.DragStateMachine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The math of each ACTION_MOVE and ACTION_UP in ChopinLayout, one op is one touch event.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DragPhysicsBenchmark {
+
+    private static final int EVENT_COUNT = 1024;
+    private static final int EVENT_MASK = EVENT_COUNT - 1;
+
+    private static final int TOUCH_SLOP = 24;
+    private static final int INDICATOR_SIZE = 180;
+    private static final int HEIGHT = 1920;
+
+    private final DragPhysics mDragPhysics = new DragPhysics();
+
+    private final int[] mMoveX = new int[EVENT_COUNT];
+    private final int[] mMoveY = new int[EVENT_COUNT];
+
+    @Param({"linear", "rubberBand", "logarithmic", "piecewise"})
+    public String dampingCurve;
+
+    private int mIndex;
+
+    @Setup
+    public void setup() {
+        if ("rubberBand".equals(dampingCurve)) {
+            mDragPhysics.setDampingCurve(DampingCurve.RUBBER_BAND);
+        } else if ("logarithmic".equals(dampingCurve)) {
+            mDragPhysics.setDampingCurve(DampingCurve.LOGARITHMIC);
+        } else if ("piecewise".equals(dampingCurve)) {
+            mDragPhysics.setDampingCurve(DampingCurve.piecewise(0.1f, 0.3f));
+        }
+        mDragPhysics.setDimension(HEIGHT);
+        Random random = new Random(20261019);
+        for (int idx = 0; idx < EVENT_COUNT; idx++) {
+            mMoveX[idx] = random.nextInt(200) - 100;
+            mMoveY[idx] = random.nextInt(1000) - 500;
+        }
+    }
+
+    @Benchmark
+    public int computeOffset() {
+        return mDragPhysics.computeOffset(mMoveY[mIndex++ & EVENT_MASK]);
+    }
+
+    /**
+     * Everything computed for one move event while dragging: direction, offset, reverse check and progress.
+     */
+    @Benchmark
+    public float moveEvent() {
+        int index = mIndex++ & EVENT_MASK;
+        int dy = mMoveY[index];
+        int direction = DragPhysics.detectPullDirection(mMoveX[index], dy, TOUCH_SLOP);
+        int state = direction == DragPhysics.DIRECTION_UP
+                ? DragStateMachine.STATE_DRAGGING_UP : DragStateMachine.STATE_DRAGGING_DOWN;
+        int offset = mDragPhysics.computeOffset(dy);
+        if (DragPhysics.isDragReversed(state, dy)) {
+            offset = 0;
+        }
+        return DragPhysics.computeProgress(offset, INDICATOR_SIZE);
+    }
+
+    @Benchmark
+    public int decideRelease() {
+        int offset = mDragPhysics.computeOffset(mMoveY[mIndex++ & EVENT_MASK]);
+        return DragPhysics.decideRelease(DragStateMachine.STATE_DRAGGING_DOWN, offset,
+                INDICATOR_SIZE, INDICATOR_SIZE);
+    }
+}
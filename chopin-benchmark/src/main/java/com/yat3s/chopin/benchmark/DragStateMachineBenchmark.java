@@ -0,0 +1,81 @@
+package com.yat3s.chopin.benchmark;
+
+import com.yat3s.chopin.core.DragStateMachine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * State transitions across a synthetic gesture stream, one op is one event.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DragStateMachineBenchmark {
+
+    private static final int EVENT_COUNT = 4096;
+    private static final int EVENT_MASK = EVENT_COUNT - 1;
+
+    // Gestures of a real session, pull to refresh, reversed drag, pull to load and aborted pull.
+    private static final int[][] GESTURES = {
+            {DragStateMachine.EVENT_PULL_DOWN, DragStateMachine.EVENT_BOUNCE_TO_REFRESH,
+                    DragStateMachine.EVENT_START_REFRESH, DragStateMachine.EVENT_BOUNCE_UP,
+                    DragStateMachine.EVENT_SHOW_HEADER_NOTIFICATION, DragStateMachine.EVENT_BOUNCE_UP,
+                    DragStateMachine.EVENT_SETTLE},
+            {DragStateMachine.EVENT_PULL_DOWN, DragStateMachine.EVENT_DRAG_REVERSED,
+                    DragStateMachine.EVENT_PULL_UP, DragStateMachine.EVENT_RELEASE_AT_REST},
+            {DragStateMachine.EVENT_PULL_UP, DragStateMachine.EVENT_BOUNCE_TO_LOAD,
+                    DragStateMachine.EVENT_START_LOADING, DragStateMachine.EVENT_BOUNCE_DOWN,
+                    DragStateMachine.EVENT_SETTLE},
+            {DragStateMachine.EVENT_PULL_DOWN, DragStateMachine.EVENT_BOUNCE_UP, DragStateMachine.EVENT_SETTLE},
+    };
+
+    private final DragStateMachine mStateMachine = new DragStateMachine();
+
+    private final int[] mEvents = new int[EVENT_COUNT];
+
+    private int mIndex;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(20261019);
+        int count = 0;
+        while (count < EVENT_COUNT) {
+            int[] gesture = GESTURES[random.nextInt(GESTURES.length)];
+            for (int idx = 0; idx < gesture.length && count < EVENT_COUNT; idx++) {
+                mEvents[count++] = gesture[idx];
+            }
+        }
+
+        // Listener is always set by ChopinLayout.
+        mStateMachine.setOnStateChangeListener(new DragStateMachine.OnStateChangeListener() {
+            @Override
+            public void onStateChanged(int oldState, int newState, int event) {
+            }
+        });
+    }
+
+    @Benchmark
+    public boolean fire() {
+        return mStateMachine.fire(mEvents[mIndex++ & EVENT_MASK]);
+    }
+
+    @Benchmark
+    public int peek() {
+        return mStateMachine.peek(mEvents[mIndex++ & EVENT_MASK]);
+    }
+}
@@ -0,0 +1,85 @@
+package com.yat3s.chopin.benchmark;
+
+import com.yat3s.chopin.core.SectionIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sticky header section lookups on long lists, one op is one lookup or one data change.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SectionIndexBenchmark {
+
+    private static final int QUERY_COUNT = 1024;
+    private static final int QUERY_MASK = QUERY_COUNT - 1;
+
+    private static final int SECTION_SIZE = 25;
+
+    @Param({"10000", "100000", "1000000"})
+    public int itemCount;
+
+    private SectionIndex mSectionIndex;
+
+    private final int[] mPositions = new int[QUERY_COUNT];
+
+    private int mIndex;
+
+    @Setup
+    public void setup() {
+        mSectionIndex = new SectionIndex(new SectionIndex.HeaderLookup() {
+            @Override
+            public boolean hasHeader(int position) {
+                return position % SECTION_SIZE == 0;
+            }
+        });
+        mSectionIndex.rebuild(itemCount);
+        Random random = new Random(20261019);
+        for (int idx = 0; idx < QUERY_COUNT; idx++) {
+            mPositions[idx] = random.nextInt(itemCount);
+        }
+    }
+
+    @Benchmark
+    public int getSectionForPosition() {
+        return mSectionIndex.getSectionForPosition(mPositions[mIndex++ & QUERY_MASK]);
+    }
+
+    /**
+     * The lookups of StickyHeaderItemDecoration#onDrawOver for each frame.
+     */
+    @Benchmark
+    public int stickyHeaderFrame() {
+        int position = mPositions[mIndex++ & QUERY_MASK];
+        return mSectionIndex.getHeaderPositionForPosition(position)
+                + mSectionIndex.getNextHeaderPosition(position);
+    }
+
+    /**
+     * Insert an item and remove it, header positions after it are shifted twice.
+     */
+    @Benchmark
+    public int insertAndRemoveItem() {
+        int position = mPositions[mIndex++ & QUERY_MASK];
+        mSectionIndex.onItemRangeInserted(position, 1);
+        mSectionIndex.onItemRangeRemoved(position, 1);
+        return mSectionIndex.getSectionCount();
+    }
+}
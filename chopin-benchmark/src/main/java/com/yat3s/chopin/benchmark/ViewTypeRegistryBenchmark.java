@@ -0,0 +1,66 @@
+package com.yat3s.chopin.benchmark;
+
+import com.yat3s.chopin.core.ViewTypeRegistry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * View type resolution of ChopinAdapter, it is done for every getItemViewType and onCreateViewHolder.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ViewTypeRegistryBenchmark {
+
+    private static final int QUERY_COUNT = 1024;
+    private static final int QUERY_MASK = QUERY_COUNT - 1;
+
+    // Layout ids look like generated R.layout values.
+    private static final int FIRST_LAYOUT_ID = 0x7f0b0000;
+
+    @Param({"4", "32", "256"})
+    public int layoutCount;
+
+    private ViewTypeRegistry mViewTypeRegistry;
+
+    private final int[] mLayoutIds = new int[QUERY_COUNT];
+    private final int[] mViewTypes = new int[QUERY_COUNT];
+
+    private int mIndex;
+
+    @Setup
+    public void setup() {
+        mViewTypeRegistry = new ViewTypeRegistry(0x0101);
+        Random random = new Random(20261019);
+        for (int idx = 0; idx < QUERY_COUNT; idx++) {
+            mLayoutIds[idx] = FIRST_LAYOUT_ID + random.nextInt(layoutCount) * 3;
+            mViewTypes[idx] = mViewTypeRegistry.obtainViewType(mLayoutIds[idx]);
+        }
+    }
+
+    @Benchmark
+    public int obtainViewType() {
+        return mViewTypeRegistry.obtainViewType(mLayoutIds[mIndex++ & QUERY_MASK]);
+    }
+
+    @Benchmark
+    public int getLayoutId() {
+        return mViewTypeRegistry.getLayoutId(mViewTypes[mIndex++ & QUERY_MASK]);
+    }
+}
@@ -0,0 +1,70 @@
+package com.yat3s.chopin.core;
+
+/**
+ * Map the finger move distance to translation offset of content while dragging.
+ * <p>
+ * Except {@link #LINEAR}, a curve is evaluated ONLY while {@link DragPhysics} builds its lookup
+ * table, so it can use Math.log or Math.pow freely.
+ */
+public abstract class DampingCurve {
+
+    /**
+     * offset = distance * slope, it never saturates. It's the default curve and computed directly.
+     */
+    public static final DampingCurve LINEAR = new DampingCurve() {
+        @Override
+        public float evaluate(float distance, float slope, float dimension) {
+            return distance * slope;
+        }
+    };
+
+    /**
+     * Like UIScrollView, offset = (1 - 1 / (distance * slope / dimension + 1)) * dimension, it starts
+     * with slope and never exceeds dimension.
+     */
+    public static final DampingCurve RUBBER_BAND = new DampingCurve() {
+        @Override
+        public float evaluate(float distance, float slope, float dimension) {
+            return (1 - 1 / (distance * slope / dimension + 1)) * dimension;
+        }
+    };
+
+    /**
+     * offset = log(1 + distance * slope / dimension) * dimension, it starts with slope and grows
+     * slower and slower without a bound.
+     */
+    public static final DampingCurve LOGARITHMIC = new DampingCurve() {
+        @Override
+        public float evaluate(float distance, float slope, float dimension) {
+            return (float) Math.log(1 + distance * slope / dimension) * dimension;
+        }
+    };
+
+    /**
+     * @param kneeFraction Linear until offset reaches this fraction of dimension, eg. 0.6 is a little
+     *                     more than the indicator while dimension is twice its height.
+     * @param tailFactor   The slope after knee is multiplied by it, from 0 to 1.
+     * @return A curve which is linear with slope until the knee and then linear with a smaller slope.
+     */
+    public static DampingCurve piecewise(final float kneeFraction, final float tailFactor) {
+        return new DampingCurve() {
+            @Override
+            public float evaluate(float distance, float slope, float dimension) {
+                float kneeOffset = kneeFraction * dimension;
+                float offset = distance * slope;
+                if (offset <= kneeOffset) {
+                    return offset;
+                }
+                return kneeOffset + (offset - kneeOffset) * tailFactor;
+            }
+        };
+    }
+
+    /**
+     * @param distance  Finger move distance, never negative.
+     * @param slope     1 - resistance of {@link DragPhysics}, the slope at the beginning.
+     * @param dimension The dimension which curve is relative to, eg. a small multiple of indicator height.
+     * @return Translation offset, never negative and never decreases while distance increases.
+     */
+    public abstract float evaluate(float distance, float slope, float dimension);
+}
@@ -0,0 +1,264 @@
+package com.yat3s.chopin.core;
+
+/**
+ * Offset, progress and release decision computations of drag gesture.
+ */
+public final class DragPhysics {
+
+    public static final int DIRECTION_NONE = 0;
+    public static final int DIRECTION_DOWN = 1;
+    public static final int DIRECTION_UP = 2;
+
+    // Nothing to do, eg. released while refreshing and not over the indicator, or while an animation
+    // or notification is settling content.
+    public static final int RELEASE_NONE = 0;
+
+    // Content is at rest position.
+    public static final int RELEASE_AT_REST = 1;
+
+    // Dragged over header indicator, it should bounce to refreshing position.
+    public static final int RELEASE_TO_REFRESH = 2;
+
+    // Dragged over footer indicator, it should bounce to loading position.
+    public static final int RELEASE_TO_LOAD = 3;
+
+    // Not dragged enough, the drag is aborted and indicator is notified.
+    public static final int RELEASE_ABORT = 4;
+
+    // There is no indicator, content just bounces back.
+    public static final int RELEASE_TO_DEFAULT = 5;
+
+    private static final float DEFAULT_RESISTANCE = 0.4f;
+
+    // The offset table covers move distance up to this factor of dimension at least, the offset is
+    // clamped beyond the table, see #setMaxMoveDistance(int).
+    private static final int TABLE_DIMENSION_FACTOR = 2;
+
+    // Scroll resistance, if it equal 0f will scroll no any friction,
+    // if it equal 1f will can not scroll.
+    private float mResistance = DEFAULT_RESISTANCE;
+
+    private DampingCurve mDampingCurve = DampingCurve.LINEAR;
+    private int mDimension;
+    private int mMaxMoveDistance;
+
+    // Offset of each move distance, built from damping curve as soon as curve, resistance or
+    // dimension is changed, so a move never evaluates the curve or builds the table.
+    private int[] mOffsetTable = new int[0];
+    private int mOffsetTableSize;
+
+    public float getResistance() {
+        return mResistance;
+    }
+
+    public void setResistance(float resistance) {
+        float newResistance = Math.max(0, Math.min(1, resistance));
+        if (newResistance != mResistance) {
+            mResistance = newResistance;
+            buildOffsetTable();
+        }
+    }
+
+    public DampingCurve getDampingCurve() {
+        return mDampingCurve;
+    }
+
+    /**
+     * @param dampingCurve Null means {@link DampingCurve#LINEAR}.
+     */
+    public void setDampingCurve(DampingCurve dampingCurve) {
+        DampingCurve newDampingCurve = null == dampingCurve ? DampingCurve.LINEAR : dampingCurve;
+        if (newDampingCurve != mDampingCurve) {
+            mDampingCurve = newDampingCurve;
+            buildOffsetTable();
+        }
+    }
+
+    public int getDimension() {
+        return mDimension;
+    }
+
+    /**
+     * @param dimension The dimension which damping curve is relative to, eg. a small multiple of
+     *                  indicator height, {@link DampingCurve#RUBBER_BAND} never exceeds it.
+     */
+    public void setDimension(int dimension) {
+        int newDimension = Math.max(0, dimension);
+        if (newDimension != mDimension) {
+            mDimension = newDimension;
+            buildOffsetTable();
+        }
+    }
+
+    public int getMaxMoveDistance() {
+        return mMaxMoveDistance;
+    }
+
+    /**
+     * @param maxMoveDistance The longest move distance a finger can make, eg. height of layout, the
+     *                        offset is clamped beyond it or beyond twice the dimension if it's longer.
+     */
+    public void setMaxMoveDistance(int maxMoveDistance) {
+        int newMaxMoveDistance = Math.max(0, maxMoveDistance);
+        if (newMaxMoveDistance != mMaxMoveDistance) {
+            mMaxMoveDistance = newMaxMoveDistance;
+            buildOffsetTable();
+        }
+    }
+
+    /**
+     * Compute translation offset of content from the finger move distance after intercepted.
+     * <p>
+     * The offset is computed directly with {@link DampingCurve#LINEAR} or before dimension is set,
+     * otherwise it's looked up from the offset table.
+     *
+     * @param moveDistance Move distance since drag started.
+     * @return The translation offset.
+     */
+    public int computeOffset(int moveDistance) {
+        if (mDampingCurve == DampingCurve.LINEAR || mDimension == 0) {
+            return (int) (moveDistance * (1 - mResistance));
+        }
+        int distance = Math.min(Math.abs(moveDistance), mOffsetTableSize - 1);
+        return moveDistance < 0 ? -mOffsetTable[distance] : mOffsetTable[distance];
+    }
+
+    /**
+     * Compute translation offset while content has been translated before intercepted,
+     * eg. dragging in refreshing status.
+     *
+     * @param offsetWhileIntercept The translated offset while intercepted.
+     * @param moveDistance         Move distance since intercepted.
+     * @return The translation offset.
+     */
+    public int computeOffset(int offsetWhileIntercept, int moveDistance) {
+        if (mDampingCurve == DampingCurve.LINEAR || mDimension == 0) {
+            return offsetWhileIntercept + computeOffset(moveDistance);
+        }
+        // Continue along the curve from the distance which produces the intercepted offset, so a drag
+        // from refreshing position is damped as much as if it started at rest.
+        int startDistance = findDistance(offsetWhileIntercept);
+        return offsetWhileIntercept + computeOffset(startDistance + moveDistance) - computeOffset(startDistance);
+    }
+
+    /**
+     * Binary search the offset table, it's monotonic.
+     *
+     * @return The least move distance whose offset reaches the offset.
+     */
+    private int findDistance(int offset) {
+        int target = Math.abs(offset);
+        int low = 0, high = mOffsetTableSize - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (mOffsetTable[middle] < target) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return offset < 0 ? -low : low;
+    }
+
+    /**
+     * The table is ONLY used by a non-linear curve with dimension set.
+     */
+    private void buildOffsetTable() {
+        if (mDampingCurve == DampingCurve.LINEAR || mDimension == 0) {
+            mOffsetTableSize = 0;
+            return;
+        }
+        mOffsetTableSize = Math.max(mDimension * TABLE_DIMENSION_FACTOR, mMaxMoveDistance) + 1;
+        // Reuse the table if it's large enough, eg. resistance changed.
+        if (mOffsetTable.length < mOffsetTableSize) {
+            mOffsetTable = new int[mOffsetTableSize];
+        }
+        float slope = 1 - mResistance;
+        int lastOffset = 0;
+        for (int distance = 0; distance < mOffsetTableSize; distance++) {
+            // Keep it monotonic even if the curve is not due to float error.
+            lastOffset = Math.max(lastOffset, (int) mDampingCurve.evaluate(distance, slope, mDimension));
+            mOffsetTable[distance] = lastOffset;
+        }
+    }
+
+    /**
+     * @param offset        The translation offset.
+     * @param indicatorSize The height of indicator.
+     * @return Progress of offset to indicator, 1 means offset reached the indicator height.
+     */
+    public static float computeProgress(int offset, int indicatorSize) {
+        if (indicatorSize <= 0) {
+            return 0;
+        }
+        return Math.abs(offset) / (float) indicatorSize;
+    }
+
+    /**
+     * Detect whether move has started a vertical pull.
+     *
+     * @param dx        Move distance of x since action down.
+     * @param dy        Move distance of y since action down.
+     * @param touchSlop The distance a touch can wander before it's a move.
+     * @return One of DIRECTION_*.
+     */
+    public static int detectPullDirection(int dx, int dy, int touchSlop) {
+        if (Math.abs(dy) <= touchSlop) {
+            return DIRECTION_NONE;
+        }
+        if (dy > Math.abs(dx)) {
+            return DIRECTION_DOWN;
+        }
+        if (-dy > Math.abs(dx)) {
+            return DIRECTION_UP;
+        }
+        return DIRECTION_NONE;
+    }
+
+    /**
+     * @param state        Current state of {@link DragStateMachine}.
+     * @param moveDistance Move distance since drag started.
+     * @return true if user has dragged content back over its rest position.
+     */
+    public static boolean isDragReversed(int state, int moveDistance) {
+        return (moveDistance > 0 && state == DragStateMachine.STATE_DRAGGING_UP)
+                || (moveDistance < 0 && state == DragStateMachine.STATE_DRAGGING_DOWN);
+    }
+
+    /**
+     * Decide what to do while user releases finger.
+     *
+     * @param state               Current state of {@link DragStateMachine}.
+     * @param offset              Current translation offset of content.
+     * @param headerIndicatorSize Height of refresh header indicator, or -1 if there is no one.
+     * @param footerIndicatorSize Height of loading footer indicator, or -1 if there is no one.
+     * @return One of RELEASE_*.
+     */
+    public static int decideRelease(int state, int offset, int headerIndicatorSize, int footerIndicatorSize) {
+        // The pending transition owns content, a tap must not restart refreshing or abort it.
+        if (state == DragStateMachine.STATE_BOUNCING_DOWN || state == DragStateMachine.STATE_BOUNCING_UP
+                || state == DragStateMachine.STATE_SHOWING_HEADER_NOTIFICATION
+                || state == DragStateMachine.STATE_SHOWING_FOOTER_NOTIFICATION) {
+            return RELEASE_NONE;
+        }
+        if (offset == 0) {
+            return RELEASE_AT_REST;
+        }
+        if (offset > 0) {
+            if (headerIndicatorSize < 0) {
+                return RELEASE_TO_DEFAULT;
+            }
+            if (offset >= headerIndicatorSize) {
+                return RELEASE_TO_REFRESH;
+            }
+            return state == DragStateMachine.STATE_REFRESHING ? RELEASE_NONE : RELEASE_ABORT;
+        }
+        if (footerIndicatorSize < 0) {
+            return RELEASE_TO_DEFAULT;
+        }
+        if (-offset >= footerIndicatorSize) {
+            return RELEASE_TO_LOAD;
+        }
+        return state == DragStateMachine.STATE_LOADING ? RELEASE_NONE : RELEASE_ABORT;
+    }
+}
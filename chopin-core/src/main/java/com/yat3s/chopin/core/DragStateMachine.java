@@ -0,0 +1,218 @@
+package com.yat3s.chopin.core;
+
+/**
+ * Table driven state machine of pull to refresh/load more gesture.
+ * <p>
+ * Every state change is caused by an event, the next state is looked up from a
+ * [state x event] table and an event which is not allowed in current state is rejected,
+ * so the state can never be changed to an unexpected one.
+ * NOTE: It is not thread safe, it should be accessed from one thread.
+ */
+public final class DragStateMachine {
+
+    public static final int STATE_DEFAULT = 0;
+
+    public static final int STATE_DRAGGING_DOWN = 1;
+
+    public static final int STATE_DRAGGING_UP = 2;
+
+    public static final int STATE_REFRESHING = 3;
+
+    public static final int STATE_LOADING = 4;
+
+    public static final int STATE_BOUNCING_DOWN = 5;
+
+    public static final int STATE_BOUNCING_UP = 6;
+
+    public static final int STATE_SHOWING_HEADER_NOTIFICATION = 7;
+
+    public static final int STATE_SHOWING_FOOTER_NOTIFICATION = 8;
+
+    public static final int STATE_COUNT = 9;
+
+    // The result of an event which is not allowed in current state.
+    public static final int STATE_INVALID = -1;
+
+    // User starts pulling content down.
+    public static final int EVENT_PULL_DOWN = 0;
+
+    // User starts pulling content up.
+    public static final int EVENT_PULL_UP = 1;
+
+    // User has dragged content back over its rest position.
+    public static final int EVENT_DRAG_REVERSED = 2;
+
+    // User releases finger while content is at rest position.
+    public static final int EVENT_RELEASE_AT_REST = 3;
+
+    // Content starts bouncing to the refreshing position.
+    public static final int EVENT_BOUNCE_TO_REFRESH = 4;
+
+    // Content starts bouncing to the loading position.
+    public static final int EVENT_BOUNCE_TO_LOAD = 5;
+
+    // Content has reached the refreshing position.
+    public static final int EVENT_START_REFRESH = 6;
+
+    // Content has reached the loading position.
+    public static final int EVENT_START_LOADING = 7;
+
+    // Content starts bouncing up to rest or notification position.
+    public static final int EVENT_BOUNCE_UP = 8;
+
+    // Content starts bouncing down to rest or notification position.
+    public static final int EVENT_BOUNCE_DOWN = 9;
+
+    public static final int EVENT_SHOW_HEADER_NOTIFICATION = 10;
+
+    public static final int EVENT_SHOW_FOOTER_NOTIFICATION = 11;
+
+    // Content has settled at rest position after bouncing or showing notification.
+    public static final int EVENT_SETTLE = 12;
+
+    // Load more is triggered by scrolling to the end of list.
+    public static final int EVENT_AUTO_LOAD_MORE = 13;
+
+    // Refreshing or loading has completed while content is at rest position, eg. auto load more.
+    public static final int EVENT_COMPLETE_AT_REST = 14;
+
+    public static final int EVENT_COUNT = 15;
+
+    // The next state of each [state, event], index is state * EVENT_COUNT + event.
+    private static final int[] TRANSITIONS = new int[STATE_COUNT * EVENT_COUNT];
+
+    private static final int[] DRAGGING_STATES = {STATE_DRAGGING_DOWN, STATE_DRAGGING_UP};
+
+    private static final int[] BOUNCING_STATES = {STATE_BOUNCING_DOWN, STATE_BOUNCING_UP};
+
+    // Content is collapsed from these states, default is included for the offset left by a reversed drag.
+    private static final int[] COLLAPSIBLE_STATES = {STATE_DEFAULT, STATE_DRAGGING_DOWN, STATE_DRAGGING_UP,
+            STATE_REFRESHING, STATE_LOADING, STATE_SHOWING_HEADER_NOTIFICATION, STATE_SHOWING_FOOTER_NOTIFICATION};
+
+    private static final int[] SETTLING_STATES = {STATE_BOUNCING_DOWN, STATE_BOUNCING_UP,
+            STATE_SHOWING_HEADER_NOTIFICATION, STATE_SHOWING_FOOTER_NOTIFICATION};
+
+    static {
+        for (int idx = 0; idx < TRANSITIONS.length; idx++) {
+            TRANSITIONS[idx] = STATE_INVALID;
+        }
+
+        allow(new int[]{STATE_DEFAULT}, EVENT_PULL_DOWN, STATE_DRAGGING_DOWN);
+        allow(new int[]{STATE_DEFAULT}, EVENT_PULL_UP, STATE_DRAGGING_UP);
+        allow(DRAGGING_STATES, EVENT_DRAG_REVERSED, STATE_DEFAULT);
+
+        // Refreshing and loading are not finished by a tap.
+        allow(new int[]{STATE_DEFAULT, STATE_DRAGGING_DOWN, STATE_DRAGGING_UP,
+                STATE_BOUNCING_DOWN, STATE_BOUNCING_UP}, EVENT_RELEASE_AT_REST, STATE_DEFAULT);
+
+        // Refresh is performed programmatically from default.
+        allow(new int[]{STATE_DEFAULT, STATE_DRAGGING_DOWN}, EVENT_BOUNCE_TO_REFRESH, STATE_BOUNCING_UP);
+        allow(new int[]{STATE_REFRESHING}, EVENT_BOUNCE_TO_REFRESH, STATE_REFRESHING);
+        allow(new int[]{STATE_DRAGGING_UP}, EVENT_BOUNCE_TO_LOAD, STATE_BOUNCING_DOWN);
+        allow(new int[]{STATE_LOADING}, EVENT_BOUNCE_TO_LOAD, STATE_LOADING);
+
+        allow(new int[]{STATE_BOUNCING_UP, STATE_REFRESHING}, EVENT_START_REFRESH, STATE_REFRESHING);
+        allow(new int[]{STATE_BOUNCING_DOWN, STATE_LOADING}, EVENT_START_LOADING, STATE_LOADING);
+
+        allow(COLLAPSIBLE_STATES, EVENT_BOUNCE_UP, STATE_BOUNCING_UP);
+        allow(COLLAPSIBLE_STATES, EVENT_BOUNCE_DOWN, STATE_BOUNCING_DOWN);
+
+        allow(BOUNCING_STATES, EVENT_SHOW_HEADER_NOTIFICATION, STATE_SHOWING_HEADER_NOTIFICATION);
+        allow(BOUNCING_STATES, EVENT_SHOW_FOOTER_NOTIFICATION, STATE_SHOWING_FOOTER_NOTIFICATION);
+
+        allow(SETTLING_STATES, EVENT_SETTLE, STATE_DEFAULT);
+
+        allow(new int[]{STATE_DEFAULT}, EVENT_AUTO_LOAD_MORE, STATE_LOADING);
+        allow(new int[]{STATE_REFRESHING, STATE_LOADING}, EVENT_COMPLETE_AT_REST, STATE_DEFAULT);
+    }
+
+    private static void allow(int[] fromStates, int event, int toState) {
+        for (int fromState : fromStates) {
+            TRANSITIONS[fromState * EVENT_COUNT + event] = toState;
+        }
+    }
+
+    private int mState = STATE_DEFAULT;
+
+    // Changed on every state change, see #getGeneration().
+    private int mGeneration;
+
+    private OnStateChangeListener mOnStateChangeListener;
+
+    public int getState() {
+        return mState;
+    }
+
+    public boolean isDragging() {
+        return mState == STATE_DRAGGING_DOWN || mState == STATE_DRAGGING_UP;
+    }
+
+    public boolean isRefreshingOrLoading() {
+        return mState == STATE_REFRESHING || mState == STATE_LOADING;
+    }
+
+    /**
+     * A pending timer or animation captures the generation while it's scheduled, and it's stale
+     * once the generation has changed, which means the state has moved on.
+     *
+     * @return A token which changes on every state change and reset.
+     */
+    public int getGeneration() {
+        return mGeneration;
+    }
+
+    /**
+     * Look up the next state of event in current state without changing it.
+     *
+     * @param event One of EVENT_*.
+     * @return The next state, or {@link #STATE_INVALID} if this event is not allowed.
+     */
+    public int peek(int event) {
+        return nextState(mState, event);
+    }
+
+    /**
+     * Apply event to current state, the listener is ONLY notified while state has changed.
+     *
+     * @param event One of EVENT_*.
+     * @return false if this event is not allowed in current state.
+     */
+    public boolean fire(int event) {
+        int newState = nextState(mState, event);
+        if (newState == STATE_INVALID) {
+            return false;
+        }
+        if (newState != mState) {
+            int oldState = mState;
+            mState = newState;
+            mGeneration++;
+            if (null != mOnStateChangeListener) {
+                mOnStateChangeListener.onStateChanged(oldState, newState, event);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Force state to default without notifying, eg. the view has been detached.
+     */
+    public void reset() {
+        mState = STATE_DEFAULT;
+        mGeneration++;
+    }
+
+    public void setOnStateChangeListener(OnStateChangeListener onStateChangeListener) {
+        mOnStateChangeListener = onStateChangeListener;
+    }
+
+    public static int nextState(int state, int event) {
+        if (state < 0 || state >= STATE_COUNT || event < 0 || event >= EVENT_COUNT) {
+            return STATE_INVALID;
+        }
+        return TRANSITIONS[state * EVENT_COUNT + event];
+    }
+
+    public interface OnStateChangeListener {
+        void onStateChanged(int oldState, int newState, int event);
+    }
+}
@@ -0,0 +1,84 @@
+package com.yat3s.chopin.core;
+
+import java.util.Arrays;
+
+/**
+ * Record touch events into primitive arrays, {@link #toRecording()} creates a {@link GestureRecording}.
+ * <p>
+ * Recording does not allocate until the arrays grow, and events over the max count are dropped so a
+ * recorder left in a long session can not grow without limit.
+ */
+public final class GestureRecorder {
+
+    private static final int DEFAULT_MAX_EVENT_COUNT = 8192;
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final int mMaxEventCount;
+
+    private int mWidth, mHeight;
+    private int mEventCount, mDroppedEventCount;
+    private long mFirstEventTime;
+
+    private int[] mActions = new int[INITIAL_CAPACITY];
+    private long[] mEventTimes = new long[INITIAL_CAPACITY];
+    private float[] mX = new float[INITIAL_CAPACITY];
+    private float[] mY = new float[INITIAL_CAPACITY];
+
+    public GestureRecorder() {
+        this(DEFAULT_MAX_EVENT_COUNT);
+    }
+
+    public GestureRecorder(int maxEventCount) {
+        mMaxEventCount = maxEventCount;
+    }
+
+    public void setViewSize(int width, int height) {
+        mWidth = width;
+        mHeight = height;
+    }
+
+    /**
+     * @param action          Masked action, see GestureRecording.ACTION_*.
+     * @param eventTimeMillis Event time in milliseconds, eg. MotionEvent#getEventTime().
+     */
+    public void record(int action, long eventTimeMillis, float x, float y) {
+        if (mEventCount >= mMaxEventCount) {
+            mDroppedEventCount++;
+            return;
+        }
+        if (mEventCount == mActions.length) {
+            int capacity = Math.min(mMaxEventCount, mActions.length * 2);
+            mActions = Arrays.copyOf(mActions, capacity);
+            mEventTimes = Arrays.copyOf(mEventTimes, capacity);
+            mX = Arrays.copyOf(mX, capacity);
+            mY = Arrays.copyOf(mY, capacity);
+        }
+        if (mEventCount == 0) {
+            mFirstEventTime = eventTimeMillis;
+        }
+        mActions[mEventCount] = action;
+        mEventTimes[mEventCount] = eventTimeMillis - mFirstEventTime;
+        mX[mEventCount] = x;
+        mY[mEventCount] = y;
+        mEventCount++;
+    }
+
+    public int getEventCount() {
+        return mEventCount;
+    }
+
+    public int getDroppedEventCount() {
+        return mDroppedEventCount;
+    }
+
+    public GestureRecording toRecording() {
+        return new GestureRecording(mWidth, mHeight, Arrays.copyOf(mActions, mEventCount),
+                Arrays.copyOf(mEventTimes, mEventCount), Arrays.copyOf(mX, mEventCount),
+                Arrays.copyOf(mY, mEventCount));
+    }
+
+    public void reset() {
+        mEventCount = 0;
+        mDroppedEventCount = 0;
+    }
+}
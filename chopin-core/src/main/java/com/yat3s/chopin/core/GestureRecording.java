@@ -0,0 +1,176 @@
+package com.yat3s.chopin.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A recorded touch event stream, it can be saved in a compact binary format and replayed later.
+ * <p>
+ * Format (version 1), all numbers after the header are unsigned varints:
+ * <pre>
+ * int   magic 'CHGR'
+ * byte  version
+ * width, height      The view size while recording.
+ * count              Event count.
+ * count * [action, timeDelta, zigzag(dx), zigzag(dy)]
+ * </pre>
+ * timeDelta is milliseconds since the previous event, dx/dy are coordinate deltas in 1/8 pixel,
+ * so a typical move event costs 4 ~ 6 bytes.
+ */
+public final class GestureRecording {
+
+    // Same values as android.view.MotionEvent masked actions.
+    public static final int ACTION_DOWN = 0;
+    public static final int ACTION_UP = 1;
+    public static final int ACTION_MOVE = 2;
+    public static final int ACTION_CANCEL = 3;
+    public static final int ACTION_POINTER_DOWN = 5;
+    public static final int ACTION_POINTER_UP = 6;
+
+    private static final int MAGIC = 0x43484752;
+    private static final int VERSION = 1;
+
+    // Coordinates are saved in 1/8 pixel.
+    private static final float COORDINATE_SCALE = 8f;
+
+    private final int mWidth, mHeight;
+    private final int[] mActions;
+    private final long[] mEventTimes;
+    private final float[] mX, mY;
+
+    GestureRecording(int width, int height, int[] actions, long[] eventTimes, float[] x, float[] y) {
+        mWidth = width;
+        mHeight = height;
+        mActions = actions;
+        mEventTimes = eventTimes;
+        mX = x;
+        mY = y;
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    public int getEventCount() {
+        return mActions.length;
+    }
+
+    public int getAction(int index) {
+        return mActions[index];
+    }
+
+    /**
+     * @return Event time in milliseconds since the first event.
+     */
+    public long getEventTime(int index) {
+        return mEventTimes[index];
+    }
+
+    public float getX(int index) {
+        return mX[index];
+    }
+
+    public float getY(int index) {
+        return mY[index];
+    }
+
+    public void writeTo(OutputStream outputStream) throws IOException {
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        writeVarInt(out, mWidth);
+        writeVarInt(out, mHeight);
+        writeVarInt(out, mActions.length);
+        long lastTime = 0;
+        int lastX = 0, lastY = 0;
+        for (int idx = 0; idx < mActions.length; idx++) {
+            int x = Math.round(mX[idx] * COORDINATE_SCALE);
+            int y = Math.round(mY[idx] * COORDINATE_SCALE);
+            writeVarInt(out, mActions[idx]);
+            writeVarInt(out, (int) Math.max(0, mEventTimes[idx] - lastTime));
+            writeVarInt(out, zigzag(x - lastX));
+            writeVarInt(out, zigzag(y - lastY));
+            lastTime = mEventTimes[idx];
+            lastX = x;
+            lastY = y;
+        }
+        out.flush();
+    }
+
+    public byte[] toByteArray() {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(16 + mActions.length * 6);
+        try {
+            writeTo(outputStream);
+        } catch (IOException e) {
+            // ByteArrayOutputStream never throws.
+            throw new IllegalStateException(e);
+        }
+        return outputStream.toByteArray();
+    }
+
+    public static GestureRecording readFrom(InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(inputStream);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a gesture recording");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported gesture recording version " + version);
+        }
+        int width = readVarInt(in);
+        int height = readVarInt(in);
+        int count = readVarInt(in);
+        int[] actions = new int[count];
+        long[] eventTimes = new long[count];
+        float[] xs = new float[count];
+        float[] ys = new float[count];
+        long time = 0;
+        int x = 0, y = 0;
+        for (int idx = 0; idx < count; idx++) {
+            actions[idx] = readVarInt(in);
+            time += readVarInt(in);
+            x += unzigzag(readVarInt(in));
+            y += unzigzag(readVarInt(in));
+            eventTimes[idx] = time;
+            xs[idx] = x / COORDINATE_SCALE;
+            ys[idx] = y / COORDINATE_SCALE;
+        }
+        return new GestureRecording(width, height, actions, eventTimes, xs, ys);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,196 @@
+package com.yat3s.chopin.core;
+
+/**
+ * Performance statistics of one gesture or one collapse animation, it is filled while tracking and
+ * reused by the next one, so copy the values you need in the callback instead of keeping it.
+ * <p>
+ * A frame is slow when it comes later than one and a half frame budget after the previous frame,
+ * which means at least one vsync is missed.
+ */
+public final class GestureStatistics {
+
+    // From touch down to content settled, include drag and release animation.
+    public static final int TYPE_GESTURE = 0;
+
+    // Collapse animation after refresh or load more completed.
+    public static final int TYPE_COLLAPSE = 1;
+
+    public static final long NOT_REACHED = -1;
+
+    // 60 fps.
+    public static final long DEFAULT_FRAME_BUDGET_NANOS = 16666667L;
+
+    private long mFrameBudgetNanos = DEFAULT_FRAME_BUDGET_NANOS;
+
+    private int mType;
+    private long mStartNanos, mDurationNanos;
+
+    private int mTouchEventCount;
+    private int mTranslationCount;
+    private int mIndicatorCallbackCount;
+
+    private int mDragFrameCount, mDragSlowFrameCount;
+    private int mAnimationFrameCount, mAnimationSlowFrameCount;
+    private long mLastFrameNanos;
+    private long mMaxFrameIntervalNanos;
+
+    private long mReleaseNanos;
+    private long mReleaseToRefreshPositionNanos;
+
+    public GestureStatistics() {
+        reset(TYPE_GESTURE, 0);
+    }
+
+    /**
+     * @param frameBudgetNanos Time of one frame, eg. 1s / display refresh rate.
+     */
+    public void setFrameBudgetNanos(long frameBudgetNanos) {
+        if (frameBudgetNanos > 0) {
+            mFrameBudgetNanos = frameBudgetNanos;
+        }
+    }
+
+    public long getFrameBudgetNanos() {
+        return mFrameBudgetNanos;
+    }
+
+    public void reset(int type, long startNanos) {
+        mType = type;
+        mStartNanos = startNanos;
+        mDurationNanos = 0;
+        mTouchEventCount = 0;
+        mTranslationCount = 0;
+        mIndicatorCallbackCount = 0;
+        mDragFrameCount = 0;
+        mDragSlowFrameCount = 0;
+        mAnimationFrameCount = 0;
+        mAnimationSlowFrameCount = 0;
+        mLastFrameNanos = 0;
+        mMaxFrameIntervalNanos = 0;
+        mReleaseNanos = NOT_REACHED;
+        mReleaseToRefreshPositionNanos = NOT_REACHED;
+    }
+
+    public void countTouchEvent() {
+        mTouchEventCount++;
+    }
+
+    public void countTranslation() {
+        mTranslationCount++;
+    }
+
+    public void countIndicatorCallback() {
+        mIndicatorCallbackCount++;
+    }
+
+    /**
+     * @param frameTimeNanos The frame time, eg. Choreographer frame time.
+     * @param dragging       Whether user is touching while this frame.
+     */
+    public void onFrame(long frameTimeNanos, boolean dragging) {
+        boolean slow = false;
+        if (mLastFrameNanos > 0) {
+            long interval = frameTimeNanos - mLastFrameNanos;
+            mMaxFrameIntervalNanos = Math.max(mMaxFrameIntervalNanos, interval);
+            slow = interval > mFrameBudgetNanos + mFrameBudgetNanos / 2;
+        }
+        mLastFrameNanos = frameTimeNanos;
+        if (dragging) {
+            mDragFrameCount++;
+            if (slow) {
+                mDragSlowFrameCount++;
+            }
+        } else {
+            mAnimationFrameCount++;
+            if (slow) {
+                mAnimationSlowFrameCount++;
+            }
+        }
+    }
+
+    public void onRelease(long nanos) {
+        mReleaseNanos = nanos;
+    }
+
+    /**
+     * Content has reached refresh or load more position after released.
+     */
+    public void onReachRefreshPosition(long nanos) {
+        if (mReleaseNanos != NOT_REACHED && mReleaseToRefreshPositionNanos == NOT_REACHED) {
+            mReleaseToRefreshPositionNanos = nanos - mReleaseNanos;
+        }
+    }
+
+    public void finish(long endNanos) {
+        mDurationNanos = endNanos - mStartNanos;
+    }
+
+    public int getType() {
+        return mType;
+    }
+
+    public long getDurationNanos() {
+        return mDurationNanos;
+    }
+
+    public int getTouchEventCount() {
+        return mTouchEventCount;
+    }
+
+    public int getTranslationCount() {
+        return mTranslationCount;
+    }
+
+    public int getIndicatorCallbackCount() {
+        return mIndicatorCallbackCount;
+    }
+
+    public int getDragFrameCount() {
+        return mDragFrameCount;
+    }
+
+    public int getDragSlowFrameCount() {
+        return mDragSlowFrameCount;
+    }
+
+    public int getAnimationFrameCount() {
+        return mAnimationFrameCount;
+    }
+
+    public int getAnimationSlowFrameCount() {
+        return mAnimationSlowFrameCount;
+    }
+
+    public int getFrameCount() {
+        return mDragFrameCount + mAnimationFrameCount;
+    }
+
+    public int getSlowFrameCount() {
+        return mDragSlowFrameCount + mAnimationSlowFrameCount;
+    }
+
+    public long getMaxFrameIntervalNanos() {
+        return mMaxFrameIntervalNanos;
+    }
+
+    /**
+     * @return Time from release to refresh or load more position, or {@link #NOT_REACHED}.
+     */
+    public long getReleaseToRefreshPositionNanos() {
+        return mReleaseToRefreshPositionNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "GestureStatistics{type=" + mType
+                + ", durationNanos=" + mDurationNanos
+                + ", touchEvents=" + mTouchEventCount
+                + ", translations=" + mTranslationCount
+                + ", indicatorCallbacks=" + mIndicatorCallbackCount
+                + ", dragFrames=" + mDragFrameCount + "/" + mDragSlowFrameCount
+                + ", animationFrames=" + mAnimationFrameCount + "/" + mAnimationSlowFrameCount
+                + ", maxFrameIntervalNanos=" + mMaxFrameIntervalNanos
+                + ", releaseToRefreshPositionNanos=" + mReleaseToRefreshPositionNanos
+                + '}';
+    }
+}
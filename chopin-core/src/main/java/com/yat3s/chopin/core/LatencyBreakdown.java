@@ -0,0 +1,122 @@
+package com.yat3s.chopin.core;
+
+/**
+ * User perceived latency of refresh or load more, from the content is released (or load more is
+ * triggered automatically) until the content has collapsed after completed.
+ * <p>
+ * Each session is split into phases, the time of {@link #PHASE_ANIMATING} and {@link #PHASE_WAITING}
+ * are recorded into their own histogram, so total = animating + waiting + delay, where delay is the
+ * collapse delay after completed and the time of showing notification view.
+ * <p>
+ * Time is passed in milliseconds by caller. It is not thread safe.
+ */
+public final class LatencyBreakdown {
+
+    private static final int PHASE_NONE = -1;
+
+    // Content is bouncing to refreshing position or collapsing.
+    public static final int PHASE_ANIMATING = 0;
+
+    // Waiting for the listener to complete.
+    public static final int PHASE_WAITING = 1;
+
+    // Collapse delay after completed, or showing notification view.
+    public static final int PHASE_DELAY = 2;
+
+    private static final int PHASE_COUNT = 3;
+
+    private final LatencyHistogram mTotal = new LatencyHistogram();
+    private final LatencyHistogram mWaiting = new LatencyHistogram();
+    private final LatencyHistogram mAnimating = new LatencyHistogram();
+
+    private final long[] mPhaseTimes = new long[PHASE_COUNT];
+    private int mPhase = PHASE_NONE;
+    private long mStartTime, mPhaseStartTime;
+    private boolean isCompleted;
+
+    public boolean isStarted() {
+        return mPhase != PHASE_NONE;
+    }
+
+    /**
+     * Start a session in phase, or switch to phase if it has started.
+     */
+    public void start(int phase, long now) {
+        if (isStarted()) {
+            enterPhase(phase, now);
+            return;
+        }
+        mStartTime = now;
+        mPhaseStartTime = now;
+        mPhase = phase;
+        isCompleted = false;
+        for (int idx = 0; idx < PHASE_COUNT; idx++) {
+            mPhaseTimes[idx] = 0;
+        }
+    }
+
+    /**
+     * Switch to phase, nothing happens if the session has not started.
+     */
+    public void enterPhase(int phase, long now) {
+        if (!isStarted()) {
+            return;
+        }
+        mPhaseTimes[mPhase] += now - mPhaseStartTime;
+        mPhaseStartTime = now;
+        mPhase = phase;
+    }
+
+    /**
+     * The listener has completed, the session is recorded once it is finished.
+     */
+    public void complete(long now) {
+        if (isStarted()) {
+            isCompleted = true;
+            enterPhase(PHASE_DELAY, now);
+        }
+    }
+
+    /**
+     * Content has settled, record the session if it has completed, otherwise it is dropped, eg.
+     * refreshing is interrupted.
+     */
+    public void finish(long now) {
+        if (!isStarted()) {
+            return;
+        }
+        if (isCompleted) {
+            enterPhase(mPhase, now);
+            mTotal.record(now - mStartTime);
+            mWaiting.record(mPhaseTimes[PHASE_WAITING]);
+            mAnimating.record(mPhaseTimes[PHASE_ANIMATING]);
+        }
+        cancel();
+    }
+
+    public void cancel() {
+        mPhase = PHASE_NONE;
+        isCompleted = false;
+    }
+
+    /**
+     * Clear recorded histograms, the session in flight is kept.
+     */
+    public void reset() {
+        mTotal.reset();
+        mWaiting.reset();
+        mAnimating.reset();
+    }
+
+    public LatencyHistogram getTotal() {
+        return mTotal;
+    }
+
+    public LatencyHistogram getWaiting() {
+        return mWaiting;
+    }
+
+    public LatencyHistogram getAnimating() {
+        return mAnimating;
+    }
+}
@@ -0,0 +1,153 @@
+package com.yat3s.chopin.core;
+
+import java.util.Arrays;
+
+/**
+ * A fixed memory histogram with log buckets, each power of two range is split into
+ * {@link #SUB_BUCKET_COUNT} linear sub buckets, so a recorded value is kept with at most 1/8
+ * relative error and recording never allocates.
+ * <p>
+ * The unit of values is decided by caller, eg. milliseconds. It is not thread safe.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    // Values below SUB_BUCKET_COUNT are exact, then SUB_BUCKET_COUNT buckets for each power of two.
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final int[] mCounts = new int[BUCKET_COUNT];
+
+    private long mCount, mTotal;
+    private long mMin = Long.MAX_VALUE, mMax;
+
+    /**
+     * @param value Negative value is recorded as 0.
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        mCounts[bucketIndex(value)]++;
+        mCount++;
+        mTotal += value;
+        mMin = Math.min(mMin, value);
+        mMax = Math.max(mMax, value);
+    }
+
+    public long getCount() {
+        return mCount;
+    }
+
+    public long getMin() {
+        return mCount == 0 ? 0 : mMin;
+    }
+
+    public long getMax() {
+        return mMax;
+    }
+
+    public long getMean() {
+        return mCount == 0 ? 0 : mTotal / mCount;
+    }
+
+    /**
+     * @param percentile From 0 to 100.
+     * @return The upper bound of the bucket which contains the value at percentile, it never exceeds
+     * the recorded max value. 0 if nothing is recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (mCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * mCount));
+        long count = 0;
+        for (int idx = 0; idx < BUCKET_COUNT; idx++) {
+            count += mCounts[idx];
+            if (count >= rank) {
+                return Math.max(getMin(), Math.min(mMax, bucketUpperBound(idx)));
+            }
+        }
+        return mMax;
+    }
+
+    /**
+     * Fill the snapshot without allocating, so it can be reported periodically.
+     */
+    public void snapshot(Snapshot snapshot) {
+        snapshot.mCount = mCount;
+        snapshot.mMin = getMin();
+        snapshot.mMax = mMax;
+        snapshot.mMean = getMean();
+        snapshot.mP50 = getValueAtPercentile(50);
+        snapshot.mP90 = getValueAtPercentile(90);
+        snapshot.mP99 = getValueAtPercentile(99);
+    }
+
+    public void reset() {
+        Arrays.fill(mCounts, 0);
+        mCount = 0;
+        mTotal = 0;
+        mMin = Long.MAX_VALUE;
+        mMax = 0;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKET_COUNT + (int) ((value >>> shift) - SUB_BUCKET_COUNT);
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long subBucket = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        long upperBound = ((subBucket + 1) << shift) - 1;
+        // The last bucket overflows.
+        return upperBound < 0 ? Long.MAX_VALUE : upperBound;
+    }
+
+    public static final class Snapshot {
+        private long mCount, mMin, mMax, mMean;
+        private long mP50, mP90, mP99;
+
+        public long getCount() {
+            return mCount;
+        }
+
+        public long getMin() {
+            return mMin;
+        }
+
+        public long getMax() {
+            return mMax;
+        }
+
+        public long getMean() {
+            return mMean;
+        }
+
+        public long getP50() {
+            return mP50;
+        }
+
+        public long getP90() {
+            return mP90;
+        }
+
+        public long getP99() {
+            return mP99;
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + mCount + ", min=" + mMin + ", mean=" + mMean + ", p50=" + mP50
+                    + ", p90=" + mP90 + ", p99=" + mP99 + ", max=" + mMax;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.yat3s.chopin.core;
+
+/**
+ * Decide whether a pull that reached refreshing position really refreshes, so a storm of pulls
+ * does not hit backend on each release.
+ * <p>
+ * Like Cache-Control of HTTP, the last refresh is fresh within min interval and the pull is
+ * skipped. After that, within the stale-while-revalidate window, cached data is served at once and
+ * revalidated in background. A pull while a refresh is in flight joins it.
+ * <p>
+ * Time is passed in milliseconds by caller. It is not thread safe.
+ */
+public final class RefreshPolicy {
+
+    // Notify refresh listener.
+    public static final int DECISION_REFRESH = 0;
+
+    // A refresh is in flight, wait for its completion.
+    public static final int DECISION_COALESCE = 1;
+
+    // The last refresh is fresh, complete at once.
+    public static final int DECISION_SKIP = 2;
+
+    // Serve cached data and complete at once, revalidate in background.
+    public static final int DECISION_REVALIDATE = 3;
+
+    private static final int DECISION_COUNT = 4;
+
+    private static final long DEFAULT_IN_FLIGHT_TIMEOUT = 30000;
+
+    private long mMinIntervalMillis;
+    private long mStaleWhileRevalidateMillis;
+    private long mInFlightTimeoutMillis = DEFAULT_IN_FLIGHT_TIMEOUT;
+
+    private boolean isInFlight, hasRefreshed;
+    private long mRefreshStartTime, mLastRefreshTime;
+
+    private final int[] mDecisionCounts = new int[DECISION_COUNT];
+
+    public long getMinInterval() {
+        return mMinIntervalMillis;
+    }
+
+    /**
+     * @param minIntervalMillis Pulls within it after the last refresh completed are skipped, 0 means
+     *                          every pull refreshes. The default value is 0.
+     */
+    public void setMinInterval(long minIntervalMillis) {
+        mMinIntervalMillis = Math.max(0, minIntervalMillis);
+    }
+
+    public long getStaleWhileRevalidate() {
+        return mStaleWhileRevalidateMillis;
+    }
+
+    /**
+     * @param staleWhileRevalidateMillis The window after min interval in which cached data is served
+     *                                   and revalidated, it takes effect ONLY if revalidation is
+     *                                   available. The default value is 0.
+     */
+    public void setStaleWhileRevalidate(long staleWhileRevalidateMillis) {
+        mStaleWhileRevalidateMillis = Math.max(0, staleWhileRevalidateMillis);
+    }
+
+    /**
+     * @param inFlightTimeoutMillis A refresh not completed after it is given up, so a lost completion
+     *                              does not block refreshing forever, 0 means never. The default
+     *                              value is 30 seconds.
+     */
+    public void setInFlightTimeout(long inFlightTimeoutMillis) {
+        mInFlightTimeoutMillis = Math.max(0, inFlightTimeoutMillis);
+    }
+
+    /**
+     * Called once a pull reached refreshing position.
+     *
+     * @param canRevalidate Whether cached data can be served while revalidating.
+     * @return One of DECISION_*.
+     */
+    public int onRefreshRequested(long now, boolean canRevalidate) {
+        int decision = decide(now, canRevalidate);
+        mDecisionCounts[decision]++;
+        if (decision == DECISION_REFRESH) {
+            isInFlight = true;
+            mRefreshStartTime = now;
+        } else if (decision == DECISION_REVALIDATE) {
+            // Revalidation hits backend as well.
+            hasRefreshed = true;
+            mLastRefreshTime = now;
+        }
+        return decision;
+    }
+
+    /**
+     * Called once the refresh completed, nothing happens if no refresh is in flight, eg. the
+     * completion of a skipped pull.
+     */
+    public void onRefreshCompleted(long now) {
+        if (!isInFlight) {
+            return;
+        }
+        isInFlight = false;
+        hasRefreshed = true;
+        mLastRefreshTime = now;
+    }
+
+    /**
+     * Called once the refresh in flight is canceled before completed, eg. a speculative refresh is
+     * aborted, the last refresh is kept.
+     */
+    public void onRefreshCanceled() {
+        isInFlight = false;
+    }
+
+    /**
+     * Forget the last refresh, eg. data has changed, the next pull refreshes.
+     */
+    public void invalidate() {
+        hasRefreshed = false;
+    }
+
+    public boolean isInFlight(long now) {
+        return isInFlight && (mInFlightTimeoutMillis == 0 || now - mRefreshStartTime < mInFlightTimeoutMillis);
+    }
+
+    /**
+     * @param decision One of DECISION_*.
+     * @return How many pulls have been decided so.
+     */
+    public int getDecisionCount(int decision) {
+        return mDecisionCounts[decision];
+    }
+
+    /**
+     * Same as {@link #onRefreshRequested(long, boolean)} but nothing is recorded, eg. to check
+     * whether a speculative refresh is worth starting.
+     */
+    public int decide(long now, boolean canRevalidate) {
+        if (isInFlight(now)) {
+            return DECISION_COALESCE;
+        }
+        if (!hasRefreshed) {
+            return DECISION_REFRESH;
+        }
+        long age = now - mLastRefreshTime;
+        if (age < mMinIntervalMillis) {
+            return DECISION_SKIP;
+        }
+        if (canRevalidate && age < mMinIntervalMillis + mStaleWhileRevalidateMillis) {
+            return DECISION_REVALIDATE;
+        }
+        return DECISION_REFRESH;
+    }
+}
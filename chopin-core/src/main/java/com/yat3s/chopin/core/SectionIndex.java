@@ -0,0 +1,140 @@
+package com.yat3s.chopin.core;
+
+import com.yat3s.chopin.util.IntArrayList;
+
+/**
+ * Sorted index of section header positions in a list.
+ * <p>
+ * It is built once from {@link HeaderLookup} and then updated incrementally by range changes,
+ * finding the section of a position or the next header after a position is a binary search.
+ */
+public final class SectionIndex {
+
+    public static final int NO_POSITION = -1;
+
+    private final HeaderLookup mHeaderLookup;
+
+    // The sorted positions which has header.
+    private final IntArrayList mHeaderPositions = new IntArrayList();
+
+    private int mItemCount;
+
+    public SectionIndex(HeaderLookup headerLookup) {
+        mHeaderLookup = headerLookup;
+    }
+
+    public void rebuild(int itemCount) {
+        mHeaderPositions.clear();
+        mItemCount = itemCount;
+        for (int position = 0; position < itemCount; position++) {
+            if (mHeaderLookup.hasHeader(position)) {
+                mHeaderPositions.add(position);
+            }
+        }
+    }
+
+    public int getItemCount() {
+        return mItemCount;
+    }
+
+    public boolean hasHeader(int position) {
+        return mHeaderPositions.binarySearch(position) >= 0;
+    }
+
+    public int getSectionCount() {
+        return mHeaderPositions.size();
+    }
+
+    public int getHeaderPosition(int section) {
+        return mHeaderPositions.get(section);
+    }
+
+    /**
+     * Find the section which owns this position.
+     *
+     * @param position The item position.
+     * @return section index, or -1 if there is no header before this position.
+     */
+    public int getSectionForPosition(int position) {
+        int index = mHeaderPositions.binarySearch(position);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    /**
+     * Find the header position of the section which owns this position.
+     *
+     * @param position The item position.
+     * @return header position, or {@link #NO_POSITION} if there is no header before it.
+     */
+    public int getHeaderPositionForPosition(int position) {
+        int section = getSectionForPosition(position);
+        return section < 0 ? NO_POSITION : mHeaderPositions.get(section);
+    }
+
+    /**
+     * Find the first header position after this position.
+     *
+     * @param position The item position.
+     * @return header position, or {@link #NO_POSITION} if it is in the last section.
+     */
+    public int getNextHeaderPosition(int position) {
+        int index = lowerBound(position + 1);
+        return index < mHeaderPositions.size() ? mHeaderPositions.get(index) : NO_POSITION;
+    }
+
+    public void onItemRangeChanged(int positionStart, int itemCount) {
+        // The item after changed items may start or end a section now.
+        updatePositions(positionStart, Math.min(positionStart + itemCount + 1, mItemCount));
+    }
+
+    public void onItemRangeInserted(int positionStart, int itemCount) {
+        mItemCount += itemCount;
+        shiftPositions(lowerBound(positionStart), itemCount);
+
+        // The item after inserted items may start or end a section now.
+        updatePositions(positionStart, Math.min(positionStart + itemCount + 1, mItemCount));
+    }
+
+    public void onItemRangeRemoved(int positionStart, int itemCount) {
+        mItemCount -= itemCount;
+        int fromIndex = lowerBound(positionStart);
+        mHeaderPositions.removeRange(fromIndex, lowerBound(positionStart + itemCount));
+        shiftPositions(fromIndex, -itemCount);
+
+        // The item moved to positionStart may start or end a section now.
+        updatePositions(positionStart, Math.min(positionStart + 1, mItemCount));
+    }
+
+    /**
+     * Query header lookup again for positions from start(inclusive) to end(exclusive).
+     */
+    private void updatePositions(int start, int end) {
+        for (int position = start; position < end; position++) {
+            int index = mHeaderPositions.binarySearch(position);
+            boolean hasHeader = mHeaderLookup.hasHeader(position);
+            if (hasHeader && index < 0) {
+                mHeaderPositions.add(-index - 1, position);
+            } else if (!hasHeader && index >= 0) {
+                mHeaderPositions.removeAt(index);
+            }
+        }
+    }
+
+    private void shiftPositions(int fromIndex, int offset) {
+        for (int index = fromIndex; index < mHeaderPositions.size(); index++) {
+            mHeaderPositions.set(index, mHeaderPositions.get(index) + offset);
+        }
+    }
+
+    /**
+     * @return the index of first header position which is not less than position.
+     */
+    private int lowerBound(int position) {
+        int index = mHeaderPositions.binarySearch(position);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    public interface HeaderLookup {
+        boolean hasHeader(int position);
+    }
+}
@@ -0,0 +1,76 @@
+package com.yat3s.chopin.core;
+
+import com.yat3s.chopin.util.IntArrayList;
+
+/**
+ * Mapping between item layout id and a dense view type.
+ * <p>
+ * View types are assigned increasingly from the first view type, so looking up the layout id of a view
+ * type is an array index and looking up the view type of a layout id is a binary search.
+ * NOTE: It is not thread safe.
+ */
+public final class ViewTypeRegistry {
+
+    private final int mFirstViewType;
+
+    // The sorted layout ids and their view types.
+    private final IntArrayList mSortedLayoutIds = new IntArrayList();
+    private final IntArrayList mViewTypesOfSortedLayoutIds = new IntArrayList();
+
+    // The layout ids, index is (view type - first view type).
+    private final IntArrayList mLayoutIds = new IntArrayList();
+
+    public ViewTypeRegistry(int firstViewType) {
+        mFirstViewType = firstViewType;
+    }
+
+    /**
+     * Retrieve view type of layout id, a new view type will be assigned while it's the first time
+     * to see this layout id.
+     *
+     * @param layoutId The item layout id.
+     * @return view type
+     */
+    public int obtainViewType(int layoutId) {
+        int index = mSortedLayoutIds.binarySearch(layoutId);
+        if (index >= 0) {
+            return mViewTypesOfSortedLayoutIds.get(index);
+        }
+        int viewType = mFirstViewType + mLayoutIds.size();
+        mLayoutIds.add(layoutId);
+        mSortedLayoutIds.add(-index - 1, layoutId);
+        mViewTypesOfSortedLayoutIds.add(-index - 1, viewType);
+        return viewType;
+    }
+
+    /**
+     * Assign a new view type to layout id which is NOT shared with other users of this layout id,
+     * eg. two delegates inflating the same layout but binding differently.
+     *
+     * @param layoutId The item layout id.
+     * @return view type, {@link #getLayoutId(int)} maps it back to layout id.
+     */
+    public int newViewType(int layoutId) {
+        int viewType = mFirstViewType + mLayoutIds.size();
+        mLayoutIds.add(layoutId);
+        return viewType;
+    }
+
+    /**
+     * @param viewType The view type which is obtained from {@link #obtainViewType(int)} or
+     *                 {@link #newViewType(int)}.
+     * @return layout id, or 0 if this view type is unknown.
+     */
+    public int getLayoutId(int viewType) {
+        int index = viewType - mFirstViewType;
+        return index >= 0 && index < mLayoutIds.size() ? mLayoutIds.get(index) : 0;
+    }
+
+    public int getFirstViewType() {
+        return mFirstViewType;
+    }
+
+    public int size() {
+        return mLayoutIds.size();
+    }
+}
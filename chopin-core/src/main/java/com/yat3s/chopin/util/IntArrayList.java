@@ -0,0 +1,127 @@
+package com.yat3s.chopin.util;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of primitive int, it avoids boxing and the object header of each element
+ * compared with {@code List<Integer>}.
+ */
+public class IntArrayList {
+
+    private static final int DEFAULT_CAPACITY = 10;
+
+    private static final int[] EMPTY = new int[0];
+
+    private int[] mValues;
+
+    private int mSize;
+
+    public IntArrayList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntArrayList(int initialCapacity) {
+        mValues = initialCapacity == 0 ? EMPTY : new int[initialCapacity];
+    }
+
+    /**
+     * Create a list with a copy of values.
+     *
+     * @param values
+     */
+    public IntArrayList(int[] values) {
+        mValues = null == values ? EMPTY : values.clone();
+        mSize = mValues.length;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    public int get(int index) {
+        checkIndex(index);
+        return mValues[index];
+    }
+
+    public void set(int index, int value) {
+        checkIndex(index);
+        mValues[index] = value;
+    }
+
+    public void add(int value) {
+        ensureCapacity(mSize + 1);
+        mValues[mSize++] = value;
+    }
+
+    public void add(int index, int value) {
+        if (index < 0 || index > mSize) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+        }
+        ensureCapacity(mSize + 1);
+        System.arraycopy(mValues, index, mValues, index + 1, mSize - index);
+        mValues[index] = value;
+        mSize++;
+    }
+
+    public void addAll(int[] values) {
+        if (null == values || values.length == 0) {
+            return;
+        }
+        ensureCapacity(mSize + values.length);
+        System.arraycopy(values, 0, mValues, mSize, values.length);
+        mSize += values.length;
+    }
+
+    public int removeAt(int index) {
+        checkIndex(index);
+        int value = mValues[index];
+        removeRange(index, index + 1);
+        return value;
+    }
+
+    /**
+     * Remove values from fromIndex(inclusive) to toIndex(exclusive).
+     */
+    public void removeRange(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > mSize || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("From: " + fromIndex + ", To: " + toIndex + ", Size: " + mSize);
+        }
+        System.arraycopy(mValues, toIndex, mValues, fromIndex, mSize - toIndex);
+        mSize -= toIndex - fromIndex;
+    }
+
+    /**
+     * Search value in a list sorted in ascending order.
+     *
+     * @return index of the value if it is contained, otherwise (-(insertion point) - 1).
+     * @see Arrays#binarySearch(int[], int, int, int)
+     */
+    public int binarySearch(int value) {
+        return Arrays.binarySearch(mValues, 0, mSize, value);
+    }
+
+    public void clear() {
+        mSize = 0;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(mValues, mSize);
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity > mValues.length) {
+            int newCapacity = Math.max(minCapacity, mValues.length + (mValues.length >> 1) + 1);
+            mValues = Arrays.copyOf(mValues, newCapacity);
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+        }
+    }
+}
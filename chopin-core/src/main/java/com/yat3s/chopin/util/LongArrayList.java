@@ -0,0 +1,127 @@
+package com.yat3s.chopin.util;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of primitive long, it avoids boxing and the object header of each element
+ * compared with {@code List<Long>}.
+ */
+public class LongArrayList {
+
+    private static final int DEFAULT_CAPACITY = 10;
+
+    private static final long[] EMPTY = new long[0];
+
+    private long[] mValues;
+
+    private int mSize;
+
+    public LongArrayList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongArrayList(int initialCapacity) {
+        mValues = initialCapacity == 0 ? EMPTY : new long[initialCapacity];
+    }
+
+    /**
+     * Create a list with a copy of values.
+     *
+     * @param values
+     */
+    public LongArrayList(long[] values) {
+        mValues = null == values ? EMPTY : values.clone();
+        mSize = mValues.length;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    public long get(int index) {
+        checkIndex(index);
+        return mValues[index];
+    }
+
+    public void set(int index, long value) {
+        checkIndex(index);
+        mValues[index] = value;
+    }
+
+    public void add(long value) {
+        ensureCapacity(mSize + 1);
+        mValues[mSize++] = value;
+    }
+
+    public void add(int index, long value) {
+        if (index < 0 || index > mSize) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+        }
+        ensureCapacity(mSize + 1);
+        System.arraycopy(mValues, index, mValues, index + 1, mSize - index);
+        mValues[index] = value;
+        mSize++;
+    }
+
+    public void addAll(long[] values) {
+        if (null == values || values.length == 0) {
+            return;
+        }
+        ensureCapacity(mSize + values.length);
+        System.arraycopy(values, 0, mValues, mSize, values.length);
+        mSize += values.length;
+    }
+
+    public long removeAt(int index) {
+        checkIndex(index);
+        long value = mValues[index];
+        removeRange(index, index + 1);
+        return value;
+    }
+
+    /**
+     * Remove values from fromIndex(inclusive) to toIndex(exclusive).
+     */
+    public void removeRange(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > mSize || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("From: " + fromIndex + ", To: " + toIndex + ", Size: " + mSize);
+        }
+        System.arraycopy(mValues, toIndex, mValues, fromIndex, mSize - toIndex);
+        mSize -= toIndex - fromIndex;
+    }
+
+    /**
+     * Search value in a list sorted in ascending order.
+     *
+     * @return index of the value if it is contained, otherwise (-(insertion point) - 1).
+     * @see Arrays#binarySearch(long[], int, int, long)
+     */
+    public int binarySearch(long value) {
+        return Arrays.binarySearch(mValues, 0, mSize, value);
+    }
+
+    public void clear() {
+        mSize = 0;
+    }
+
+    public long[] toArray() {
+        return Arrays.copyOf(mValues, mSize);
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity > mValues.length) {
+            int newCapacity = Math.max(minCapacity, mValues.length + (mValues.length >> 1) + 1);
+            mValues = Arrays.copyOf(mValues, newCapacity);
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+        }
+    }
+}
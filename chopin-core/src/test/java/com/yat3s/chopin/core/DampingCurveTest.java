@@ -0,0 +1,96 @@
+package com.yat3s.chopin.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DampingCurveTest {
+
+    private static final int HEIGHT = 1920;
+
+    @Test
+    public void linear_keepsResistanceOffset() {
+        DragPhysics dragPhysics = new DragPhysics();
+        dragPhysics.setDimension(HEIGHT);
+        assertEquals(60, dragPhysics.computeOffset(100));
+        assertEquals(-60, dragPhysics.computeOffset(-100));
+        assertEquals(160, dragPhysics.computeOffset(100, 100));
+    }
+
+    @Test
+    public void offsetTable_matchesCurveAndIsSymmetric() {
+        DampingCurve[] curves = {DampingCurve.RUBBER_BAND, DampingCurve.LOGARITHMIC,
+                DampingCurve.piecewise(0.1f, 0.3f)};
+        for (DampingCurve curve : curves) {
+            DragPhysics dragPhysics = new DragPhysics();
+            dragPhysics.setDampingCurve(curve);
+            dragPhysics.setDimension(HEIGHT);
+            int lastOffset = 0;
+            for (int distance = 0; distance <= HEIGHT * 2; distance++) {
+                int offset = dragPhysics.computeOffset(distance);
+                assertTrue(Math.abs(curve.evaluate(distance, 0.6f, HEIGHT) - offset) <= 1);
+                assertTrue(offset >= lastOffset);
+                assertEquals(-offset, dragPhysics.computeOffset(-distance));
+                lastOffset = offset;
+            }
+            // Clamped beyond the table.
+            assertEquals(lastOffset, dragPhysics.computeOffset(HEIGHT * 10));
+        }
+    }
+
+    @Test
+    public void rubberBand_isBoundedByDimension() {
+        DragPhysics dragPhysics = new DragPhysics();
+        dragPhysics.setDampingCurve(DampingCurve.RUBBER_BAND);
+        dragPhysics.setDimension(HEIGHT);
+        assertTrue(dragPhysics.computeOffset(HEIGHT * 2) < HEIGHT);
+        assertTrue(dragPhysics.computeOffset(HEIGHT) < new DragPhysics().computeOffset(HEIGHT));
+        // Starts with the same slope as linear.
+        assertTrue(Math.abs(dragPhysics.computeOffset(10) - 6) <= 1);
+    }
+
+    @Test
+    public void rubberBand_longDragStaysWithinIndicatorBound() {
+        int indicatorHeight = 150;
+        int bound = indicatorHeight * 2;
+        DragPhysics dragPhysics = new DragPhysics();
+        dragPhysics.setDampingCurve(DampingCurve.RUBBER_BAND);
+        dragPhysics.setDimension(bound);
+        dragPhysics.setMaxMoveDistance(HEIGHT);
+        // Still follows the finger across the whole layout.
+        assertTrue(dragPhysics.computeOffset(HEIGHT) > dragPhysics.computeOffset(HEIGHT / 2));
+        assertTrue(dragPhysics.computeOffset(HEIGHT / 2) > indicatorHeight);
+        assertTrue(dragPhysics.computeOffset(HEIGHT * 5) < bound);
+        assertTrue(dragPhysics.computeOffset(-HEIGHT * 5) > -bound);
+        assertTrue(dragPhysics.computeOffset(indicatorHeight, HEIGHT * 5) < bound);
+    }
+
+    @Test
+    public void dragFromInterceptedOffset_continuesAlongCurve() {
+        DragPhysics dragPhysics = new DragPhysics();
+        dragPhysics.setDampingCurve(DampingCurve.RUBBER_BAND);
+        dragPhysics.setDimension(HEIGHT);
+        int refreshingOffset = 180;
+        assertEquals(refreshingOffset, dragPhysics.computeOffset(refreshingOffset, 0));
+        int offset = dragPhysics.computeOffset(refreshingOffset, 500);
+        int distance = 0;
+        while (dragPhysics.computeOffset(distance) < refreshingOffset) {
+            distance++;
+        }
+        assertTrue(Math.abs(dragPhysics.computeOffset(distance + 500) - offset) <= 1);
+        assertTrue(dragPhysics.computeOffset(refreshingOffset, -5000) < 0);
+    }
+
+    @Test
+    public void resistanceChange_rebuildsOffsetTable() {
+        DragPhysics dragPhysics = new DragPhysics();
+        dragPhysics.setDampingCurve(DampingCurve.LOGARITHMIC);
+        dragPhysics.setDimension(HEIGHT);
+        int offset = dragPhysics.computeOffset(500);
+        dragPhysics.setResistance(0.5f);
+        assertTrue(dragPhysics.computeOffset(500) < offset);
+        dragPhysics.setDampingCurve(null);
+        assertEquals(250, dragPhysics.computeOffset(500));
+    }
+}
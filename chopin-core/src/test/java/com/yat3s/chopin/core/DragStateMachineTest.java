@@ -0,0 +1,143 @@
+package com.yat3s.chopin.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DragStateMachineTest {
+
+    @Test
+    public void pullToRefresh_goesThroughRefreshingAndBackToDefault() {
+        DragStateMachine stateMachine = new DragStateMachine();
+        assertTrue(stateMachine.fire(DragStateMachine.EVENT_PULL_DOWN));
+        assertTrue(stateMachine.fire(DragStateMachine.EVENT_BOUNCE_TO_REFRESH));
+        assertEquals(DragStateMachine.STATE_BOUNCING_UP, stateMachine.getState());
+        assertTrue(stateMachine.fire(DragStateMachine.EVENT_START_REFRESH));
+        assertEquals(DragStateMachine.STATE_REFRESHING, stateMachine.getState());
+        assertTrue(stateMachine.fire(DragStateMachine.EVENT_BOUNCE_DOWN));
+        assertTrue(stateMachine.fire(DragStateMachine.EVENT_SETTLE));
+        assertEquals(DragStateMachine.STATE_DEFAULT, stateMachine.getState());
+    }
+
+    @Test
+    public void releaseAtRest_doesNotFinishLoading() {
+        DragStateMachine stateMachine = new DragStateMachine();
+        assertTrue(stateMachine.fire(DragStateMachine.EVENT_AUTO_LOAD_MORE));
+        assertFalse(stateMachine.fire(DragStateMachine.EVENT_RELEASE_AT_REST));
+        assertFalse(stateMachine.fire(DragStateMachine.EVENT_PULL_UP));
+        assertEquals(DragStateMachine.STATE_LOADING, stateMachine.getState());
+    }
+
+    @Test
+    public void settle_isRejectedWhileRefreshingOrLoading() {
+        DragStateMachine stateMachine = new DragStateMachine();
+        assertTrue(stateMachine.fire(DragStateMachine.EVENT_AUTO_LOAD_MORE));
+        assertFalse(stateMachine.fire(DragStateMachine.EVENT_SETTLE));
+        assertEquals(DragStateMachine.STATE_LOADING, stateMachine.getState());
+
+        // Auto load more completes without translation.
+        assertTrue(stateMachine.fire(DragStateMachine.EVENT_COMPLETE_AT_REST));
+        assertEquals(DragStateMachine.STATE_DEFAULT, stateMachine.getState());
+        assertFalse(stateMachine.fire(DragStateMachine.EVENT_COMPLETE_AT_REST));
+    }
+
+    @Test
+    public void bounceEvents_areRejectedFromIllegalStates() {
+        assertEquals(DragStateMachine.STATE_INVALID, DragStateMachine.nextState(
+                DragStateMachine.STATE_BOUNCING_DOWN, DragStateMachine.EVENT_BOUNCE_TO_REFRESH));
+        assertEquals(DragStateMachine.STATE_INVALID, DragStateMachine.nextState(
+                DragStateMachine.STATE_DRAGGING_UP, DragStateMachine.EVENT_BOUNCE_TO_REFRESH));
+        assertEquals(DragStateMachine.STATE_INVALID, DragStateMachine.nextState(
+                DragStateMachine.STATE_LOADING, DragStateMachine.EVENT_BOUNCE_TO_REFRESH));
+        assertEquals(DragStateMachine.STATE_INVALID, DragStateMachine.nextState(
+                DragStateMachine.STATE_BOUNCING_UP, DragStateMachine.EVENT_BOUNCE_TO_LOAD));
+        assertEquals(DragStateMachine.STATE_INVALID, DragStateMachine.nextState(
+                DragStateMachine.STATE_DRAGGING_DOWN, DragStateMachine.EVENT_BOUNCE_TO_LOAD));
+        assertEquals(DragStateMachine.STATE_INVALID, DragStateMachine.nextState(
+                DragStateMachine.STATE_REFRESHING, DragStateMachine.EVENT_BOUNCE_TO_LOAD));
+        assertEquals(DragStateMachine.STATE_INVALID, DragStateMachine.nextState(
+                DragStateMachine.STATE_BOUNCING_DOWN, DragStateMachine.EVENT_BOUNCE_UP));
+        assertEquals(DragStateMachine.STATE_INVALID, DragStateMachine.nextState(
+                DragStateMachine.STATE_BOUNCING_UP, DragStateMachine.EVENT_BOUNCE_DOWN));
+        assertEquals(DragStateMachine.STATE_INVALID, DragStateMachine.nextState(
+                DragStateMachine.STATE_DEFAULT, DragStateMachine.EVENT_SETTLE));
+        assertEquals(DragStateMachine.STATE_INVALID, DragStateMachine.nextState(
+                DragStateMachine.STATE_DRAGGING_DOWN, DragStateMachine.EVENT_SETTLE));
+        assertEquals(DragStateMachine.STATE_INVALID, DragStateMachine.nextState(
+                DragStateMachine.STATE_REFRESHING, DragStateMachine.EVENT_SETTLE));
+    }
+
+    @Test
+    public void bounceEvents_areAcceptedFromRealSources() {
+        assertEquals(DragStateMachine.STATE_BOUNCING_UP, DragStateMachine.nextState(
+                DragStateMachine.STATE_DEFAULT, DragStateMachine.EVENT_BOUNCE_TO_REFRESH));
+        assertEquals(DragStateMachine.STATE_BOUNCING_DOWN, DragStateMachine.nextState(
+                DragStateMachine.STATE_DRAGGING_UP, DragStateMachine.EVENT_BOUNCE_TO_LOAD));
+        assertEquals(DragStateMachine.STATE_BOUNCING_UP, DragStateMachine.nextState(
+                DragStateMachine.STATE_SHOWING_HEADER_NOTIFICATION, DragStateMachine.EVENT_BOUNCE_UP));
+        assertEquals(DragStateMachine.STATE_BOUNCING_DOWN, DragStateMachine.nextState(
+                DragStateMachine.STATE_LOADING, DragStateMachine.EVENT_BOUNCE_DOWN));
+        assertEquals(DragStateMachine.STATE_DEFAULT, DragStateMachine.nextState(
+                DragStateMachine.STATE_SHOWING_FOOTER_NOTIFICATION, DragStateMachine.EVENT_SETTLE));
+    }
+
+    @Test
+    public void randomEvents_neverReachInvalidState() {
+        DragStateMachine stateMachine = new DragStateMachine();
+        Random random = new Random(20261019);
+        for (int idx = 0; idx < 100000; idx++) {
+            int state = stateMachine.getState();
+            int event = random.nextInt(DragStateMachine.EVENT_COUNT);
+            int expected = DragStateMachine.nextState(state, event);
+            boolean accepted = stateMachine.fire(event);
+            assertEquals(expected != DragStateMachine.STATE_INVALID, accepted);
+            assertEquals(accepted ? expected : state, stateMachine.getState());
+        }
+    }
+
+    @Test
+    public void generation_changesOnlyWithState() {
+        DragStateMachine stateMachine = new DragStateMachine();
+        int generation = stateMachine.getGeneration();
+        assertTrue(stateMachine.fire(DragStateMachine.EVENT_AUTO_LOAD_MORE));
+        assertTrue(generation != stateMachine.getGeneration());
+
+        // Bouncing to loading position while loading keeps the state.
+        generation = stateMachine.getGeneration();
+        assertTrue(stateMachine.fire(DragStateMachine.EVENT_BOUNCE_TO_LOAD));
+        assertTrue(stateMachine.fire(DragStateMachine.EVENT_START_LOADING));
+        assertFalse(stateMachine.fire(DragStateMachine.EVENT_PULL_UP));
+        assertEquals(generation, stateMachine.getGeneration());
+
+        stateMachine.reset();
+        assertTrue(generation != stateMachine.getGeneration());
+    }
+
+    @Test
+    public void decideRelease_isNoneWhileSettling() {
+        assertEquals(DragPhysics.RELEASE_NONE,
+                DragPhysics.decideRelease(DragStateMachine.STATE_BOUNCING_DOWN, 150, 100, 100));
+        assertEquals(DragPhysics.RELEASE_NONE,
+                DragPhysics.decideRelease(DragStateMachine.STATE_BOUNCING_UP, 50, 100, 100));
+        assertEquals(DragPhysics.RELEASE_NONE,
+                DragPhysics.decideRelease(DragStateMachine.STATE_SHOWING_HEADER_NOTIFICATION, 40, 100, 100));
+    }
+
+    @Test
+    public void decideRelease_matchesIndicatorThreshold() {
+        assertEquals(DragPhysics.RELEASE_TO_REFRESH,
+                DragPhysics.decideRelease(DragStateMachine.STATE_DRAGGING_DOWN, 100, 100, -1));
+        assertEquals(DragPhysics.RELEASE_ABORT,
+                DragPhysics.decideRelease(DragStateMachine.STATE_DRAGGING_DOWN, 99, 100, -1));
+        assertEquals(DragPhysics.RELEASE_NONE,
+                DragPhysics.decideRelease(DragStateMachine.STATE_REFRESHING, 99, 100, -1));
+        assertEquals(DragPhysics.RELEASE_TO_DEFAULT,
+                DragPhysics.decideRelease(DragStateMachine.STATE_DRAGGING_UP, -10, 100, -1));
+        assertEquals(DragPhysics.RELEASE_AT_REST,
+                DragPhysics.decideRelease(DragStateMachine.STATE_DEFAULT, 0, 100, 100));
+    }
+}
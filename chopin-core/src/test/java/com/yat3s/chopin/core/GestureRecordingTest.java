@@ -0,0 +1,50 @@
+package com.yat3s.chopin.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GestureRecordingTest {
+
+    @Test
+    public void writeAndRead_keepsEventsInEighthPixel() throws IOException {
+        GestureRecorder recorder = new GestureRecorder();
+        recorder.setViewSize(1080, 1920);
+        recorder.record(GestureRecording.ACTION_DOWN, 1000, 540.5f, 960.25f);
+        recorder.record(GestureRecording.ACTION_MOVE, 1016, 538.125f, 1000f);
+        recorder.record(GestureRecording.ACTION_MOVE, 1033, 530f, 900.375f);
+        recorder.record(GestureRecording.ACTION_UP, 1049, 530f, 900.375f);
+        GestureRecording recording = recorder.toRecording();
+
+        byte[] bytes = recording.toByteArray();
+        GestureRecording readRecording = GestureRecording.readFrom(new ByteArrayInputStream(bytes));
+
+        assertEquals(1080, readRecording.getWidth());
+        assertEquals(1920, readRecording.getHeight());
+        assertEquals(recording.getEventCount(), readRecording.getEventCount());
+        for (int idx = 0; idx < recording.getEventCount(); idx++) {
+            assertEquals(recording.getAction(idx), readRecording.getAction(idx));
+            assertEquals(recording.getEventTime(idx), readRecording.getEventTime(idx));
+            assertEquals(recording.getX(idx), readRecording.getX(idx), 0f);
+            assertEquals(recording.getY(idx), readRecording.getY(idx), 0f);
+        }
+        assertEquals(0, readRecording.getEventTime(0));
+
+        // Header is 12 bytes at most, each event is no more than 8 bytes.
+        assertTrue(bytes.length <= 12 + recording.getEventCount() * 8);
+    }
+
+    @Test
+    public void recorder_dropsEventsOverMaxCount() {
+        GestureRecorder recorder = new GestureRecorder(2);
+        for (int idx = 0; idx < 5; idx++) {
+            recorder.record(GestureRecording.ACTION_MOVE, idx, 0, idx);
+        }
+        assertEquals(2, recorder.getEventCount());
+        assertEquals(3, recorder.getDroppedEventCount());
+    }
+}
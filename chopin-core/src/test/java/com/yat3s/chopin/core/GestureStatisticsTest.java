@@ -0,0 +1,48 @@
+package com.yat3s.chopin.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class GestureStatisticsTest {
+
+    private static final long FRAME = GestureStatistics.DEFAULT_FRAME_BUDGET_NANOS;
+
+    @Test
+    public void onFrame_countsFramesMissedVsyncAsSlow() {
+        GestureStatistics statistics = new GestureStatistics();
+        statistics.reset(GestureStatistics.TYPE_GESTURE, 0);
+        long time = FRAME;
+        statistics.onFrame(time, true);
+        statistics.onFrame(time += FRAME, true);
+        // Missed one vsync while dragging.
+        statistics.onFrame(time += FRAME * 2, true);
+        statistics.onFrame(time += FRAME, false);
+        // A little later than budget is not slow.
+        statistics.onFrame(time += FRAME + FRAME / 4, false);
+        statistics.onFrame(time + FRAME * 3, false);
+
+        assertEquals(3, statistics.getDragFrameCount());
+        assertEquals(1, statistics.getDragSlowFrameCount());
+        assertEquals(3, statistics.getAnimationFrameCount());
+        assertEquals(1, statistics.getAnimationSlowFrameCount());
+        assertEquals(FRAME * 3, statistics.getMaxFrameIntervalNanos());
+    }
+
+    @Test
+    public void releaseToRefreshPosition_isOnlyMeasuredOnceAfterRelease() {
+        GestureStatistics statistics = new GestureStatistics();
+        statistics.reset(GestureStatistics.TYPE_GESTURE, 0);
+        statistics.onReachRefreshPosition(10);
+        assertEquals(GestureStatistics.NOT_REACHED, statistics.getReleaseToRefreshPositionNanos());
+
+        statistics.onRelease(100);
+        statistics.onReachRefreshPosition(350);
+        statistics.onReachRefreshPosition(500);
+        assertEquals(250, statistics.getReleaseToRefreshPositionNanos());
+
+        statistics.reset(GestureStatistics.TYPE_COLLAPSE, 1000);
+        assertEquals(GestureStatistics.NOT_REACHED, statistics.getReleaseToRefreshPositionNanos());
+        assertEquals(0, statistics.getFrameCount());
+    }
+}
@@ -0,0 +1,79 @@
+package com.yat3s.chopin.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void percentiles_areWithinOneEighthOfRecordedValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram.Snapshot();
+        histogram.snapshot(snapshot);
+
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(1, snapshot.getMin());
+        assertEquals(1000, snapshot.getMax());
+        assertEquals(500, snapshot.getMean());
+        assertWithin(500, snapshot.getP50());
+        assertWithin(900, snapshot.getP90());
+        assertWithin(990, snapshot.getP99());
+        assertEquals(1000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void bucketBounds_coverEveryValueOnce() {
+        for (long value = 0; value < 100000; value++) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(value <= LatencyHistogram.bucketUpperBound(index));
+            assertTrue(index == 0 || value > LatencyHistogram.bucketUpperBound(index - 1));
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void reset_clearsRecordedValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(40);
+        assertEquals(0, histogram.getMin());
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        histogram.record(7);
+        assertEquals(7, histogram.getMin());
+        assertEquals(7, histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void breakdown_recordsPhasesOfCompletedSessionOnly() {
+        LatencyBreakdown breakdown = new LatencyBreakdown();
+        breakdown.start(LatencyBreakdown.PHASE_ANIMATING, 0);
+        breakdown.start(LatencyBreakdown.PHASE_WAITING, 100);
+        breakdown.complete(600);
+        breakdown.enterPhase(LatencyBreakdown.PHASE_ANIMATING, 1400);
+        breakdown.finish(1700);
+
+        assertEquals(1, breakdown.getTotal().getCount());
+        assertEquals(1700, breakdown.getTotal().getMax());
+        assertEquals(500, breakdown.getWaiting().getMax());
+        assertEquals(400, breakdown.getAnimating().getMax());
+
+        // Interrupted before completed.
+        breakdown.start(LatencyBreakdown.PHASE_ANIMATING, 2000);
+        breakdown.finish(2300);
+        breakdown.complete(2400);
+        assertEquals(1, breakdown.getTotal().getCount());
+        assertTrue(!breakdown.isStarted());
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(expected + " ~ " + actual, Math.abs(actual - expected) <= expected / 8);
+    }
+}
@@ -0,0 +1,58 @@
+package com.yat3s.chopin.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class RefreshPolicyTest {
+
+    @Test
+    public void defaultPolicy_refreshesEveryCompletedPull() {
+        RefreshPolicy policy = new RefreshPolicy();
+        assertEquals(RefreshPolicy.DECISION_REFRESH, policy.onRefreshRequested(0, true));
+        policy.onRefreshCompleted(100);
+        assertEquals(RefreshPolicy.DECISION_REFRESH, policy.onRefreshRequested(101, true));
+    }
+
+    @Test
+    public void pullWhileInFlight_coalescesUntilTimeout() {
+        RefreshPolicy policy = new RefreshPolicy();
+        policy.setInFlightTimeout(1000);
+        assertEquals(RefreshPolicy.DECISION_REFRESH, policy.onRefreshRequested(0, false));
+        assertEquals(RefreshPolicy.DECISION_COALESCE, policy.onRefreshRequested(500, false));
+        assertFalse(policy.isInFlight(1000));
+        assertEquals(RefreshPolicy.DECISION_REFRESH, policy.onRefreshRequested(1000, false));
+        assertEquals(1, policy.getDecisionCount(RefreshPolicy.DECISION_COALESCE));
+        assertEquals(2, policy.getDecisionCount(RefreshPolicy.DECISION_REFRESH));
+    }
+
+    @Test
+    public void pullAfterRefresh_isSkippedThenRevalidatedThenRefreshed() {
+        RefreshPolicy policy = new RefreshPolicy();
+        policy.setMinInterval(1000);
+        policy.setStaleWhileRevalidate(4000);
+        policy.onRefreshRequested(0, true);
+        policy.onRefreshCompleted(200);
+
+        assertEquals(RefreshPolicy.DECISION_SKIP, policy.onRefreshRequested(1199, true));
+        // A skipped pull completes without changing the last refresh.
+        policy.onRefreshCompleted(1199);
+        assertEquals(RefreshPolicy.DECISION_REFRESH, policy.onRefreshRequested(1200, false));
+        policy.onRefreshCompleted(1300);
+        assertEquals(RefreshPolicy.DECISION_REVALIDATE, policy.onRefreshRequested(2300, true));
+        // Revalidation counts as a refresh.
+        assertEquals(RefreshPolicy.DECISION_SKIP, policy.onRefreshRequested(3000, true));
+        assertEquals(RefreshPolicy.DECISION_REFRESH, policy.onRefreshRequested(7300, true));
+    }
+
+    @Test
+    public void invalidate_refreshesNextPull() {
+        RefreshPolicy policy = new RefreshPolicy();
+        policy.setMinInterval(1000);
+        policy.onRefreshRequested(0, false);
+        policy.onRefreshCompleted(100);
+        policy.invalidate();
+        assertEquals(RefreshPolicy.DECISION_REFRESH, policy.onRefreshRequested(200, false));
+    }
+}
@@ -0,0 +1,148 @@
+package com.yat3s.chopin.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Items are letters of a string, an item starts a section while its letter differs from the
+ * previous one, like a list grouped by initial. Incremental updates should match a rebuild.
+ */
+public class SectionIndexTest {
+
+    // {items, position start, inserted items}
+    private static final String[][] INSERTIONS = {
+            // Into the middle of a section.
+            {"aabbcc", "3", "b"},
+            // A new section right before a header.
+            {"aabbcc", "2", "x"},
+            // Items of the previous section right before a header.
+            {"aabbcc", "2", "aa"},
+            // Items of the next section right before its header, it's no longer a header.
+            {"aabbcc", "2", "bb"},
+            // A section between two items of the same section splits it.
+            {"aaaa", "2", "x"},
+            // Before the first item.
+            {"aabb", "0", "a"},
+            {"aabb", "0", "x"},
+            // Appended page, eg. load more.
+            {"aabb", "4", "bbcc"},
+            {"", "0", "abc"},
+    };
+
+    // {items, position start, item count}
+    private static final String[][] REMOVALS = {
+            // A header, the next item becomes the header.
+            {"aabbcc", "2", "1"},
+            // A whole section, the sections around it are still apart.
+            {"aabbcc", "2", "2"},
+            // A whole section, the sections around it merge.
+            {"aabbaa", "2", "2"},
+            // Across a boundary.
+            {"aabbcc", "1", "2"},
+            {"aabbcc", "3", "2"},
+            // The first item and the last items.
+            {"aabbcc", "0", "1"},
+            {"aabbcc", "4", "2"},
+            {"aabbcc", "0", "6"},
+    };
+
+    @Test
+    public void insertAtSectionBoundaries_matchesRebuild() {
+        for (String[] insertion : INSERTIONS) {
+            GroupedItems items = new GroupedItems(insertion[0]);
+            SectionIndex sectionIndex = items.buildIndex();
+            int positionStart = Integer.parseInt(insertion[1]);
+            items.insert(positionStart, insertion[2]);
+            sectionIndex.onItemRangeInserted(positionStart, insertion[2].length());
+
+            assertMatchesRebuild(items, sectionIndex, "insert " + insertion[2] + " into " + insertion[0]
+                    + " at " + positionStart);
+        }
+    }
+
+    @Test
+    public void removeAtSectionBoundaries_matchesRebuild() {
+        for (String[] removal : REMOVALS) {
+            GroupedItems items = new GroupedItems(removal[0]);
+            SectionIndex sectionIndex = items.buildIndex();
+            int positionStart = Integer.parseInt(removal[1]);
+            int itemCount = Integer.parseInt(removal[2]);
+            items.remove(positionStart, itemCount);
+            sectionIndex.onItemRangeRemoved(positionStart, itemCount);
+
+            assertMatchesRebuild(items, sectionIndex, "remove " + itemCount + " from " + removal[0]
+                    + " at " + positionStart);
+        }
+    }
+
+    @Test
+    public void changeItemToAnotherSection_matchesRebuild() {
+        GroupedItems items = new GroupedItems("aabbcc");
+        SectionIndex sectionIndex = items.buildIndex();
+        items.mItems.set(2, 'a');
+        items.mItems.set(3, 'a');
+        sectionIndex.onItemRangeChanged(2, 2);
+        // The item after the changed range starts a section now.
+        items.mItems.set(4, 'a');
+        sectionIndex.onItemRangeChanged(4, 1);
+
+        assertMatchesRebuild(items, sectionIndex, "change aabbcc to aaaaac");
+    }
+
+    @Test
+    public void lookups_findSectionAndNextHeader() {
+        SectionIndex sectionIndex = new GroupedItems("aabbbc").buildIndex();
+        assertEquals(3, sectionIndex.getSectionCount());
+        assertEquals(1, sectionIndex.getSectionForPosition(4));
+        assertEquals(2, sectionIndex.getHeaderPositionForPosition(4));
+        assertEquals(5, sectionIndex.getNextHeaderPosition(2));
+        assertEquals(SectionIndex.NO_POSITION, sectionIndex.getNextHeaderPosition(5));
+    }
+
+    private static void assertMatchesRebuild(GroupedItems items, SectionIndex sectionIndex, String message) {
+        SectionIndex rebuilt = items.buildIndex();
+        assertEquals(message, headerPositionsOf(rebuilt), headerPositionsOf(sectionIndex));
+        assertEquals(message, rebuilt.getItemCount(), sectionIndex.getItemCount());
+    }
+
+    private static List<Integer> headerPositionsOf(SectionIndex sectionIndex) {
+        List<Integer> headerPositions = new ArrayList<>();
+        for (int section = 0; section < sectionIndex.getSectionCount(); section++) {
+            headerPositions.add(sectionIndex.getHeaderPosition(section));
+        }
+        return headerPositions;
+    }
+
+    private static class GroupedItems implements SectionIndex.HeaderLookup {
+        final List<Character> mItems = new ArrayList<>();
+
+        GroupedItems(String items) {
+            insert(0, items);
+        }
+
+        SectionIndex buildIndex() {
+            SectionIndex sectionIndex = new SectionIndex(this);
+            sectionIndex.rebuild(mItems.size());
+            return sectionIndex;
+        }
+
+        void insert(int positionStart, String items) {
+            for (int idx = 0; idx < items.length(); idx++) {
+                mItems.add(positionStart + idx, items.charAt(idx));
+            }
+        }
+
+        void remove(int positionStart, int itemCount) {
+            mItems.subList(positionStart, positionStart + itemCount).clear();
+        }
+
+        @Override
+        public boolean hasHeader(int position) {
+            return position == 0 || !mItems.get(position).equals(mItems.get(position - 1));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.yat3s.chopin.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LongArrayListTest {
+
+    @Test
+    public void add_growsBeyondInitialCapacity() {
+        LongArrayList list = new LongArrayList(0);
+        for (int i = 0; i < 100; i++) {
+            list.add(i * 1000000000000L);
+        }
+        assertEquals(100, list.size());
+        assertEquals(99000000000000L, list.get(99));
+    }
+
+    @Test
+    public void addAtIndexAndRemove_shiftValues() {
+        LongArrayList list = new LongArrayList(new long[]{1, 3});
+        list.add(1, 2);
+        list.add(3, 4);
+        assertArrayEquals(new long[]{1, 2, 3, 4}, list.toArray());
+        assertEquals(2, list.removeAt(1));
+        list.removeRange(1, 3);
+        assertArrayEquals(new long[]{1}, list.toArray());
+    }
+
+    @Test
+    public void constructor_copiesValues() {
+        long[] values = {1, 2};
+        LongArrayList list = new LongArrayList(values);
+        values[0] = 0;
+        assertEquals(1, list.get(0));
+        assertTrue(new LongArrayList((long[]) null).isEmpty());
+    }
+
+    @Test
+    public void binarySearch_returnsInsertionPointOfMissingValue() {
+        LongArrayList list = new LongArrayList(new long[]{2, 4, 6});
+        assertEquals(1, list.binarySearch(4));
+        assertEquals(-3, list.binarySearch(5));
+        list.clear();
+        assertEquals(-1, list.binarySearch(5));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getBeyondSize_throws() {
+        LongArrayList list = new LongArrayList();
+        list.add(1);
+        list.get(1);
+    }
+}
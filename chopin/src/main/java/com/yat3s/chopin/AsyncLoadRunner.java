@@ -0,0 +1,205 @@
+package com.yat3s.chopin;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Run an {@link AsyncLoader} on executor and deliver its result on main thread, at most one load
+ * is in flight, starting again cancels the previous one. Every method is called on main thread.
+ */
+final class AsyncLoadRunner<T> {
+
+    interface Callback {
+        /**
+         * Complete the indicator, eg. ChopinLayout#refreshComplete().
+         *
+         * @param isLoaded false if the load failed, timed out, was rejected or canceled.
+         */
+        void onComplete(boolean isLoaded);
+    }
+
+    private final ChopinLayout mChopinLayout;
+    private final Executor mExecutor;
+    private final AsyncLoader<T> mLoader;
+    private final Callback mCallback;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    // The load in flight, a delivery of any other task is stale.
+    private FutureTask<T> mTask;
+
+    // While held, the outcome is kept until released, eg. the speculative refresh while dragging,
+    // so the loader applies nothing that may be discarded.
+    private boolean isHeld;
+    private FutureTask<T> mHeldTask;
+    private Throwable mHeldError;
+
+    private final Runnable mTimeoutRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (null == mTask) {
+                return;
+            }
+            cancelTask();
+            fail(new TimeoutException("Load timed out"));
+        }
+    };
+
+    AsyncLoadRunner(ChopinLayout chopinLayout, Executor executor, AsyncLoader<T> loader, Callback callback) {
+        mChopinLayout = chopinLayout;
+        mExecutor = executor;
+        mLoader = loader;
+        mCallback = callback;
+    }
+
+    /**
+     * @param timeoutMills The load is canceled and failed after it, 0 means never.
+     * @param isHeld       Hold the outcome until {@link #release()}.
+     */
+    void start(long timeoutMills, boolean isHeld) {
+        cancelTask();
+        dropHeld();
+        this.isHeld = isHeld;
+        final FutureTask<T> task = new FutureTask<T>(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                return mLoader.load();
+            }
+        }) {
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    return;
+                }
+                final FutureTask<T> doneTask = this;
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        deliver(doneTask);
+                    }
+                });
+            }
+        };
+        mTask = task;
+        if (timeoutMills > 0) {
+            mMainHandler.postDelayed(mTimeoutRunnable, timeoutMills);
+        }
+        try {
+            mExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            cancelTask();
+            fail(e);
+        }
+    }
+
+    /**
+     * Deliver the held outcome now, or once it arrives.
+     */
+    void release() {
+        isHeld = false;
+        if (null != mHeldTask) {
+            FutureTask<T> task = mHeldTask;
+            mHeldTask = null;
+            complete(task);
+        } else if (null != mHeldError) {
+            Throwable error = mHeldError;
+            mHeldError = null;
+            fail(error);
+        }
+    }
+
+    boolean isRunning() {
+        return null != mTask;
+    }
+
+    /**
+     * Cancel the load in flight or drop the held outcome and complete the indicator, the loader
+     * is not notified.
+     *
+     * @return Whether a load was in flight or held.
+     */
+    boolean cancel() {
+        if (null == mTask && null == mHeldTask && null == mHeldError) {
+            return false;
+        }
+        cancelTask();
+        dropHeld();
+        mCallback.onComplete(false);
+        return true;
+    }
+
+    /**
+     * Cancel the load in flight and drop the held outcome without completing the indicator, eg. the
+     * speculative refresh is aborted while dragging.
+     */
+    void discard() {
+        cancelTask();
+        dropHeld();
+    }
+
+    private void dropHeld() {
+        isHeld = false;
+        mHeldTask = null;
+        mHeldError = null;
+    }
+
+    private void cancelTask() {
+        mMainHandler.removeCallbacks(mTimeoutRunnable);
+        if (null != mTask) {
+            mTask.cancel(true);
+            mTask = null;
+        }
+    }
+
+    private void deliver(FutureTask<T> task) {
+        if (task != mTask) {
+            return;
+        }
+        mTask = null;
+        mMainHandler.removeCallbacks(mTimeoutRunnable);
+        if (isHeld) {
+            mHeldTask = task;
+        } else {
+            complete(task);
+        }
+    }
+
+    private void fail(Throwable error) {
+        if (isHeld) {
+            mHeldError = error;
+            return;
+        }
+        try {
+            mLoader.onFailed(mChopinLayout, error);
+        } finally {
+            mCallback.onComplete(false);
+        }
+    }
+
+    private void complete(FutureTask<T> task) {
+        boolean isLoaded = false;
+        try {
+            T result;
+            try {
+                result = task.get();
+            } catch (ExecutionException e) {
+                mLoader.onFailed(mChopinLayout, null == e.getCause() ? e : e.getCause());
+                return;
+            } catch (InterruptedException e) {
+                mLoader.onFailed(mChopinLayout, e);
+                return;
+            }
+            mLoader.onLoaded(mChopinLayout, result);
+            isLoaded = true;
+        } finally {
+            mCallback.onComplete(isLoaded);
+        }
+    }
+}
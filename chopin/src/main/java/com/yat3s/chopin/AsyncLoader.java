@@ -0,0 +1,28 @@
+package com.yat3s.chopin;
+
+/**
+ * Refresh or load more work which runs on an executor, see
+ * {@link ChopinLayout#setOnAsyncRefreshListener(java.util.concurrent.Executor, AsyncLoader)}.
+ * ChopinLayout applies the result on main thread and then completes, so there is no need to call
+ * {@link ChopinLayout#refreshComplete()} and a hung request can not keep the indicator spinning.
+ */
+public interface AsyncLoader<T> {
+
+    /**
+     * Called on a thread of executor. It's interrupted once canceled, eg. timed out, the layout is
+     * detached or it's started again, check {@link Thread#isInterrupted()} in long work.
+     */
+    T load() throws Exception;
+
+    /**
+     * Called on main thread with the result of {@link #load()}, then the indicator completes.
+     */
+    void onLoaded(ChopinLayout chopinLayout, T result);
+
+    /**
+     * Called on main thread if {@link #load()} threw or timed out, then the indicator completes.
+     * The error is a {@link java.util.concurrent.TimeoutException} if timed out. It's not called if
+     * the work is canceled.
+     */
+    void onFailed(ChopinLayout chopinLayout, Throwable error);
+}
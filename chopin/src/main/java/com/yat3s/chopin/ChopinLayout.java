@@ -1,12 +1,14 @@
 package com.yat3s.chopin;
 
 import android.content.Context;
+import android.graphics.Canvas;
 import android.graphics.Color;
-import android.os.Build;
+import android.os.SystemClock;
 import android.support.annotation.FloatRange;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.v4.view.MotionEventCompat;
+import android.support.v4.view.ViewCompat;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.util.AttributeSet;
@@ -15,13 +17,24 @@ import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewConfiguration;
 import android.view.ViewGroup;
-import android.view.ViewTreeObserver;
-
+import android.view.WindowManager;
+
+import com.yat3s.chopin.core.DampingCurve;
+import com.yat3s.chopin.core.DragPhysics;
+import com.yat3s.chopin.core.DragStateMachine;
+import com.yat3s.chopin.core.GestureRecorder;
+import com.yat3s.chopin.core.GestureStatistics;
+import com.yat3s.chopin.core.LatencyBreakdown;
+import com.yat3s.chopin.core.RefreshPolicy;
 import com.yat3s.chopin.indicator.Indicator;
+import com.yat3s.chopin.indicator.PausableIndicator;
 import com.yat3s.chopin.wrapper.BaseViewWrapper;
 import com.yat3s.chopin.wrapper.ContentViewWrapper;
 import com.yat3s.chopin.wrapper.IndicatorViewWrapper;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Created by Yat3s on 03/06/2017.
  * Email: hawkoyates@gmail.com
@@ -31,33 +44,38 @@ public class ChopinLayout extends ViewGroup {
 
     private static final String TAG = "ChopinLayout";
 
-    static final boolean DEBUG = true;
-
-    private static final long DEFAULT_PERFORM_REFRESH_DELAY = 100;
+    static final boolean DEBUG = false;
 
     private static final long DEFAULT_REFRESH_COMPLETE_COLLAPSE_DELAY = 100;
     private static final long DEFAULT_LOAD_MORE_COMPLETE_COLLAPSE_DELAY = 100;
 
+    private static final long DEFAULT_ASYNC_LOAD_TIMEOUT = 30000;
+
     private static final long DEFAULT_HEADER_NOTIFICATION_VIEW_STAY_DURATION = 1000;
     private static final long DEFAULT_FOOTER_NOTIFICATION_VIEW_STAY_DURATION = 1000;
 
-    public static final int STATE_DEFAULT = 0;
+    public static final int STATE_DEFAULT = DragStateMachine.STATE_DEFAULT;
 
-    public static final int STATE_DRAGGING_DOWN = 1;
+    public static final int STATE_DRAGGING_DOWN = DragStateMachine.STATE_DRAGGING_DOWN;
 
-    public static final int STATE_DRAGGING_UP = 2;
+    public static final int STATE_DRAGGING_UP = DragStateMachine.STATE_DRAGGING_UP;
 
-    public static final int STATE_REFRESHING = 3;
+    public static final int STATE_REFRESHING = DragStateMachine.STATE_REFRESHING;
 
-    public static final int STATE_LOADING = 4;
+    public static final int STATE_LOADING = DragStateMachine.STATE_LOADING;
 
-    public static final int STATE_BOUNCING_DOWN = 5;
+    public static final int STATE_BOUNCING_DOWN = DragStateMachine.STATE_BOUNCING_DOWN;
 
-    public static final int STATE_BOUNCING_UP = 6;
+    public static final int STATE_BOUNCING_UP = DragStateMachine.STATE_BOUNCING_UP;
 
-    public static final int STATE_SHOWING_HEADER_NOTIFICATION = 7;
+    public static final int STATE_SHOWING_HEADER_NOTIFICATION = DragStateMachine.STATE_SHOWING_HEADER_NOTIFICATION;
 
-    public static final int STATE_SHOWING_FOOTER_NOTIFICATION = 8;
+    public static final int STATE_SHOWING_FOOTER_NOTIFICATION = DragStateMachine.STATE_SHOWING_FOOTER_NOTIFICATION;
+
+    // Names of states, indexed by state, eg. async slices of trace and performance HUD.
+    private static final String[] STATE_NAMES = {"STATE_DEFAULT", "STATE_DRAGGING_DOWN",
+            "STATE_DRAGGING_UP", "STATE_REFRESHING", "STATE_LOADING", "STATE_BOUNCING_DOWN",
+            "STATE_BOUNCING_UP", "STATE_SHOWING_HEADER_NOTIFICATION", "STATE_SHOWING_FOOTER_NOTIFICATION"};
 
     // Indicator location setting, default is INDICATOR_LOCATION_OUTSIDE
     public static final int INDICATOR_LOCATION_OUTSIDE = 0x100;
@@ -67,9 +85,15 @@ public class ChopinLayout extends ViewGroup {
     // Support child view count nested in this, NOW only support one child.
     private static final int SUPPORT_CHILD_COUNT = 1;
 
-    // Scroll resistance, if it equal 0f will scroll no any friction,
-    // if it equal 1f will can not scroll.
-    private float mIndicatorScrollResistance = 0.4f;
+    // The damping curve is relative to this multiple of indicator height, so a long pull stays
+    // close to the indicator whatever the layout height is.
+    private static final int DAMPING_INDICATOR_FACTOR = 2;
+
+    // Resistance, offset and release decision computations of drag.
+    private final DragPhysics mDragPhysics = new DragPhysics();
+
+    // All state changes go through it, see DragStateMachine#fire(int).
+    private final DragStateMachine mStateMachine = new DragStateMachine();
 
     // The last action down position while intercepted touch event.
     private int mLastActionDownX, mLastActionDownY;
@@ -107,6 +131,49 @@ public class ChopinLayout extends ViewGroup {
     // The load more listener
     private OnLoadMoreListener mOnLoadMoreListener;
 
+    // The async listeners, they complete by themselves, see AsyncLoader.
+    private AsyncLoadRunner<?> mAsyncRefreshRunner, mAsyncLoadMoreRunner;
+    private long mAsyncLoadTimeoutMills = DEFAULT_ASYNC_LOAD_TIMEOUT;
+
+    // Decide whether a pull really refreshes, see #startRefresh().
+    private final RefreshPolicy mRefreshPolicy = new RefreshPolicy();
+    private OnRevalidateListener mOnRevalidateListener;
+
+    // Speculative refresh started once header progress passed threshold while dragging, it's
+    // promoted on release and canceled once the drag is aborted, see #startPreRefresh().
+    private float mPreRefreshThreshold;
+    private OnPreRefreshListener mOnPreRefreshListener;
+    private boolean isPreRefreshing;
+
+    // The pre-refresh completed before promoted, it's applied once promoted.
+    private boolean hasPreRefreshCompleted;
+    private long mPreRefreshCollapseDelay;
+
+    // Newer data probed in background while shown, it's announced by header notification view and
+    // applied by tapping it or pulling, see #setFreshnessProbe().
+    private FreshnessPrefetcher<?> mFreshnessPrefetcher;
+    private boolean isShowingStagedNotification;
+
+    // Set by app, see #setOnHeaderNotificationClickListener().
+    private OnClickListener mOnHeaderNotificationClickListener;
+
+    // Whether mHeaderNotificationClickListener is set on header notification view.
+    private boolean isHeaderNotificationClickHandled;
+
+    // Clicks of header notification view apply the staged data first while it's shown for it, and
+    // are dispatched to the listener of app.
+    private final OnClickListener mHeaderNotificationClickListener = new OnClickListener() {
+        @Override
+        public void onClick(View v) {
+            if (isShowingStagedNotification) {
+                applyStagedData();
+            }
+            if (null != mOnHeaderNotificationClickListener) {
+                mOnHeaderNotificationClickListener.onClick(v);
+            }
+        }
+    };
+
     private View mHeaderNotificationView;
 
     private View mFooterNotificationView;
@@ -131,7 +198,10 @@ public class ChopinLayout extends ViewGroup {
 
     private boolean hasDispatchCancelEvent = false;
 
-    private MotionEvent mLastMoveEvent;
+    // Child has requested parent not to intercept this gesture at ACTION_DOWN, eg. fast scroll thumb
+    // is grabbed. The request after DOWN is ignored, for RecyclerView requests it once it starts scrolling.
+    private boolean isChildDisallowIntercept = false;
+    private boolean isDispatchingActionDown = false;
 
     private int mStartInterceptTouchY, mTranslatedOffsetWhileIntercept;
 
@@ -139,12 +209,195 @@ public class ChopinLayout extends ViewGroup {
 
     private int mFooterIndicatorLocation = INDICATOR_LOCATION_OUTSIDE;
 
-    private int mState = STATE_DEFAULT;
-
     private int mTouchSlop;
 
     private OnStateChangeListener mOnStateChangeListener;
 
+    // Record all touch events for replay, see #setGestureRecorder(GestureRecorder).
+    private GestureRecorder mGestureRecorder;
+
+    // Fill gesture statistics while there is a listener, see #setOnGestureStatisticsListener.
+    private final GestureStatisticsTracker mStatisticsTracker = new GestureStatisticsTracker(this);
+
+    // Debug overlay drawn over children, it's null while disabled, see #setPerformanceHudEnabled.
+    private PerformanceHud mPerformanceHud;
+
+    // Identify async slices and counter of this layout in trace, see ChopinTrace.
+    private int mTraceCookie;
+    private String mTraceTranslationCounterName;
+
+    // User perceived latency of refresh and load more, see #trackLatency(int, int).
+    private final LatencyBreakdown mRefreshLatency = new LatencyBreakdown();
+    private final LatencyBreakdown mLoadMoreLatency = new LatencyBreakdown();
+
+    // Whether user is touching, pending transitions are deferred to release while touching.
+    private boolean isTouching;
+
+    // Whether the layout is detached from window or invisible, animations, delayed transitions and
+    // pausable indicators are parked until it's shown again, see #setPaused(boolean).
+    private boolean isPaused;
+    private int mWindowVisibility = GONE;
+
+    // Whether current collapse stops at notification view, see #releaseViewToDefaultStatus(boolean).
+    private boolean isCollapsingToNotification;
+
+    // Listeners and runnables of release and collapse are created once, so a gesture never allocates.
+    private final BaseViewWrapper.AnimateListener mRefreshBounceListener = new BaseViewWrapper.AnimateListener() {
+        @Override
+        public void onAnimate(int value) {
+            onTranslation(value);
+            float progress = DragPhysics.computeProgress(value, mHeaderIndicatorView.getHeight());
+            onIndicatorCallback();
+            mRefreshHeaderIndicatorProvider.onPositionChange(ChopinLayout.this, progress, Indicator.STATE
+                    .BOUNCING_UP, -1, -1);
+            // The animated view is header indicator, content follows it.
+            if (mHeaderIndicatorLocation == INDICATOR_LOCATION_OUTSIDE) {
+                mContentViewWrapper.translateVerticalWithOffset(value);
+            }
+        }
+
+        @Override
+        public void onFinish() {
+            startRefresh();
+        }
+    };
+
+    private final BaseViewWrapper.AnimateListener mLoadingBounceListener = new BaseViewWrapper.AnimateListener() {
+        @Override
+        public void onAnimate(int value) {
+            onTranslation(value);
+            float progress = DragPhysics.computeProgress(value, mFooterIndicatorView.getHeight());
+            onIndicatorCallback();
+            mLoadingFooterIndicatorProvider.onPositionChange(ChopinLayout.this, progress,
+                    Indicator.STATE.BOUNCING_DOWN, -1, -1);
+            // The animated view is footer indicator, content follows it.
+            if (mFooterIndicatorLocation == INDICATOR_LOCATION_OUTSIDE) {
+                mContentViewWrapper.translateVerticalWithOffset(value);
+            }
+        }
+
+        @Override
+        public void onFinish() {
+            startLoading();
+        }
+    };
+
+    private final BaseViewWrapper.AnimateListener mHeaderCollapseListener = new BaseViewWrapper.AnimateListener() {
+        @Override
+        public void onAnimate(int value) {
+            onTranslation(value);
+            if (null != mHeaderIndicatorView) {
+                if (mHeaderIndicatorLocation != INDICATOR_LOCATION_BEHIND) {
+                    mHeaderIndicatorView.translateVerticalWithOffset(value);
+                }
+                if (null != mRefreshHeaderIndicatorProvider) {
+                    float progress = DragPhysics.computeProgress(value, mHeaderIndicatorView.getHeight());
+                    onIndicatorCallback();
+                    mRefreshHeaderIndicatorProvider.onPositionChange(ChopinLayout.this, progress,
+                            Indicator.STATE.BOUNCING_UP, -1, -1);
+                }
+            }
+        }
+
+        @Override
+        public void onFinish() {
+            if (isCollapsingToNotification
+                    && mStateMachine.fire(DragStateMachine.EVENT_SHOW_HEADER_NOTIFICATION)) {
+                mHeaderNotificationView.setVisibility(VISIBLE);
+                mCollapseNotificationTransition.post(mHeaderNotificationViewStayMills);
+            } else {
+                // Bouncing end, hide before settling, a staged notification is shown on settle.
+                if (null != mHeaderNotificationView) {
+                    mHeaderNotificationView.setVisibility(GONE);
+                }
+                mStateMachine.fire(DragStateMachine.EVENT_SETTLE);
+            }
+        }
+    };
+
+    private final BaseViewWrapper.AnimateListener mFooterCollapseListener = new BaseViewWrapper.AnimateListener() {
+        @Override
+        public void onAnimate(int value) {
+            onTranslation(value);
+            if (null != mFooterIndicatorView) {
+                if (mFooterIndicatorLocation != INDICATOR_LOCATION_BEHIND) {
+                    mFooterIndicatorView.translateVerticalWithOffset(value);
+                }
+                if (null != mLoadingFooterIndicatorProvider) {
+                    float progress = DragPhysics.computeProgress(value, mFooterIndicatorView.getHeight());
+                    onIndicatorCallback();
+                    mLoadingFooterIndicatorProvider.onPositionChange(ChopinLayout.this, progress,
+                            Indicator.STATE.BOUNCING_DOWN, -1, -1);
+                }
+            }
+        }
+
+        @Override
+        public void onFinish() {
+            if (isCollapsingToNotification
+                    && mStateMachine.fire(DragStateMachine.EVENT_SHOW_FOOTER_NOTIFICATION)) {
+                mFooterNotificationView.setVisibility(VISIBLE);
+                mCollapseNotificationTransition.post(mFooterNotificationViewStayMills);
+            } else {
+                // Bouncing end.
+                mStateMachine.fire(DragStateMachine.EVENT_SETTLE);
+                if (null != mFooterNotificationView) {
+                    mFooterNotificationView.setVisibility(GONE);
+                }
+            }
+        }
+    };
+
+    // Delayed transitions, they are canceled once the state has moved on, see PendingTransition.
+    private final PendingTransition mCollapseNotificationTransition = new PendingTransition() {
+        @Override
+        void onTransition() {
+            releaseViewToDefaultStatus(false);
+        }
+    };
+
+    private final PendingTransition mRefreshCompleteTransition = new PendingTransition() {
+        @Override
+        void onTransition() {
+            releaseViewToDefaultStatus(mHeaderNotificationView != null);
+        }
+    };
+
+    private final PendingTransition mLoadMoreCompleteTransition = new PendingTransition() {
+        @Override
+        void onTransition() {
+            releaseViewToDefaultStatus(mFooterNotificationView != null);
+        }
+    };
+
+    private final PendingTransition mPerformRefreshTransition = new PendingTransition() {
+        @Override
+        void onTransition() {
+            mInitialRefreshScheduler.onRefreshStarted();
+            releaseViewToRefreshingStatus();
+        }
+    };
+
+    private final CompletionHandOff mCompletionHandOff = new CompletionHandOff(new CompletionHandOff.Callback() {
+        @Override
+        public void onComplete(int completions, long refreshCollapseDelay, long loadMoreCollapseDelay) {
+            if ((completions & CompletionHandOff.REFRESH) != 0) {
+                applyRefreshComplete(refreshCollapseDelay, true);
+            }
+            if ((completions & CompletionHandOff.LOAD_MORE) != 0) {
+                applyLoadMoreComplete(loadMoreCollapseDelay);
+            }
+        }
+    });
+
+    private final InitialRefreshScheduler mInitialRefreshScheduler = new InitialRefreshScheduler(this,
+            new InitialRefreshScheduler.Callback() {
+                @Override
+                public void onPerformRefresh(long delayMills) {
+                    mPerformRefreshTransition.post(delayMills);
+                }
+            });
+
     public ChopinLayout(Context context) {
         this(context, null);
     }
@@ -185,6 +438,15 @@ public class ChopinLayout extends ViewGroup {
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        boolean traced = ChopinTrace.beginSection("ChopinLayout#onMeasure");
+        try {
+            onMeasureInternal(widthMeasureSpec, heightMeasureSpec);
+        } finally {
+            ChopinTrace.endSection(traced);
+        }
+    }
+
+    private void onMeasureInternal(int widthMeasureSpec, int heightMeasureSpec) {
         super.onMeasure(widthMeasureSpec, heightMeasureSpec);
         int wholeMinimumHeight = 0;
 
@@ -276,9 +538,121 @@ public class ChopinLayout extends ViewGroup {
                 resolveSize(wholeMinimumHeight, heightMeasureSpec));
     }
 
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        super.dispatchDraw(canvas);
+        mInitialRefreshScheduler.onDraw();
+        if (null != mPerformanceHud) {
+            mPerformanceHud.draw(canvas, mStateMachine.getState(),
+                    null == mContentViewWrapper ? null : mContentViewWrapper.getView());
+            // Keep drawing so the frame time is live.
+            ViewCompat.postInvalidateOnAnimation(this);
+        }
+    }
+
     @Override
     protected void onAttachedToWindow() {
         super.onAttachedToWindow();
+        mInitialRefreshScheduler.onAttachedToWindow();
+        updateFreshnessProbe();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        setPaused(true);
+        if (null != mFreshnessPrefetcher) {
+            mFreshnessPrefetcher.setRunning(false);
+        }
+        // The user has left, completing collapses once it's attached again.
+        cancelAsyncLoads();
+        mInitialRefreshScheduler.onDetachedFromWindow();
+        mStatisticsTracker.stop();
+        mRefreshLatency.cancel();
+        mLoadMoreLatency.cancel();
+    }
+
+    @Override
+    protected void onVisibilityChanged(@NonNull View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        if (ViewCompat.isAttachedToWindow(this)) {
+            setPaused(!isShownToUser());
+            updateFreshnessProbe();
+        }
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        // It's dispatched right after attached as well.
+        mWindowVisibility = visibility;
+        if (ViewCompat.isAttachedToWindow(this)) {
+            setPaused(!isShownToUser());
+            updateFreshnessProbe();
+        }
+    }
+
+    private boolean isShownToUser() {
+        return isShown() && mWindowVisibility == VISIBLE;
+    }
+
+    /**
+     * Probe freshness ONLY while the list can be seen.
+     */
+    private void updateFreshnessProbe() {
+        // Visibility may be dispatched by the constructor of View before fields are initialized.
+        if (null != mFreshnessPrefetcher) {
+            mFreshnessPrefetcher.setRunning(ViewCompat.isAttachedToWindow(this) && isShownToUser());
+        }
+    }
+
+    /**
+     * Park everything that keeps running while the layout can not be seen, and resume it from where
+     * it was once it's shown again. Nothing is canceled, so the state machine moves on as usual.
+     */
+    private void setPaused(boolean paused) {
+        // Visibility may be dispatched by the constructor of View before fields are initialized.
+        if (null == mStateMachine || paused == isPaused) {
+            return;
+        }
+        isPaused = paused;
+        BaseViewWrapper[] wrappers = {mContentViewWrapper, mHeaderIndicatorView, mFooterIndicatorView};
+        for (BaseViewWrapper wrapper : wrappers) {
+            if (null == wrapper) {
+                continue;
+            }
+            if (paused) {
+                wrapper.pauseAnimation();
+            } else {
+                wrapper.resumeAnimation();
+            }
+        }
+        PendingTransition[] transitions = {mCollapseNotificationTransition, mRefreshCompleteTransition,
+                mLoadMoreCompleteTransition, mPerformRefreshTransition};
+        for (PendingTransition transition : transitions) {
+            if (paused) {
+                transition.park();
+            } else {
+                transition.unpark();
+            }
+        }
+        Indicator[] indicators = {mRefreshHeaderIndicatorProvider, mLoadingFooterIndicatorProvider};
+        for (Indicator indicator : indicators) {
+            if (indicator instanceof PausableIndicator) {
+                if (paused) {
+                    ((PausableIndicator) indicator).onPause(this);
+                } else {
+                    ((PausableIndicator) indicator).onResume(this);
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        // A finger can hardly move farther than height, the offset table is rebuilt here rather than in a drag.
+        mDragPhysics.setMaxMoveDistance(h);
     }
 
     /**
@@ -286,9 +660,18 @@ public class ChopinLayout extends ViewGroup {
      * Layout refresh header indicator on top of content view and layout loading footer indicator on
      * the bottom of content view in order to hide in the default status.
      */
-    @SuppressWarnings("ResourceType")
     @Override
     protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        boolean traced = ChopinTrace.beginSection("ChopinLayout#onLayout");
+        try {
+            onLayoutInternal();
+        } finally {
+            ChopinTrace.endSection(traced);
+        }
+    }
+
+    @SuppressWarnings("ResourceType")
+    private void onLayoutInternal() {
         // Layout content view.
         mContentViewWrapper.layout();
         mContentViewWrapper.getView().bringToFront();
@@ -334,22 +717,58 @@ public class ChopinLayout extends ViewGroup {
                     mFooterNotificationView.getMeasuredWidth(),
                     mContentViewWrapper.getView().getMeasuredHeight());
         }
+
+        updateDampingDimension();
+    }
+
+    /**
+     * Damping curve is relative to the taller indicator, or to height while there is no indicator,
+     * its offset table is ONLY rebuilt while the dimension has changed.
+     */
+    private void updateDampingDimension() {
+        int indicatorSize = Math.max(null == mHeaderIndicatorView ? 0 : mHeaderIndicatorView.getHeight(),
+                null == mFooterIndicatorView ? 0 : mFooterIndicatorView.getHeight());
+        mDragPhysics.setDimension(indicatorSize > 0 ? indicatorSize * DAMPING_INDICATOR_FACTOR : getHeight());
     }
 
     @Override
     public boolean dispatchTouchEvent(MotionEvent ev) {
+        boolean traced = ChopinTrace.beginSection("ChopinLayout#dispatchTouchEvent");
+        try {
+            return dispatchTouchEventInternal(ev);
+        } finally {
+            ChopinTrace.endSection(traced);
+        }
+    }
+
+    private boolean dispatchTouchEventInternal(MotionEvent ev) {
+        int actionMasked = MotionEventCompat.getActionMasked(ev);
+        if (null != mGestureRecorder) {
+            recordTouchEvent(ev);
+        }
+        mStatisticsTracker.onTouchEvent(actionMasked);
+        if (null != mPerformanceHud) {
+            mPerformanceHud.countTouchEvent();
+        }
+        boolean hasRunDeferredTransition = false;
+        if (actionMasked == MotionEvent.ACTION_DOWN) {
+            isTouching = true;
+        } else if (actionMasked == MotionEvent.ACTION_UP || actionMasked == MotionEvent.ACTION_CANCEL) {
+            isTouching = false;
+            hasRunDeferredTransition = runDeferredTransitions();
+        }
         if (!enableOverScroll) {
             return super.dispatchTouchEvent(ev);
         }
 
         int x = (int) ev.getX(), y = (int) ev.getY();
-        int actionMasked = MotionEventCompat.getActionMasked(ev);
         int action = ev.getAction();
         switch (actionMasked) {
             case MotionEvent.ACTION_DOWN:
                 mLastActionDownX = x;
                 mLastActionDownY = y;
                 hasDispatchCancelEvent = false;
+                isChildDisallowIntercept = false;
 
                 if (DEBUG) {
                     Log.d(TAG, "event--> dispatchTouchEvent: DOWN, true");
@@ -357,7 +776,9 @@ public class ChopinLayout extends ViewGroup {
 
                 // Dispatch ACTION_DOWN event to child for process if child never consume
                 // this event.
+                isDispatchingActionDown = true;
                 super.dispatchTouchEvent(ev);
+                isDispatchingActionDown = false;
 
                 // FORCE to dispatch this motion for it's going to process all event while
                 // child not consume this event. for example: it nested with a LinearLayout
@@ -375,41 +796,38 @@ public class ChopinLayout extends ViewGroup {
                 break;
 
             case MotionEvent.ACTION_MOVE:
-                mLastMoveEvent = ev;
                 int dx = x - mLastActionDownX;
                 int dy = y - mLastActionDownY;
 
-                boolean pullDown = dy > 0;
-                boolean pullUp = dy < 0;
+                int pullDirection = DragPhysics.detectPullDirection(dx, dy, mTouchSlop);
 
                 if (Math.abs(dy) > mTouchSlop) {
-                    if (mState == STATE_DEFAULT) {
-                        if (pullDown && mViewScrollChecker.canDoRefresh(this, mContentViewWrapper.getView())
-                                && dy > Math.abs(dx)) {
+                    if (mStateMachine.getState() == STATE_DEFAULT && !isChildDisallowIntercept) {
+                        if (pullDirection == DragPhysics.DIRECTION_DOWN
+                                && mViewScrollChecker.canDoRefresh(this, mContentViewWrapper.getView())) {
                             mStartInterceptTouchY = y;
-                            setState(STATE_DRAGGING_DOWN);
+                            mStateMachine.fire(DragStateMachine.EVENT_PULL_DOWN);
                             if (DEBUG) {
                                 Log.d(TAG, "dispatchTouchEvent: canIntercept pull down");
                             }
                             return true;
                         }
-                        if (pullUp && mViewScrollChecker.canDoLoading(this, mContentViewWrapper.getView())
-                                && -dy > Math.abs(dx)) {
+                        if (pullDirection == DragPhysics.DIRECTION_UP
+                                && mViewScrollChecker.canDoLoading(this, mContentViewWrapper.getView())) {
                             mStartInterceptTouchY = y;
-                            setState(STATE_DRAGGING_UP);
+                            mStateMachine.fire(DragStateMachine.EVENT_PULL_UP);
                             if (DEBUG) {
                                 Log.d(TAG, "dispatchTouchEvent: canIntercept pull up");
                             }
                             return true;
                         }
                     }
-                    if (mState == STATE_DRAGGING_DOWN || mState == STATE_DRAGGING_UP) {
+                    if (mStateMachine.isDragging()) {
                         int moveOffsetYAfterIntercepted = y - mStartInterceptTouchY;
-                        int actualTranslationOffsetY = (int) (moveOffsetYAfterIntercepted * (1 - mIndicatorScrollResistance));
+                        int actualTranslationOffsetY = mDragPhysics.computeOffset(moveOffsetYAfterIntercepted);
 
                         // It should reset intercept event when dragging state has changed.
-                        if ((moveOffsetYAfterIntercepted > 0 && mState == STATE_DRAGGING_UP)
-                                || (moveOffsetYAfterIntercepted < 0 && mState == STATE_DRAGGING_DOWN)) {
+                        if (DragPhysics.isDragReversed(mStateMachine.getState(), moveOffsetYAfterIntercepted)) {
                             resetInterceptEvent(ev);
                             actualTranslationOffsetY = 0;
                         }
@@ -423,20 +841,26 @@ public class ChopinLayout extends ViewGroup {
 
                         // Dispatch cancel event for cancel user click trigger.
                         if (!hasDispatchCancelEvent) {
-                            sendCancelEvent();
+                            sendCancelEvent(ev);
                             hasDispatchCancelEvent = true;
                         }
 
                         if (null != mRefreshHeaderIndicatorProvider && actualTranslationOffsetY > 0) {
                             // Scroll distance has over refresh header indicator height.
-                            float progress = actualTranslationOffsetY / (float) mHeaderIndicatorView.getHeight();
+                            float progress = DragPhysics.computeProgress(actualTranslationOffsetY,
+                                    mHeaderIndicatorView.getHeight());
+                            onIndicatorCallback();
                             mRefreshHeaderIndicatorProvider.onPositionChange(this, progress, Indicator.STATE.DRAGGING_DOWN,
                                     x, y);
-
+                            if (mPreRefreshThreshold > 0 && progress >= mPreRefreshThreshold && !isPreRefreshing) {
+                                startPreRefresh();
+                            }
                         }
 
                         if (null != mLoadingFooterIndicatorProvider && actualTranslationOffsetY < 0) {
-                            float progress = -actualTranslationOffsetY / (float) mFooterIndicatorView.getHeight();
+                            float progress = DragPhysics.computeProgress(actualTranslationOffsetY,
+                                    mFooterIndicatorView.getHeight());
+                            onIndicatorCallback();
                             mLoadingFooterIndicatorProvider.onPositionChange(this, progress, Indicator.STATE.DRAGGING_UP, x, y);
                         }
                         return true;
@@ -446,43 +870,39 @@ public class ChopinLayout extends ViewGroup {
 
             case MotionEvent.ACTION_CANCEL:
             case MotionEvent.ACTION_UP:
+                // The deferred transition has decided where content goes, eg. collapsing after completed.
+                if (hasRunDeferredTransition) {
+                    break;
+                }
                 int currentTranslatedOffsetY = getCurrentTranslatedOffsetY();
 
                 if (DEBUG) {
                     Log.d(TAG, "currentTranslatedOffsetY: " + currentTranslatedOffsetY);
                 }
 
-                if (currentTranslatedOffsetY == 0) {
-                    setState(STATE_DEFAULT);
-                }
-                // Content view has been dragged down.
-                if (currentTranslatedOffsetY > 0) {
-                    if (null != mRefreshHeaderIndicatorProvider) {
+                int headerIndicatorSize = null == mRefreshHeaderIndicatorProvider ? -1 : mHeaderIndicatorView.getHeight();
+                int footerIndicatorSize = null == mLoadingFooterIndicatorProvider ? -1 : mFooterIndicatorView.getHeight();
+                switch (DragPhysics.decideRelease(mStateMachine.getState(), currentTranslatedOffsetY,
+                        headerIndicatorSize, footerIndicatorSize)) {
+                    case DragPhysics.RELEASE_AT_REST:
+                        mStateMachine.fire(DragStateMachine.EVENT_RELEASE_AT_REST);
+                        break;
+                    case DragPhysics.RELEASE_TO_REFRESH:
                         // release view to refresh status while is refreshing or scrollY exceeded
                         // refresh header indicator height.
-                        if (currentTranslatedOffsetY >= mHeaderIndicatorView.getHeight()) {
-                            releaseViewToRefreshingStatus();
-                        } else if (mState != STATE_REFRESHING) {
-                            // Abort some move events while it not meet refresh or loading demands.
-                            abortThisDrag();
-                        }
-                    } else {
+                        releaseViewToRefreshingStatus();
+                        break;
+                    case DragPhysics.RELEASE_TO_LOAD:
+                        releaseViewToLoadingStatus();
+                        break;
+                    case DragPhysics.RELEASE_ABORT:
+                        // Abort some move events while it not meet refresh or loading demands.
+                        abortThisDrag();
+                        break;
+                    case DragPhysics.RELEASE_TO_DEFAULT:
                         // Cancel this scroll "journey" if has some unexpected exceptions.
                         releaseViewToDefaultStatus();
-                    }
-                }
-
-                // Content view has been dragged up.
-                if (currentTranslatedOffsetY < 0) {
-                    if (null != mLoadingFooterIndicatorProvider) {
-                        if (-currentTranslatedOffsetY >= mFooterIndicatorView.getHeight()) {
-                            releaseViewToLoadingStatus();
-                        } else if (mState != STATE_LOADING) {
-                            abortThisDrag();
-                        }
-                    } else {
-                        releaseViewToDefaultStatus();
-                    }
+                        break;
                 }
                 break;
         }
@@ -496,9 +916,25 @@ public class ChopinLayout extends ViewGroup {
         return dispatch;
     }
 
+    private void recordTouchEvent(MotionEvent ev) {
+        int actionMasked = MotionEventCompat.getActionMasked(ev);
+        if (actionMasked == MotionEvent.ACTION_DOWN) {
+            mGestureRecorder.setViewSize(getWidth(), getHeight());
+        }
+        mGestureRecorder.record(actionMasked, ev.getEventTime(), ev.getX(), ev.getY());
+    }
+
+    @Override
+    public void requestDisallowInterceptTouchEvent(boolean disallowIntercept) {
+        if (isDispatchingActionDown) {
+            isChildDisallowIntercept = disallowIntercept;
+        }
+        super.requestDisallowInterceptTouchEvent(disallowIntercept);
+    }
+
     @Override
     public boolean onInterceptTouchEvent(MotionEvent ev) {
-        if (mState == STATE_REFRESHING || mState == STATE_LOADING) {
+        if (mStateMachine.isRefreshingOrLoading()) {
             int x = (int) ev.getX(), y = (int) ev.getY();
             switch (ev.getAction()) {
                 case MotionEvent.ACTION_DOWN:
@@ -538,7 +974,7 @@ public class ChopinLayout extends ViewGroup {
 
     @Override
     public boolean onTouchEvent(MotionEvent ev) {
-        if (mState == STATE_REFRESHING || mState == STATE_LOADING) {
+        if (mStateMachine.isRefreshingOrLoading()) {
             int x = (int) ev.getX(), y = (int) ev.getY();
             switch (ev.getAction()) {
                 case MotionEvent.ACTION_DOWN:
@@ -549,8 +985,8 @@ public class ChopinLayout extends ViewGroup {
                     int dy = y - mLastActionDownY;
                     if (Math.abs(dy) > mTouchSlop) {
                         int moveOffsetYAfterIntercepted = y - mStartInterceptTouchY;
-                        int actualTranslationOffsetY = mTranslatedOffsetWhileIntercept +
-                                (int) (moveOffsetYAfterIntercepted * (1 - mIndicatorScrollResistance));
+                        int actualTranslationOffsetY = mDragPhysics.computeOffset(mTranslatedOffsetWhileIntercept,
+                                moveOffsetYAfterIntercepted);
                         if (DEBUG) {
                             Log.d(TAG, "onTouchEvent: moveOffsetYAfterIntercepted--> " + moveOffsetYAfterIntercepted);
 
@@ -569,22 +1005,27 @@ public class ChopinLayout extends ViewGroup {
      * Abort this action while dragging content view and not reach the demands.
      */
     private void abortThisDrag() {
+        cancelPreRefresh();
         releaseViewToDefaultStatus();
         if (getCurrentTranslatedOffsetY() > 0 && null != mRefreshHeaderIndicatorProvider) {
+            onIndicatorCallback();
             mRefreshHeaderIndicatorProvider.onCancel(this);
         }
         if (getCurrentTranslatedOffsetY() < 0 && null != mLoadingFooterIndicatorProvider) {
+            onIndicatorCallback();
             mLoadingFooterIndicatorProvider.onCancel(this);
         }
     }
 
     private void resetInterceptEvent(MotionEvent event) {
-        setState(STATE_DEFAULT);
+        mStateMachine.fire(DragStateMachine.EVENT_DRAG_REVERSED);
         int x = (int) event.getX(), y = (int) event.getY();
-        long eventTime = System.currentTimeMillis();
+        long eventTime = event.getEventTime();
+        // Obtained from MotionEvent pool, recycle it after dispatched.
         MotionEvent mockDownMotionEvent = MotionEvent.obtain(eventTime,
                 eventTime, MotionEvent.ACTION_DOWN, x, y, 0);
         super.dispatchTouchEvent(mockDownMotionEvent);
+        mockDownMotionEvent.recycle();
 //
 //        MotionEvent mockMoveMotionEvent = MotionEvent.obtain(eventTime,
 //                eventTime, MotionEvent.ACTION_MOVE, x, y, 0);
@@ -594,20 +1035,25 @@ public class ChopinLayout extends ViewGroup {
 //        hasDispatchCancelEvent = false;
     }
 
-    private void sendCancelEvent() {
-        if (mLastMoveEvent == null) {
-            return;
-        }
-        MotionEvent last = mLastMoveEvent;
-        MotionEvent event = MotionEvent.obtain(last.getDownTime(), last.getEventTime() + ViewConfiguration.getLongPressTimeout()
-                , MotionEvent.ACTION_CANCEL, mLastActionDownX, mLastActionDownY, last.getMetaState());
+    /**
+     * @param moveEvent The move event which starts dragging, the framework recycles it after
+     *                  dispatched so it must not be kept.
+     */
+    private void sendCancelEvent(MotionEvent moveEvent) {
+        MotionEvent event = MotionEvent.obtain(moveEvent.getDownTime(),
+                moveEvent.getEventTime() + ViewConfiguration.getLongPressTimeout(),
+                MotionEvent.ACTION_CANCEL, mLastActionDownX, mLastActionDownY, moveEvent.getMetaState());
         super.dispatchTouchEvent(event);
+        event.recycle();
     }
 
     private void translateViewWithTargetOffsetY(int translationOffsetY) {
         if (DEBUG) {
             Log.d(TAG, "translateViewWithTargetOffsetY: " + translationOffsetY);
         }
+        onTranslation(translationOffsetY);
+        // Finger owns content now, eg. dragging while bouncing back to refreshing position.
+        cancelAnimations();
         // Reset to default.
         if (translationOffsetY == 0) {
             mContentViewWrapper.translateVerticalWithOffset(translationOffsetY);
@@ -659,6 +1105,56 @@ public class ChopinLayout extends ViewGroup {
         }
     }
 
+    private void cancelAnimations() {
+        if (null != mContentViewWrapper) {
+            mContentViewWrapper.cancelAnimation();
+        }
+        if (null != mHeaderIndicatorView) {
+            mHeaderIndicatorView.cancelAnimation();
+        }
+        if (null != mFooterIndicatorView) {
+            mFooterIndicatorView.cancelAnimation();
+        }
+    }
+
+    /**
+     * Called on every state change, the animations and delayed transitions scheduled by previous
+     * state are stale, except the completion which arrives before reaching refreshing (loading)
+     * position, it's kept for the new state.
+     */
+    private void cancelStaleTransitions(int event) {
+        cancelAnimations();
+        mCollapseNotificationTransition.cancel();
+        mPerformRefreshTransition.cancel();
+        if (event == DragStateMachine.EVENT_START_REFRESH) {
+            mRefreshCompleteTransition.rebase();
+        } else {
+            mRefreshCompleteTransition.cancel();
+        }
+        if (event == DragStateMachine.EVENT_START_LOADING) {
+            mLoadMoreCompleteTransition.rebase();
+        } else {
+            mLoadMoreCompleteTransition.cancel();
+        }
+    }
+
+    /**
+     * @return Whether a transition deferred while touching has run.
+     */
+    private boolean runDeferredTransitions() {
+        return mRefreshCompleteTransition.runDeferred() || mLoadMoreCompleteTransition.runDeferred()
+                || mCollapseNotificationTransition.runDeferred() || mPerformRefreshTransition.runDeferred();
+    }
+
+    /**
+     * @return Whether no view is animating, used to decide the end of gesture statistics.
+     */
+    boolean isSettled() {
+        return (null == mContentViewWrapper || !mContentViewWrapper.isAnimating())
+                && (null == mHeaderIndicatorView || !mHeaderIndicatorView.isAnimating())
+                && (null == mFooterIndicatorView || !mFooterIndicatorView.isAnimating());
+    }
+
     private int getCurrentTranslatedOffsetY() {
         int currentTranslatedOffsetY = 0;
         if (mContentViewWrapper.getTranslationY() == 0) {
@@ -689,54 +1185,13 @@ public class ChopinLayout extends ViewGroup {
                 : mHeaderIndicatorView.getTranslationY();
 
         int end = mHeaderIndicatorView.getHeight();
-        if (start == end) {
+        if (start == end || !mStateMachine.fire(DragStateMachine.EVENT_BOUNCE_TO_REFRESH)) {
             return;
         }
-        if (mState != STATE_REFRESHING) {
-            setState(STATE_BOUNCING_UP);
-        }
         if (mHeaderIndicatorLocation == INDICATOR_LOCATION_BEHIND) {
-            mContentViewWrapper.animateTranslationY(start, end, new BaseViewWrapper.AnimateListener() {
-                @Override
-                public void onAnimate(int value) {
-                    float progress = value / (float) mHeaderIndicatorView.getHeight();
-                    mRefreshHeaderIndicatorProvider.onPositionChange(ChopinLayout.this, progress, Indicator.STATE
-                            .BOUNCING_UP, -1, -1);
-                }
-
-                @Override
-                public void onFinish() {
-                    if (mState != STATE_REFRESHING) {
-                        startRefresh();
-                    } else {
-                        // TODO: 27/07/2017  It may cause wrong state while dragging in refreshing status.
-                        setState(STATE_REFRESHING);
-                    }
-                }
-            });
+            mContentViewWrapper.animateTranslationY(start, end, mRefreshBounceListener);
         } else {
-            mHeaderIndicatorView.animateTranslationY(mHeaderIndicatorView.getTranslationY(),
-                    mHeaderIndicatorView.getHeight(), new BaseViewWrapper.AnimateListener() {
-                        @Override
-                        public void onAnimate(int value) {
-                            float progress = value / (float) mHeaderIndicatorView.getHeight();
-                            mRefreshHeaderIndicatorProvider.onPositionChange(ChopinLayout.this, progress, Indicator.STATE
-                                    .BOUNCING_UP, -1, -1);
-                            if (mHeaderIndicatorLocation != INDICATOR_LOCATION_FRONT) {
-                                mContentViewWrapper.translateVerticalWithOffset(value);
-                            }
-                        }
-
-                        @Override
-                        public void onFinish() {
-                            if (mState != STATE_REFRESHING) {
-                                startRefresh();
-                            } else {
-                                // TODO: 27/07/2017  It may cause wrong state while dragging in refreshing status.
-                                setState(STATE_REFRESHING);
-                            }
-                        }
-                    });
+            mHeaderIndicatorView.animateTranslationY(start, end, mRefreshBounceListener);
         }
     }
 
@@ -753,55 +1208,13 @@ public class ChopinLayout extends ViewGroup {
                 : mFooterIndicatorView.getTranslationY();
 
         int end = mFooterIndicatorView.getHeight();
-        if (start == end) {
+        if (start == end || !mStateMachine.fire(DragStateMachine.EVENT_BOUNCE_TO_LOAD)) {
             return;
         }
-        if (mState != STATE_LOADING) {
-            setState(STATE_BOUNCING_DOWN);
-        }
         if (mFooterIndicatorLocation == INDICATOR_LOCATION_BEHIND) {
-            mContentViewWrapper.animateTranslationY(mContentViewWrapper.getTranslationY(),
-                    -mFooterIndicatorView.getHeight(), new BaseViewWrapper.AnimateListener() {
-                        @Override
-                        public void onAnimate(int value) {
-                            float progress = value / (float) mFooterIndicatorView.getHeight();
-                            mLoadingFooterIndicatorProvider.onPositionChange(ChopinLayout.this, progress,
-                                    Indicator.STATE.BOUNCING_DOWN, -1, -1);
-                        }
-
-                        @Override
-                        public void onFinish() {
-                            if (mState != STATE_LOADING) {
-                                startLoading();
-                            } else {
-                                // TODO: 27/07/2017  It may cause wrong state while dragging in loading status.
-                                setState(STATE_LOADING);
-                            }
-                        }
-                    });
+            mContentViewWrapper.animateTranslationY(start, -end, mLoadingBounceListener);
         } else {
-            mFooterIndicatorView.animateTranslationY(mFooterIndicatorView.getTranslationY(),
-                    -mFooterIndicatorView.getHeight(), new BaseViewWrapper.AnimateListener() {
-                        @Override
-                        public void onAnimate(int value) {
-                            float progress = value / (float) mFooterIndicatorView.getHeight();
-                            mLoadingFooterIndicatorProvider.onPositionChange(ChopinLayout.this, progress,
-                                    Indicator.STATE.BOUNCING_DOWN, -1, -1);
-                            if (mFooterIndicatorLocation != INDICATOR_LOCATION_FRONT) {
-                                mContentViewWrapper.translateVerticalWithOffset(value);
-                            }
-                        }
-
-                        @Override
-                        public void onFinish() {
-                            if (mState != STATE_LOADING) {
-                                startLoading();
-                            } else {
-                                // TODO: 27/07/2017  It may cause wrong state while dragging in loading status.
-                                setState(STATE_LOADING);
-                            }
-                        }
-                    });
+            mFooterIndicatorView.animateTranslationY(start, -end, mLoadingBounceListener);
         }
     }
 
@@ -812,214 +1225,156 @@ public class ChopinLayout extends ViewGroup {
     /**
      * Default
      */
-    private void releaseViewToDefaultStatus(final boolean showNotificationView) {
+    private void releaseViewToDefaultStatus(boolean showNotificationView) {
         int currentTranslatedOffsetY = getCurrentTranslatedOffsetY();
+        // Nothing to bounce, eg. completed auto load more.
+        if (currentTranslatedOffsetY == 0) {
+            mStateMachine.fire(mStateMachine.isRefreshingOrLoading()
+                    ? DragStateMachine.EVENT_COMPLETE_AT_REST : DragStateMachine.EVENT_SETTLE);
+            return;
+        }
         // Process header indicator.
         if (currentTranslatedOffsetY > 0) {
+            int end = showNotificationView ? mHeaderNotificationView.getHeight() : 0;
             // ContentView will rebound when it have no HeaderIndicatorView
             // or mHeaderIndicatorLocation != INDICATOR_LOCATION_FRONT
-            if (null == mHeaderIndicatorView || mHeaderIndicatorLocation != INDICATOR_LOCATION_FRONT) {
-                int start = mContentViewWrapper.getTranslationY();
-                int end = showNotificationView ? mHeaderNotificationView.getHeight() : 0;
-                setState(start > end ? STATE_BOUNCING_UP : STATE_BOUNCING_DOWN);
-                mContentViewWrapper.animateTranslationY(start, end, new BaseViewWrapper.AnimateListener() {
-                    @Override
-                    public void onAnimate(int value) {
-                        if (null != mHeaderIndicatorView) {
-                            if (mHeaderIndicatorLocation != INDICATOR_LOCATION_BEHIND) {
-                                mHeaderIndicatorView.translateVerticalWithOffset(value);
-                            }
-                            if (null != mRefreshHeaderIndicatorProvider) {
-                                float progress = Math.abs(value) / (float) mHeaderIndicatorView.getHeight();
-                                mRefreshHeaderIndicatorProvider.onPositionChange(ChopinLayout.this, progress,
-                                        Indicator.STATE.BOUNCING_UP, -1, -1);
-                            }
-                        }
-                    }
-
-                    @Override
-                    public void onFinish() {
-                        if (showNotificationView) {
-                            setState(STATE_SHOWING_HEADER_NOTIFICATION);
-                            mHeaderNotificationView.setVisibility(VISIBLE);
-                            postDelayed(new Runnable() {
-                                @Override
-                                public void run() {
-                                    releaseViewToDefaultStatus(false);
-                                }
-                            }, mHeaderNotificationViewStayMills);
-
-                        } else {
-                            // Bouncing end.
-                            setState(STATE_DEFAULT);
-                            if (null != mHeaderNotificationView) {
-                                mHeaderNotificationView.setVisibility(GONE);
-                            }
-                        }
-                    }
-                });
-            } else {
-                int start = mHeaderIndicatorView.getTranslationY();
-                int end = showNotificationView ? mHeaderNotificationView.getHeight() : 0;
-                setState(start > end ? STATE_BOUNCING_UP : STATE_BOUNCING_DOWN);
-                mHeaderIndicatorView.animateTranslationY(start, end,
-                        new BaseViewWrapper.AnimateListener() {
-                            @Override
-                            public void onAnimate(int value) {
-                                if (mHeaderIndicatorLocation != INDICATOR_LOCATION_BEHIND) {
-                                    mHeaderIndicatorView.translateVerticalWithOffset(value);
-                                }
-                                if (null != mRefreshHeaderIndicatorProvider) {
-                                    float progress = Math.abs(value) / (float) mHeaderIndicatorView.getHeight();
-                                    mRefreshHeaderIndicatorProvider.onPositionChange(ChopinLayout.this, progress,
-                                            Indicator.STATE.BOUNCING_UP, -1, -1);
-                                }
-                            }
-
-                            @Override
-                            public void onFinish() {
-                                if (showNotificationView) {
-                                    setState(STATE_SHOWING_HEADER_NOTIFICATION);
-                                    mHeaderNotificationView.setVisibility(VISIBLE);
-                                    postDelayed(new Runnable() {
-                                        @Override
-                                        public void run() {
-                                            releaseViewToDefaultStatus(false);
-                                        }
-                                    }, mHeaderNotificationViewStayMills);
-
-                                } else {
-                                    // Bouncing end.
-                                    setState(STATE_DEFAULT);
-                                    if (null != mHeaderNotificationView) {
-                                        mHeaderNotificationView.setVisibility(GONE);
-                                    }
-                                }
-                            }
-                        });
+            BaseViewWrapper collapseView = null == mHeaderIndicatorView || mHeaderIndicatorLocation != INDICATOR_LOCATION_FRONT
+                    ? mContentViewWrapper : mHeaderIndicatorView;
+            int start = collapseView.getTranslationY();
+            // Rejected while settling, the running collapse is kept.
+            if (!mStateMachine.fire(start > end ? DragStateMachine.EVENT_BOUNCE_UP : DragStateMachine.EVENT_BOUNCE_DOWN)) {
+                return;
             }
-
+            isCollapsingToNotification = showNotificationView;
+            mStatisticsTracker.onCollapse();
+            collapseView.animateTranslationY(start, end, mHeaderCollapseListener);
         }
 
         // Process footer indicator.
         if (currentTranslatedOffsetY < 0) {
+            int end = showNotificationView ? -mFooterNotificationView.getHeight() : 0;
             // ContentView will rebound when it have no FooterIndicatorView
-            // or mHeaderIndicatorLocation != INDICATOR_LOCATION_FRONT
-            if (null == mFooterIndicatorView || mFooterIndicatorLocation != INDICATOR_LOCATION_FRONT) {
-                int start = mContentViewWrapper.getTranslationY();
-                int end = showNotificationView ? -mFooterNotificationView.getHeight() : 0;
-                setState(start > end ? STATE_BOUNCING_UP : STATE_BOUNCING_DOWN);
-                mContentViewWrapper.animateTranslationY(start, end,
-                        new BaseViewWrapper.AnimateListener() {
-                            @Override
-                            public void onAnimate(int value) {
-                                if (null != mFooterIndicatorView) {
-                                    if (mFooterIndicatorLocation != INDICATOR_LOCATION_BEHIND) {
-                                        mFooterIndicatorView.translateVerticalWithOffset(value);
-                                    }
-                                    if (null != mLoadingFooterIndicatorProvider) {
-                                        float progress = Math.abs(value) / (float) mFooterIndicatorView.getHeight();
-                                        mLoadingFooterIndicatorProvider.onPositionChange(ChopinLayout.this, progress,
-                                                Indicator.STATE.BOUNCING_DOWN, -1, -1);
-                                    }
-                                }
-                            }
-
-                            @Override
-                            public void onFinish() {
-                                if (showNotificationView) {
-                                    setState(STATE_SHOWING_FOOTER_NOTIFICATION);
-                                    mFooterNotificationView.setVisibility(VISIBLE);
-                                    postDelayed(new Runnable() {
-                                        @Override
-                                        public void run() {
-                                            releaseViewToDefaultStatus(false);
-                                        }
-                                    }, mFooterNotificationViewStayMills);
-
-                                } else {
-                                    // Bouncing end.
-                                    setState(STATE_DEFAULT);
-                                    if (null != mFooterNotificationView) {
-                                        mFooterNotificationView.setVisibility(GONE);
-                                    }
-                                }
-                            }
-                        });
-            } else {
-                int start = mFooterIndicatorView.getTranslationY();
-                int end = showNotificationView ? -mFooterNotificationView.getHeight() : 0;
-                setState(start > end ? STATE_BOUNCING_UP : STATE_BOUNCING_DOWN);
-                mFooterIndicatorView.animateTranslationY(start, end,
-                        new BaseViewWrapper.AnimateListener() {
-                            @Override
-                            public void onAnimate(int value) {
-                                if (mFooterIndicatorLocation != INDICATOR_LOCATION_BEHIND) {
-                                    mFooterIndicatorView.translateVerticalWithOffset(value);
-                                }
-                                if (null != mLoadingFooterIndicatorProvider) {
-                                    float progress = Math.abs(value) / (float) mFooterIndicatorView.getHeight();
-                                    mLoadingFooterIndicatorProvider.onPositionChange(ChopinLayout.this, progress, Indicator
-                                            .STATE.BOUNCING_DOWN, -1, -1);
-                                }
-                            }
-
-                            @Override
-                            public void onFinish() {
-                                if (showNotificationView) {
-                                    setState(STATE_SHOWING_FOOTER_NOTIFICATION);
-                                    mFooterNotificationView.setVisibility(VISIBLE);
-                                    postDelayed(new Runnable() {
-                                        @Override
-                                        public void run() {
-                                            releaseViewToDefaultStatus(false);
-                                        }
-                                    }, mFooterNotificationViewStayMills);
-
-                                } else {
-                                    // Bouncing end.
-                                    setState(STATE_DEFAULT);
-                                    if (null != mFooterNotificationView) {
-                                        mFooterNotificationView.setVisibility(GONE);
-                                    }
-                                }
-                            }
-                        });
+            // or mFooterIndicatorLocation != INDICATOR_LOCATION_FRONT
+            BaseViewWrapper collapseView = null == mFooterIndicatorView || mFooterIndicatorLocation != INDICATOR_LOCATION_FRONT
+                    ? mContentViewWrapper : mFooterIndicatorView;
+            int start = collapseView.getTranslationY();
+            if (!mStateMachine.fire(start > end ? DragStateMachine.EVENT_BOUNCE_UP : DragStateMachine.EVENT_BOUNCE_DOWN)) {
+                return;
             }
+            isCollapsingToNotification = showNotificationView;
+            mStatisticsTracker.onCollapse();
+            collapseView.animateTranslationY(start, end, mFooterCollapseListener);
         }
     }
 
+    /**
+     * Content has reached the refreshing position, the listener is ONLY notified while it's
+     * not refreshing yet, eg. release to refreshing position while dragging in refreshing status.
+     */
+    private void startRefresh() {
+        if (mStateMachine.getState() == STATE_REFRESHING
+                || !mStateMachine.fire(DragStateMachine.EVENT_START_REFRESH)) {
+            return;
+        }
+        mStatisticsTracker.onReachRefreshPosition();
+        boolean isPromoted = isPreRefreshing;
+        isPreRefreshing = false;
+        int decision;
+        if (isPromoted) {
+            // A promoted pre-refresh has notified listeners, it's the refresh in flight.
+            decision = RefreshPolicy.DECISION_COALESCE;
+        } else if (applyStagedData()) {
+            // Staged data is newer, there is nothing to wait for.
+            decision = RefreshPolicy.DECISION_SKIP;
+        } else {
+            decision = mRefreshPolicy.onRefreshRequested(SystemClock.uptimeMillis(), null != mOnRevalidateListener);
+        }
+        if (decision == RefreshPolicy.DECISION_REFRESH) {
+            if (null != mOnRefreshListener) {
+                mOnRefreshListener.onRefresh();
+            }
+            if (null != mAsyncRefreshRunner) {
+                mAsyncRefreshRunner.start(mAsyncLoadTimeoutMills, false);
+            }
+            discardFreshnessProbe();
+        } else if (decision == RefreshPolicy.DECISION_REVALIDATE) {
+            mOnRevalidateListener.onRevalidate(this);
+        }
+        if (null != mRefreshHeaderIndicatorProvider) {
+            onIndicatorCallback();
+            mRefreshHeaderIndicatorProvider.onStart(this);
+        }
+        // Content is fresh or served from cache, a coalesced pull waits for the refresh in flight.
+        if (decision == RefreshPolicy.DECISION_SKIP || decision == RefreshPolicy.DECISION_REVALIDATE) {
+            refreshComplete();
+        } else if (isPromoted && hasPreRefreshCompleted) {
+            hasPreRefreshCompleted = false;
+            refreshComplete(mPreRefreshCollapseDelay);
+        }
+        if (isPromoted && null != mAsyncRefreshRunner) {
+            // The async result is applied ONLY now, or once it arrives.
+            mAsyncRefreshRunner.release();
+        }
+    }
 
-    private void setState(int state) {
-        if (mState == state) {
+    /**
+     * Start refresh speculatively while user is still dragging, ONLY if the policy would refresh.
+     */
+    private void startPreRefresh() {
+        if ((null == mOnPreRefreshListener && null == mAsyncRefreshRunner) || hasStagedData()
+                || mRefreshPolicy.decide(SystemClock.uptimeMillis(), false) != RefreshPolicy.DECISION_REFRESH) {
             return;
         }
-        if (DEBUG) {
-            Log.d(TAG, "Setting state from " + mState + " to " + state);
+        mRefreshPolicy.onRefreshRequested(SystemClock.uptimeMillis(), false);
+        isPreRefreshing = true;
+        hasPreRefreshCompleted = false;
+        if (null != mOnPreRefreshListener) {
+            mOnPreRefreshListener.onPreRefresh(this);
+        }
+        if (null != mAsyncRefreshRunner) {
+            mAsyncRefreshRunner.start(mAsyncLoadTimeoutMills, true);
         }
-        mState = state;
+        discardFreshnessProbe();
+    }
 
-        if (null != mOnStateChangeListener) {
-            mOnStateChangeListener.onStateChanged(this, state);
+    private void discardFreshnessProbe() {
+        if (null != mFreshnessPrefetcher) {
+            mFreshnessPrefetcher.discard();
         }
     }
 
-    private void startRefresh() {
-        setState(STATE_REFRESHING);
-        if (null != mOnRefreshListener) {
-            mOnRefreshListener.onRefresh();
+    private void cancelPreRefresh() {
+        if (!isPreRefreshing) {
+            return;
         }
-        if (null != mRefreshHeaderIndicatorProvider) {
-            mRefreshHeaderIndicatorProvider.onStart(this);
+        isPreRefreshing = false;
+        // A completion is not reported until promoted, so it's never counted as a refresh.
+        mRefreshPolicy.onRefreshCanceled();
+        if (hasPreRefreshCompleted) {
+            hasPreRefreshCompleted = false;
+        } else if (null != mOnPreRefreshListener) {
+            mOnPreRefreshListener.onCancelPreRefresh(this);
+        }
+        if (null != mAsyncRefreshRunner) {
+            // The held result is dropped without applying.
+            mAsyncRefreshRunner.discard();
         }
     }
 
     private void startLoading() {
-        setState(STATE_LOADING);
+        if (mStateMachine.getState() == STATE_LOADING
+                || !mStateMachine.fire(DragStateMachine.EVENT_START_LOADING)) {
+            return;
+        }
+        mStatisticsTracker.onReachRefreshPosition();
         if (null != mOnLoadMoreListener) {
             mOnLoadMoreListener.onLoadMore();
         }
+        if (null != mAsyncLoadMoreRunner) {
+            mAsyncLoadMoreRunner.start(mAsyncLoadTimeoutMills, false);
+        }
         if (null != mLoadingFooterIndicatorProvider) {
+            onIndicatorCallback();
             mLoadingFooterIndicatorProvider.onStart(this);
         }
     }
@@ -1028,36 +1383,169 @@ public class ChopinLayout extends ViewGroup {
         refreshComplete(DEFAULT_REFRESH_COMPLETE_COLLAPSE_DELAY);
     }
 
+    /**
+     * It can be called on any thread, completions from other threads are handed off to main thread
+     * by a single post, see {@link CompletionHandOff}.
+     *
+     * @param collapseDelay
+     */
     public void refreshComplete(long collapseDelay) {
+        if (!CompletionHandOff.isMainThread()) {
+            mCompletionHandOff.complete(CompletionHandOff.REFRESH, collapseDelay);
+            return;
+        }
+        mCompletionHandOff.clear(CompletionHandOff.REFRESH);
+        applyRefreshComplete(collapseDelay, true);
+    }
+
+    /**
+     * The async refresh failed, timed out or was canceled, it completes without counting as a
+     * refresh, so the next pull is not skipped by {@link RefreshPolicy}.
+     */
+    private void refreshFailed() {
+        mCompletionHandOff.clear(CompletionHandOff.REFRESH);
+        applyRefreshComplete(DEFAULT_REFRESH_COMPLETE_COLLAPSE_DELAY, false);
+    }
+
+    private void applyRefreshComplete(long collapseDelay, boolean isRefreshed) {
+        if (isPreRefreshing && !isRefreshed) {
+            // Canceled before released, eg. detached, the release refreshes as usual.
+            isPreRefreshing = false;
+            hasPreRefreshCompleted = false;
+            mRefreshPolicy.onRefreshCanceled();
+            return;
+        }
+        if (isPreRefreshing) {
+            // Completed before released, hold it until promoted, it's counted as a refresh then.
+            hasPreRefreshCompleted = true;
+            mPreRefreshCollapseDelay = collapseDelay;
+            return;
+        }
         if (null != mRefreshHeaderIndicatorProvider) {
+            onIndicatorCallback();
             mRefreshHeaderIndicatorProvider.onComplete(this);
         }
-        postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                releaseViewToDefaultStatus(mHeaderNotificationView != null);
-            }
-        }, collapseDelay);
+        long now = SystemClock.uptimeMillis();
+        mRefreshLatency.complete(now);
+        if (isRefreshed) {
+            mRefreshPolicy.onRefreshCompleted(now);
+        } else {
+            mRefreshPolicy.onRefreshCanceled();
+        }
+        mRefreshCompleteTransition.post(collapseDelay);
     }
 
     public void loadMoreComplete() {
         loadMoreComplete(DEFAULT_LOAD_MORE_COMPLETE_COLLAPSE_DELAY);
     }
 
+    /**
+     * It can be called on any thread, see {@link #refreshComplete(long)}.
+     *
+     * @param collapseDelay
+     */
     public void loadMoreComplete(long collapseDelay) {
+        if (!CompletionHandOff.isMainThread()) {
+            mCompletionHandOff.complete(CompletionHandOff.LOAD_MORE, collapseDelay);
+            return;
+        }
+        mCompletionHandOff.clear(CompletionHandOff.LOAD_MORE);
+        applyLoadMoreComplete(collapseDelay);
+    }
+
+    private void applyLoadMoreComplete(long collapseDelay) {
         if (null != mLoadingFooterIndicatorProvider) {
+            onIndicatorCallback();
             mLoadingFooterIndicatorProvider.onComplete(this);
         }
-        postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                releaseViewToDefaultStatus(mFooterNotificationView != null);
-            }
-        }, collapseDelay);
+        mLoadMoreLatency.complete(SystemClock.uptimeMillis());
+        mLoadMoreCompleteTransition.post(collapseDelay);
     }
 
     private void initialize() {
         mTouchSlop = ViewConfiguration.get(getContext()).getScaledTouchSlop();
+        mTraceCookie = System.identityHashCode(this);
+        mTraceTranslationCounterName = "ChopinLayout#" + Integer.toHexString(mTraceCookie) + " translationY";
+        mStateMachine.setOnStateChangeListener(new DragStateMachine.OnStateChangeListener() {
+            @Override
+            public void onStateChanged(int oldState, int newState, int event) {
+                if (DEBUG) {
+                    Log.d(TAG, "Setting state from " + oldState + " to " + newState + " by event " + event);
+                }
+                cancelStaleTransitions(event);
+                if (newState == STATE_DEFAULT) {
+                    // Dragged back to rest without releasing to refresh.
+                    cancelPreRefresh();
+                    showStagedNotification();
+                } else {
+                    hideStagedNotification();
+                }
+                trackLatency(newState, event);
+                if (ChopinTrace.isEnabled()) {
+                    // The default state is not traced, so each slice is a pull, refresh or load.
+                    if (oldState != STATE_DEFAULT) {
+                        ChopinTrace.endAsyncSection(STATE_NAMES[oldState], mTraceCookie);
+                    }
+                    if (newState != STATE_DEFAULT) {
+                        ChopinTrace.beginAsyncSection(STATE_NAMES[newState], mTraceCookie);
+                    }
+                }
+                if (null != mOnStateChangeListener) {
+                    mOnStateChangeListener.onStateChanged(ChopinLayout.this, newState);
+                }
+            }
+        });
+    }
+
+    private void onTranslation(int offsetY) {
+        mStatisticsTracker.onTranslation();
+        ChopinTrace.setCounter(mTraceTranslationCounterName, offsetY);
+        if (null != mPerformanceHud) {
+            mPerformanceHud.countTranslation();
+        }
+    }
+
+    private void onIndicatorCallback() {
+        mStatisticsTracker.onIndicatorCallback();
+        if (null != mPerformanceHud) {
+            mPerformanceHud.countIndicatorCallback();
+        }
+    }
+
+    /**
+     * Split refresh and load more latency into phases by state changes, a session starts while
+     * bouncing to refreshing (loading) position or auto load more, and finishes while settled.
+     */
+    private void trackLatency(int newState, int event) {
+        long now = SystemClock.uptimeMillis();
+        switch (event) {
+            case DragStateMachine.EVENT_BOUNCE_TO_REFRESH:
+                mRefreshLatency.start(LatencyBreakdown.PHASE_ANIMATING, now);
+                break;
+            case DragStateMachine.EVENT_START_REFRESH:
+                mRefreshLatency.start(LatencyBreakdown.PHASE_WAITING, now);
+                break;
+            case DragStateMachine.EVENT_BOUNCE_TO_LOAD:
+                mLoadMoreLatency.start(LatencyBreakdown.PHASE_ANIMATING, now);
+                break;
+            case DragStateMachine.EVENT_START_LOADING:
+            case DragStateMachine.EVENT_AUTO_LOAD_MORE:
+                mLoadMoreLatency.start(LatencyBreakdown.PHASE_WAITING, now);
+                break;
+            default:
+                if (newState == STATE_DEFAULT) {
+                    mRefreshLatency.finish(now);
+                    mLoadMoreLatency.finish(now);
+                } else if (newState == STATE_BOUNCING_UP || newState == STATE_BOUNCING_DOWN) {
+                    mRefreshLatency.enterPhase(LatencyBreakdown.PHASE_ANIMATING, now);
+                    mLoadMoreLatency.enterPhase(LatencyBreakdown.PHASE_ANIMATING, now);
+                } else if (newState == STATE_SHOWING_HEADER_NOTIFICATION
+                        || newState == STATE_SHOWING_FOOTER_NOTIFICATION) {
+                    mRefreshLatency.enterPhase(LatencyBreakdown.PHASE_DELAY, now);
+                    mLoadMoreLatency.enterPhase(LatencyBreakdown.PHASE_DELAY, now);
+                }
+                break;
+        }
     }
 
     /**
@@ -1114,20 +1602,64 @@ public class ChopinLayout extends ViewGroup {
         requestLayout();
     }
 
+    /**
+     * Its clicks are handled by ChopinLayout, set the listener of app with
+     * {@link #setOnHeaderNotificationClickListener(OnClickListener)} instead of the view.
+     *
+     * @param notificationView
+     */
     public void setHeaderNotificationView(@Nullable View notificationView) {
+        hideStagedNotification();
         // Remove last view.
         if (null != mHeaderNotificationView) {
+            if (isHeaderNotificationClickHandled) {
+                isHeaderNotificationClickHandled = false;
+                mHeaderNotificationView.setOnClickListener(null);
+                mHeaderNotificationView.setClickable(false);
+            }
             removeView(mHeaderNotificationView);
         }
         mHeaderNotificationView = notificationView;
         if (null != notificationView) {
             addView(notificationView);
             mHeaderNotificationView.setVisibility(GONE);
+            updateHeaderNotificationClickListener();
+            showStagedNotification();
         } else {
             requestLayout();
         }
     }
 
+    /**
+     * Listen clicks of header notification view, it's called after the staged data is applied if
+     * the view is shown for {@link FreshnessProbe}.
+     *
+     * @param onClickListener
+     */
+    public void setOnHeaderNotificationClickListener(@Nullable OnClickListener onClickListener) {
+        mOnHeaderNotificationClickListener = onClickListener;
+        updateHeaderNotificationClickListener();
+    }
+
+    /**
+     * Set click listener on header notification view ONLY while there is a click to handle, so it's
+     * not clickable otherwise.
+     */
+    private void updateHeaderNotificationClickListener() {
+        boolean isHandled = null != mHeaderNotificationView
+                && (isShowingStagedNotification || null != mOnHeaderNotificationClickListener);
+        if (isHandled == isHeaderNotificationClickHandled) {
+            return;
+        }
+        isHeaderNotificationClickHandled = isHandled;
+        if (isHandled) {
+            mHeaderNotificationView.setOnClickListener(mHeaderNotificationClickListener);
+        } else if (null != mHeaderNotificationView) {
+            mHeaderNotificationView.setOnClickListener(null);
+            mHeaderNotificationView.setClickable(false);
+        }
+    }
+
     public void setFooterNotificationView(@Nullable View notificationView) {
         if (null != mFooterNotificationView) {
             removeView(mFooterNotificationView);
@@ -1196,9 +1728,13 @@ public class ChopinLayout extends ViewGroup {
                     // and pull down will auto trigger load more.
                     if (lastVisibleItemPosition >= totalItemCount - mLoadMoreRemainShowItemCount
                             && dy > 0
-                            && mState != STATE_LOADING) {
-                        mState = STATE_LOADING;
-                        mOnLoadMoreListener.onLoadMore();
+                            && mStateMachine.fire(DragStateMachine.EVENT_AUTO_LOAD_MORE)) {
+                        if (null != mOnLoadMoreListener) {
+                            mOnLoadMoreListener.onLoadMore();
+                        }
+                        if (null != mAsyncLoadMoreRunner) {
+                            mAsyncLoadMoreRunner.start(mAsyncLoadTimeoutMills, false);
+                        }
                     }
                 }
             }
@@ -1210,39 +1746,40 @@ public class ChopinLayout extends ViewGroup {
         });
     }
 
-    public void performRefresh(final long delayMills) {
-        if (0 != getHeight()) {
-            postDelayed(new Runnable() {
-                @Override
-                public void run() {
-                    releaseViewToRefreshingStatus();
-                }
-            }, delayMills);
-        } else {
-            // Perform refresh after rendered view.
-            getViewTreeObserver().addOnGlobalLayoutListener(new ViewTreeObserver.OnGlobalLayoutListener() {
-                @Override
-                public void onGlobalLayout() {
-                    postDelayed(new Runnable() {
-                        @Override
-                        public void run() {
-                            releaseViewToRefreshingStatus();
-                        }
-                    }, delayMills == 0 ? DEFAULT_PERFORM_REFRESH_DELAY : delayMills);
-                    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
-                        getViewTreeObserver().removeOnGlobalLayoutListener(this);
-                    } else {
-                        getViewTreeObserver().removeGlobalOnLayoutListener(this);
-                    }
-                }
-            });
-        }
+    /**
+     * Perform refresh after delay, if it's called before the first frame is drawn, eg. in
+     * Activity#onCreate, refresh is performed once after the first frame.
+     *
+     * @param delayMills
+     */
+    public void performRefresh(long delayMills) {
+        mInitialRefreshScheduler.schedule(delayMills);
     }
 
     public void performRefresh() {
         performRefresh(0);
     }
 
+    /**
+     * If true the refresh performed before the first frame is deferred further until the main thread
+     * is idle, so it does not compete with cold start rendering. The default value is false.
+     *
+     * @param deferInitialRefreshToIdle
+     */
+    public void setDeferInitialRefreshToIdle(boolean deferInitialRefreshToIdle) {
+        mInitialRefreshScheduler.setDeferredToIdle(deferInitialRefreshToIdle);
+    }
+
+    /**
+     * A startup metric.
+     *
+     * @return Delay from attached to window until the initial refresh started in milliseconds, or -1
+     * if {@link #performRefresh()} has not been called before the first frame.
+     */
+    public long getAttachToInitialRefreshMills() {
+        return mInitialRefreshScheduler.getAttachToRefreshMills();
+    }
+
     /**
      * NOTE: It can ONLY be used for {@link android.support.v7.widget.RecyclerView} and {@link android.widget.AbsListView}
      * {@link #setupRecyclerViewAutoLoadMore(RecyclerView)}
@@ -1275,7 +1812,17 @@ public class ChopinLayout extends ViewGroup {
      * @param indicatorScrollResistance
      */
     public void setIndicatorScrollResistance(@FloatRange(from = 0, to = 1.0f) float indicatorScrollResistance) {
-        mIndicatorScrollResistance = indicatorScrollResistance;
+        mDragPhysics.setResistance(indicatorScrollResistance);
+    }
+
+    /**
+     * Set the curve of drag offset, eg. {@link DampingCurve#RUBBER_BAND} keeps a long pull within twice
+     * the indicator height, so the bounce back is short. The default value is {@link DampingCurve#LINEAR}.
+     *
+     * @param dampingCurve
+     */
+    public void setDampingCurve(@Nullable DampingCurve dampingCurve) {
+        mDragPhysics.setDampingCurve(dampingCurve);
     }
 
     /**
@@ -1308,10 +1855,68 @@ public class ChopinLayout extends ViewGroup {
         requestLayout();
     }
 
+    /**
+     * Record all touch events dispatched to this layout, eg. to save a janky drag in field and
+     * replay it in a test, see {@link com.yat3s.chopin.core.GestureRecording}.
+     *
+     * @param gestureRecorder The recorder, null to stop recording.
+     */
+    public void setGestureRecorder(@Nullable GestureRecorder gestureRecorder) {
+        mGestureRecorder = gestureRecorder;
+    }
+
     public void setOnStateChangeListener(OnStateChangeListener onStateChangeListener) {
         mOnStateChangeListener = onStateChangeListener;
     }
 
+    /**
+     * Listen performance statistics of each pulling gesture and each collapse animation after
+     * completed, eg. frames over budget. The statistics object is reused, see {@link GestureStatistics}.
+     */
+    public void setOnGestureStatisticsListener(@Nullable OnGestureStatisticsListener onGestureStatisticsListener) {
+        if (null != onGestureStatisticsListener) {
+            WindowManager windowManager = (WindowManager) getContext().getSystemService(Context.WINDOW_SERVICE);
+            float refreshRate = null == windowManager ? 0 : windowManager.getDefaultDisplay().getRefreshRate();
+            if (refreshRate > 0) {
+                mStatisticsTracker.setFrameBudgetNanos((long) (TimeUnit.SECONDS.toNanos(1) / refreshRate));
+            }
+        }
+        mStatisticsTracker.setListener(onGestureStatisticsListener);
+    }
+
+    /**
+     * Latency from releasing to refresh until collapsed after {@link #refreshComplete()}, in
+     * milliseconds. Call {@link LatencyBreakdown#reset()} to start a new period.
+     */
+    public LatencyBreakdown getRefreshLatency() {
+        return mRefreshLatency;
+    }
+
+    /**
+     * Latency from releasing to load more (or auto load more) until collapsed after
+     * {@link #loadMoreComplete()}, in milliseconds.
+     */
+    public LatencyBreakdown getLoadMoreLatency() {
+        return mLoadMoreLatency;
+    }
+
+    /**
+     * Draw a debug overlay of frame time, touch events and translations per frame, current state,
+     * indicator callback rate and view holder create/bind counts of {@link com.yat3s.chopin.adapter.ChopinAdapter}.
+     * It invalidates this layout every frame while enabled, so use it for debug ONLY.
+     */
+    public void setPerformanceHudEnabled(boolean enabled) {
+        if (enabled == (null != mPerformanceHud)) {
+            return;
+        }
+        mPerformanceHud = enabled ? new PerformanceHud(this, STATE_NAMES) : null;
+        invalidate();
+    }
+
+    public boolean isPerformanceHudEnabled() {
+        return null != mPerformanceHud;
+    }
+
     public void setOnRefreshListener(OnRefreshListener onRefreshListener) {
         mOnRefreshListener = onRefreshListener;
     }
@@ -1320,6 +1925,182 @@ public class ChopinLayout extends ViewGroup {
         mOnLoadMoreListener = onLoadMoreListener;
     }
 
+    /**
+     * Pulls within min interval after the last refresh completed are completed at once without
+     * notifying refresh listener, the default value is 0, every pull refreshes.
+     *
+     * @param minIntervalMills
+     */
+    public void setMinRefreshInterval(long minIntervalMills) {
+        mRefreshPolicy.setMinInterval(minIntervalMills);
+    }
+
+    /**
+     * Within the window after min refresh interval, a pull notifies the listener to serve cached data
+     * and revalidate in background, and completes at once.
+     *
+     * @param windowMills          The stale-while-revalidate window.
+     * @param onRevalidateListener Null to disable.
+     */
+    public void setStaleWhileRevalidate(long windowMills, @Nullable OnRevalidateListener onRevalidateListener) {
+        mRefreshPolicy.setStaleWhileRevalidate(windowMills);
+        mOnRevalidateListener = onRevalidateListener;
+    }
+
+    /**
+     * Start refresh speculatively once header progress passed threshold while dragging, so the
+     * result often arrives by the time content bounces to refreshing position. The pre-refresh is
+     * promoted on release, {@link OnRefreshListener} is NOT notified again, and it's canceled once the
+     * drag is aborted. An async refresh listener is started and canceled as well, its result is held
+     * and {@link AsyncLoader#onLoaded(ChopinLayout, Object)} is ONLY called once promoted.
+     *
+     * @param threshold            Progress of header indicator, eg. 0.8f, 0 to disable.
+     * @param onPreRefreshListener Nullable if there is an async refresh listener.
+     */
+    public void setPreRefreshThreshold(float threshold, @Nullable OnPreRefreshListener onPreRefreshListener) {
+        mPreRefreshThreshold = Math.max(0, threshold);
+        mOnPreRefreshListener = onPreRefreshListener;
+    }
+
+    /**
+     * Decisions of pulls so far, and {@link RefreshPolicy#invalidate()} to force the next pull refreshing.
+     */
+    public RefreshPolicy getRefreshPolicy() {
+        return mRefreshPolicy;
+    }
+
+    /**
+     * Run refresh on executor instead of {@link OnRefreshListener}, its result is applied on main
+     * thread and then refresh completes, or it completes once timed out, see {@link AsyncLoader}.
+     * Starting refresh again or detaching from window cancels the refresh in flight.
+     *
+     * @param executor    Eg. a thread pool of app, it's interrupted once canceled.
+     * @param asyncLoader Null to remove, the refresh in flight is canceled.
+     */
+    public <T> void setOnAsyncRefreshListener(@NonNull Executor executor, @Nullable AsyncLoader<T> asyncLoader) {
+        if (null != mAsyncRefreshRunner) {
+            mAsyncRefreshRunner.cancel();
+        }
+        mAsyncRefreshRunner = null == asyncLoader ? null : new AsyncLoadRunner<>(this, executor, asyncLoader,
+                new AsyncLoadRunner.Callback() {
+                    @Override
+                    public void onComplete(boolean isLoaded) {
+                        if (isLoaded) {
+                            refreshComplete();
+                        } else {
+                            refreshFailed();
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Run load more on executor instead of {@link OnLoadMoreListener}, see
+     * {@link #setOnAsyncRefreshListener(Executor, AsyncLoader)}.
+     */
+    public <T> void setOnAsyncLoadMoreListener(@NonNull Executor executor, @Nullable AsyncLoader<T> asyncLoader) {
+        if (null != mAsyncLoadMoreRunner) {
+            mAsyncLoadMoreRunner.cancel();
+        }
+        mAsyncLoadMoreRunner = null == asyncLoader ? null : new AsyncLoadRunner<>(this, executor, asyncLoader,
+                new AsyncLoadRunner.Callback() {
+                    @Override
+                    public void onComplete(boolean isLoaded) {
+                        loadMoreComplete();
+                    }
+                });
+    }
+
+    /**
+     * The async refresh or load more is canceled and failed with a TimeoutException after it,
+     * 0 means never. The default value is 30 seconds.
+     *
+     * @param timeoutMills
+     */
+    public void setAsyncLoadTimeout(long timeoutMills) {
+        mAsyncLoadTimeoutMills = Math.max(0, timeoutMills);
+    }
+
+    /**
+     * Probe newer data on executor every interval while ChopinLayout is shown, and stage it in
+     * memory. Once staged, header notification view is shown until tapping it or pulling applies
+     * the staged data at once, neither {@link OnRefreshListener} nor network is waited for. ChopinLayout
+     * handles clicks of header notification view, see {@link #setOnHeaderNotificationClickListener}.
+     *
+     * @param executor      Eg. a thread pool of app, it's interrupted once hidden or refreshing.
+     * @param intervalMills Between the end of a probe and the start of the next one.
+     * @param probe         Null to remove, the staged data is dropped.
+     */
+    public <T> void setFreshnessProbe(@NonNull Executor executor, long intervalMills, @Nullable FreshnessProbe<T> probe) {
+        if (null != mFreshnessPrefetcher) {
+            mFreshnessPrefetcher.setRunning(false);
+        }
+        hideStagedNotification();
+        mFreshnessPrefetcher = null == probe ? null : new FreshnessPrefetcher<>(this, executor, probe, intervalMills,
+                new FreshnessPrefetcher.Callback() {
+                    @Override
+                    public void onStaged() {
+                        showStagedNotification();
+                    }
+                });
+        updateFreshnessProbe();
+    }
+
+    public boolean hasStagedData() {
+        return null != mFreshnessPrefetcher && mFreshnessPrefetcher.hasStaged();
+    }
+
+    /**
+     * Apply the data staged by {@link FreshnessProbe} and hide its notification, eg. tapping a
+     * "new items" button of app.
+     *
+     * @return Whether there was staged data.
+     */
+    public boolean applyStagedData() {
+        if (null == mFreshnessPrefetcher || !mFreshnessPrefetcher.apply()) {
+            return false;
+        }
+        hideStagedNotification();
+        return true;
+    }
+
+    /**
+     * Show header notification view for staged data, ONLY at rest, it's shown again once settled
+     * otherwise.
+     */
+    private void showStagedNotification() {
+        if (isShowingStagedNotification || null == mHeaderNotificationView || !hasStagedData()
+                || mStateMachine.getState() != STATE_DEFAULT) {
+            return;
+        }
+        isShowingStagedNotification = true;
+        updateHeaderNotificationClickListener();
+        mHeaderNotificationView.setVisibility(VISIBLE);
+    }
+
+    private void hideStagedNotification() {
+        if (!isShowingStagedNotification) {
+            return;
+        }
+        isShowingStagedNotification = false;
+        updateHeaderNotificationClickListener();
+        if (null != mHeaderNotificationView) {
+            mHeaderNotificationView.setVisibility(GONE);
+        }
+    }
+
+    /**
+     * Cancel the async refresh and load more in flight and complete them, the loaders are not notified.
+     */
+    public void cancelAsyncLoads() {
+        if (null != mAsyncRefreshRunner) {
+            mAsyncRefreshRunner.cancel();
+        }
+        if (null != mAsyncLoadMoreRunner) {
+            mAsyncLoadMoreRunner.cancel();
+        }
+    }
+
     // Configure custom layout params.
     @Override
     protected boolean checkLayoutParams(ViewGroup.LayoutParams p) {
@@ -1368,7 +2149,124 @@ public class ChopinLayout extends ViewGroup {
         void onLoadMore();
     }
 
+    public interface OnPreRefreshListener {
+        /**
+         * Start refresh speculatively, complete it as usual with {@link #refreshComplete()}.
+         */
+        void onPreRefresh(ChopinLayout layout);
+
+        /**
+         * The drag is aborted before the pre-refresh completed, cancel it.
+         */
+        void onCancelPreRefresh(ChopinLayout layout);
+    }
+
+    public interface OnRevalidateListener {
+        /**
+         * Apply cached data at once and refresh it in background, refresh completes right after it.
+         */
+        void onRevalidate(ChopinLayout layout);
+    }
+
+    /**
+     * A delayed transition carries the generation of state machine while it's posted, it's ignored
+     * if the state has moved on, and it's deferred to release while user is touching.
+     */
+    private abstract class PendingTransition implements Runnable {
+        private int mGeneration;
+        private boolean isPosted, isDeferred, isParked;
+        private long mRunAtMillis, mParkedDelayMillis;
+
+        void post(long delayMillis) {
+            cancel();
+            mGeneration = mStateMachine.getGeneration();
+            if (isPaused) {
+                isParked = true;
+                mParkedDelayMillis = delayMillis;
+                return;
+            }
+            isPosted = true;
+            mRunAtMillis = SystemClock.uptimeMillis() + delayMillis;
+            postDelayed(this, delayMillis);
+        }
+
+        void cancel() {
+            if (isPosted) {
+                removeCallbacks(this);
+                isPosted = false;
+            }
+            isDeferred = false;
+            isParked = false;
+        }
+
+        /**
+         * Stop the countdown while paused, the rest of delay is kept.
+         */
+        void park() {
+            if (isPosted) {
+                removeCallbacks(this);
+                isPosted = false;
+                isParked = true;
+                mParkedDelayMillis = Math.max(0, mRunAtMillis - SystemClock.uptimeMillis());
+            }
+        }
+
+        void unpark() {
+            if (isParked) {
+                isParked = false;
+                isPosted = true;
+                mRunAtMillis = SystemClock.uptimeMillis() + mParkedDelayMillis;
+                postDelayed(this, mParkedDelayMillis);
+            }
+        }
+
+        /**
+         * Keep this transition for current state.
+         */
+        void rebase() {
+            mGeneration = mStateMachine.getGeneration();
+        }
+
+        /**
+         * @return Whether it was deferred and has run.
+         */
+        boolean runDeferred() {
+            if (!isDeferred) {
+                return false;
+            }
+            isDeferred = false;
+            return runIfCurrent();
+        }
+
+        @Override
+        public final void run() {
+            isPosted = false;
+            if (isTouching) {
+                isDeferred = true;
+                return;
+            }
+            runIfCurrent();
+        }
+
+        private boolean runIfCurrent() {
+            if (mGeneration != mStateMachine.getGeneration()) {
+                return false;
+            }
+            onTransition();
+            return true;
+        }
+
+        abstract void onTransition();
+    }
+
     public interface OnStateChangeListener {
         void onStateChanged(ChopinLayout layout, int newState);
     }
+
+    public interface OnGestureStatisticsListener {
+        /**
+         * @param statistics It is reused after this callback, copy the values you need.
+         */
+        void onGestureStatistics(ChopinLayout layout, GestureStatistics statistics);
+    }
 }
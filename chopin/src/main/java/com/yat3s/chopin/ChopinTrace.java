@@ -0,0 +1,143 @@
+package com.yat3s.chopin;
+
+import android.os.Build;
+import android.support.v4.os.TraceCompat;
+import android.util.Log;
+
+import java.lang.reflect.Method;
+
+/**
+ * Systrace / Perfetto sections and counters of Chopin, it's disabled by default and every call
+ * returns at once while disabled, so it costs nothing in production.
+ * <p>
+ * Sections are traced by {@link TraceCompat}. Async sections and counters are public since API 29,
+ * below it they are hidden methods of android.os.Trace and called by reflection on API 18+.
+ */
+public final class ChopinTrace {
+    private static final String TAG = "ChopinTrace";
+
+    private static volatile boolean sEnabled;
+
+    // Written once in reflect() after the methods below, so they are visible to readers of it.
+    private static volatile boolean sReflected;
+    private static boolean sAvailable;
+    private static Method sSetCounterMethod, sBeginAsyncMethod, sEndAsyncMethod;
+    private static long sTraceTagApp;
+
+    private ChopinTrace() {
+    }
+
+    /**
+     * Enable tracing at runtime, eg. from a debug setting, the app must also be traced by
+     * systrace or Perfetto with its package name.
+     */
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    /**
+     * @return Whether the section is began, pass it to {@link #endSection(boolean)} so that sections
+     * keep balanced even if tracing is switched in between.
+     */
+    public static boolean beginSection(String sectionName) {
+        if (!sEnabled) {
+            return false;
+        }
+        TraceCompat.beginSection(sectionName);
+        return true;
+    }
+
+    public static void endSection(boolean began) {
+        if (began) {
+            TraceCompat.endSection();
+        }
+    }
+
+    /**
+     * Begin an async slice which may end in another frame, cookie identifies the track together
+     * with the name, eg. identity hash code of the view.
+     */
+    public static void beginAsyncSection(String sectionName, int cookie) {
+        if (sEnabled && isAvailable() && null != sBeginAsyncMethod) {
+            invoke(sBeginAsyncMethod, sectionName, cookie);
+        }
+    }
+
+    public static void endAsyncSection(String sectionName, int cookie) {
+        if (sEnabled && isAvailable() && null != sEndAsyncMethod) {
+            invoke(sEndAsyncMethod, sectionName, cookie);
+        }
+    }
+
+    public static void setCounter(String counterName, int counterValue) {
+        if (sEnabled && isAvailable() && null != sSetCounterMethod) {
+            if (Build.VERSION.SDK_INT >= 29) {
+                invoke(sSetCounterMethod, counterName, (long) counterValue);
+            } else {
+                invoke(sSetCounterMethod, counterName, counterValue);
+            }
+        }
+    }
+
+    private static void invoke(Method method, String name, Object value) {
+        try {
+            if (Build.VERSION.SDK_INT >= 29) {
+                method.invoke(null, name, value);
+            } else {
+                method.invoke(null, sTraceTagApp, name, value);
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Unable to call " + method.getName(), e);
+            sEnabled = false;
+        }
+    }
+
+    /**
+     * The arguments are boxed by reflection, so it is ONLY called while tracing is enabled.
+     *
+     * @return false if below API 18.
+     */
+    private static boolean isAvailable() {
+        if (!sReflected) {
+            reflect();
+        }
+        return sAvailable;
+    }
+
+    /**
+     * Look up methods of android.os.Trace once.
+     */
+    private static synchronized void reflect() {
+        if (sReflected) {
+            return;
+        }
+        if (Build.VERSION.SDK_INT < 18) {
+            sReflected = true;
+            return;
+        }
+        try {
+            Class<?> traceClass = Class.forName("android.os.Trace");
+            if (Build.VERSION.SDK_INT >= 29) {
+                sSetCounterMethod = traceClass.getMethod("setCounter", String.class, long.class);
+                sBeginAsyncMethod = traceClass.getMethod("beginAsyncSection", String.class, int.class);
+                sEndAsyncMethod = traceClass.getMethod("endAsyncSection", String.class, int.class);
+            } else {
+                sTraceTagApp = traceClass.getField("TRACE_TAG_APP").getLong(null);
+                sSetCounterMethod = traceClass.getMethod("traceCounter", long.class, String.class, int.class);
+                sBeginAsyncMethod = traceClass.getMethod("asyncTraceBegin", long.class, String.class, int.class);
+                sEndAsyncMethod = traceClass.getMethod("asyncTraceEnd", long.class, String.class, int.class);
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Async sections and counters are unavailable", e);
+            sSetCounterMethod = null;
+            sBeginAsyncMethod = null;
+            sEndAsyncMethod = null;
+        }
+        sAvailable = null != sSetCounterMethod || null != sBeginAsyncMethod;
+        sReflected = true;
+    }
+}
@@ -0,0 +1,92 @@
+package com.yat3s.chopin;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hand off completions from any thread to main thread without a lock. Pending completions are bits
+ * of a single atomic state word together with a posted bit, so a burst of completions from several
+ * threads posts ONE runnable which applies each kind of completion once.
+ */
+final class CompletionHandOff implements Runnable {
+    static final int REFRESH = 1;
+    static final int LOAD_MORE = 1 << 1;
+
+    // The runnable has been posted and not run yet.
+    private static final int POSTED = 1 << 2;
+
+    interface Callback {
+        /**
+         * Called on main thread.
+         *
+         * @param completions Bits of REFRESH and LOAD_MORE.
+         */
+        void onComplete(int completions, long refreshCollapseDelay, long loadMoreCollapseDelay);
+    }
+
+    private final AtomicInteger mState = new AtomicInteger();
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final Callback mCallback;
+
+    // Written before the state word is updated, so they are visible once the bit is read. The last
+    // delay wins while coalescing.
+    private volatile long mRefreshCollapseDelay, mLoadMoreCollapseDelay;
+
+    CompletionHandOff(Callback callback) {
+        mCallback = callback;
+    }
+
+    static boolean isMainThread() {
+        return Looper.myLooper() == Looper.getMainLooper();
+    }
+
+    /**
+     * Called on any thread.
+     *
+     * @param completion REFRESH or LOAD_MORE.
+     */
+    void complete(int completion, long collapseDelay) {
+        if (completion == REFRESH) {
+            mRefreshCollapseDelay = collapseDelay;
+        } else {
+            mLoadMoreCollapseDelay = collapseDelay;
+        }
+        while (true) {
+            int state = mState.get();
+            int newState = state | completion | POSTED;
+            if (newState == state) {
+                // Coalesced into the pending one.
+                return;
+            }
+            if (mState.compareAndSet(state, newState)) {
+                if ((state & POSTED) == 0) {
+                    mMainHandler.post(this);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Drop the pending completion, it's coalesced into the one applied directly on main thread.
+     */
+    void clear(int completion) {
+        while (true) {
+            int state = mState.get();
+            if ((state & completion) == 0 || mState.compareAndSet(state, state & ~completion)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        // Completions after this are posted again.
+        int completions = mState.getAndSet(0) & (REFRESH | LOAD_MORE);
+        if (completions != 0) {
+            mCallback.onComplete(completions, mRefreshCollapseDelay, mLoadMoreCollapseDelay);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.yat3s.chopin;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Run a {@link FreshnessProbe} on executor every interval while running, and keep its result
+ * staged until applied. Probing stops while something is staged, there is nothing newer to show
+ * until it's applied. Every method is called on main thread.
+ */
+final class FreshnessPrefetcher<T> implements Runnable {
+    private static final String TAG = "FreshnessPrefetcher";
+
+    interface Callback {
+        /**
+         * Called on main thread once a result is staged.
+         */
+        void onStaged();
+    }
+
+    private final ChopinLayout mChopinLayout;
+    private final Executor mExecutor;
+    private final FreshnessProbe<T> mProbe;
+    private final long mIntervalMills;
+    private final Callback mCallback;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    private boolean isRunning;
+
+    // The probe in flight, a delivery of any other task is stale.
+    private FutureTask<T> mTask;
+
+    private T mStaged;
+
+    // When the last probe finished, the next one is scheduled relative to it.
+    private long mLastProbeTime;
+
+    FreshnessPrefetcher(ChopinLayout chopinLayout, Executor executor, FreshnessProbe<T> probe,
+                        long intervalMills, Callback callback) {
+        mChopinLayout = chopinLayout;
+        mExecutor = executor;
+        mProbe = probe;
+        mIntervalMills = Math.max(0, intervalMills);
+        mCallback = callback;
+        // The first probe starts once running.
+        mLastProbeTime = SystemClock.uptimeMillis() - mIntervalMills;
+    }
+
+    /**
+     * Probe while the layout is shown to user, the probe in flight is canceled once stopped.
+     */
+    void setRunning(boolean running) {
+        if (running == isRunning) {
+            return;
+        }
+        isRunning = running;
+        if (running) {
+            scheduleNext();
+        } else {
+            mMainHandler.removeCallbacks(this);
+            cancelTask();
+        }
+    }
+
+    boolean hasStaged() {
+        return null != mStaged;
+    }
+
+    /**
+     * Apply the staged data, probing goes on after an interval.
+     *
+     * @return Whether there was staged data.
+     */
+    boolean apply() {
+        if (null == mStaged) {
+            return false;
+        }
+        T staged = mStaged;
+        mStaged = null;
+        mLastProbeTime = SystemClock.uptimeMillis();
+        scheduleNext();
+        mProbe.onApply(mChopinLayout, staged);
+        return true;
+    }
+
+    /**
+     * Cancel the probe in flight, eg. a refresh has started and its result would be stale.
+     */
+    void discard() {
+        if (null == mTask) {
+            return;
+        }
+        cancelTask();
+        mLastProbeTime = SystemClock.uptimeMillis();
+        scheduleNext();
+    }
+
+    @Override
+    public void run() {
+        if (!isRunning || null != mTask || null != mStaged) {
+            return;
+        }
+        final FutureTask<T> task = new FutureTask<T>(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                return mProbe.probe();
+            }
+        }) {
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    return;
+                }
+                final FutureTask<T> doneTask = this;
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        deliver(doneTask);
+                    }
+                });
+            }
+        };
+        mTask = task;
+        try {
+            mExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "Probe rejected", e);
+            mTask = null;
+            mLastProbeTime = SystemClock.uptimeMillis();
+            scheduleNext();
+        }
+    }
+
+    private void scheduleNext() {
+        mMainHandler.removeCallbacks(this);
+        if (!isRunning || null != mTask || null != mStaged) {
+            return;
+        }
+        long delay = mLastProbeTime + mIntervalMills - SystemClock.uptimeMillis();
+        mMainHandler.postDelayed(this, Math.max(0, delay));
+    }
+
+    private void cancelTask() {
+        if (null != mTask) {
+            mTask.cancel(true);
+            mTask = null;
+        }
+    }
+
+    private void deliver(FutureTask<T> task) {
+        if (task != mTask) {
+            return;
+        }
+        mTask = null;
+        mLastProbeTime = SystemClock.uptimeMillis();
+        T result = null;
+        try {
+            result = task.get();
+        } catch (ExecutionException e) {
+            Log.w(TAG, "Probe failed", null == e.getCause() ? e : e.getCause());
+        } catch (InterruptedException e) {
+            Log.w(TAG, "Probe interrupted", e);
+        }
+        if (null == result) {
+            scheduleNext();
+            return;
+        }
+        mStaged = result;
+        mProbe.onStaged(mChopinLayout, result);
+        mCallback.onStaged();
+    }
+}
@@ -0,0 +1,32 @@
+package com.yat3s.chopin;
+
+import android.support.annotation.Nullable;
+
+/**
+ * Check for newer data in background while ChopinLayout is shown, see
+ * {@link ChopinLayout#setFreshnessProbe(java.util.concurrent.Executor, long, FreshnessProbe)}.
+ * Newer data is staged in memory and announced by header notification view, tapping it or pulling
+ * applies the staged data at once without waiting for network.
+ */
+public interface FreshnessProbe<T> {
+
+    /**
+     * Called on a thread of executor every interval until something is staged. It's interrupted
+     * once ChopinLayout is hidden or a refresh starts, a failure is retried next interval.
+     *
+     * @return Newer data to stage, null if there is nothing new.
+     */
+    @Nullable
+    T probe() throws Exception;
+
+    /**
+     * Called on main thread once the result of {@link #probe()} is staged, right before header
+     * notification view is shown, eg. bind "N new items" to it.
+     */
+    void onStaged(ChopinLayout chopinLayout, T staged);
+
+    /**
+     * Called on main thread to apply the staged data, eg. dispatch the diff to adapter.
+     */
+    void onApply(ChopinLayout chopinLayout, T staged);
+}
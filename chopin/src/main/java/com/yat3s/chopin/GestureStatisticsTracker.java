@@ -0,0 +1,196 @@
+package com.yat3s.chopin;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.Choreographer;
+import android.view.MotionEvent;
+
+import com.yat3s.chopin.core.GestureStatistics;
+
+/**
+ * Fill {@link GestureStatistics} for {@link ChopinLayout}, and notify the listener once the gesture
+ * or the collapse animation has settled. Nothing is tracked while there is no listener.
+ * <p>
+ * Frames are observed with Choreographer on API 16+, and with a runnable posted every frame budget
+ * below it. The frame observer also checks whether the layout has settled.
+ */
+final class GestureStatisticsTracker {
+
+    private final ChopinLayout mChopinLayout;
+    private final GestureStatistics mStatistics = new GestureStatistics();
+
+    private ChopinLayout.OnGestureStatisticsListener mListener;
+
+    private boolean isTracking, isTouching, isFrameScheduled;
+
+    private FrameCallbackApi16 mFrameCallback;
+
+    private final Runnable mFrameRunnable = new Runnable() {
+        @Override
+        public void run() {
+            onFrame(System.nanoTime());
+        }
+    };
+
+    GestureStatisticsTracker(ChopinLayout chopinLayout) {
+        mChopinLayout = chopinLayout;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            mFrameCallback = new FrameCallbackApi16(this);
+        }
+    }
+
+    void setListener(ChopinLayout.OnGestureStatisticsListener listener) {
+        if (null == listener) {
+            stop();
+        }
+        mListener = listener;
+    }
+
+    void setFrameBudgetNanos(long frameBudgetNanos) {
+        mStatistics.setFrameBudgetNanos(frameBudgetNanos);
+    }
+
+    /**
+     * @param actionMasked Masked action of the touch event dispatched to ChopinLayout.
+     */
+    void onTouchEvent(int actionMasked) {
+        if (null == mListener) {
+            return;
+        }
+        if (actionMasked == MotionEvent.ACTION_DOWN) {
+            // A new gesture interrupts the collapse animation.
+            if (isTracking) {
+                finish();
+            }
+            begin(GestureStatistics.TYPE_GESTURE);
+        }
+        if (!isTracking) {
+            return;
+        }
+        mStatistics.countTouchEvent();
+        if (actionMasked == MotionEvent.ACTION_DOWN) {
+            isTouching = true;
+        } else if (actionMasked == MotionEvent.ACTION_UP || actionMasked == MotionEvent.ACTION_CANCEL) {
+            isTouching = false;
+            mStatistics.onRelease(System.nanoTime());
+            // Frames are observed since the first translation, so nothing has been translated and
+            // there will be no release animation, eg. scrolling the content. It is dropped silently.
+            if (!isFrameScheduled) {
+                finish();
+            }
+        }
+    }
+
+    void onTranslation() {
+        if (isTracking) {
+            mStatistics.countTranslation();
+            scheduleFrame();
+        }
+    }
+
+    void onIndicatorCallback() {
+        if (isTracking) {
+            mStatistics.countIndicatorCallback();
+        }
+    }
+
+    /**
+     * Called while a collapse animation is starting, it begins a {@link GestureStatistics#TYPE_COLLAPSE}
+     * unless a gesture is being tracked.
+     */
+    void onCollapse() {
+        if (null == mListener) {
+            return;
+        }
+        if (!isTracking) {
+            begin(GestureStatistics.TYPE_COLLAPSE);
+        }
+        scheduleFrame();
+    }
+
+    void onReachRefreshPosition() {
+        if (isTracking) {
+            mStatistics.onReachRefreshPosition(System.nanoTime());
+        }
+    }
+
+    void stop() {
+        isTracking = false;
+        isTouching = false;
+        unscheduleFrame();
+    }
+
+    private void begin(int type) {
+        mStatistics.reset(type, System.nanoTime());
+        isTracking = true;
+    }
+
+    private void finish() {
+        unscheduleFrame();
+        isTracking = false;
+        mStatistics.finish(System.nanoTime());
+        if (null != mListener && (mStatistics.getType() == GestureStatistics.TYPE_COLLAPSE
+                || mStatistics.getTranslationCount() > 0)) {
+            mListener.onGestureStatistics(mChopinLayout, mStatistics);
+        }
+    }
+
+    private void onFrame(long frameTimeNanos) {
+        isFrameScheduled = false;
+        if (!isTracking) {
+            return;
+        }
+        mStatistics.onFrame(frameTimeNanos, isTouching);
+        if (!isTouching && mChopinLayout.isSettled()) {
+            finish();
+        } else {
+            scheduleFrame();
+        }
+    }
+
+    private void scheduleFrame() {
+        if (isFrameScheduled) {
+            return;
+        }
+        isFrameScheduled = true;
+        if (null != mFrameCallback) {
+            mFrameCallback.post();
+        } else {
+            mChopinLayout.postDelayed(mFrameRunnable, mStatistics.getFrameBudgetNanos() / 1000000);
+        }
+    }
+
+    private void unscheduleFrame() {
+        if (!isFrameScheduled) {
+            return;
+        }
+        isFrameScheduled = false;
+        if (null != mFrameCallback) {
+            mFrameCallback.remove();
+        } else {
+            mChopinLayout.removeCallbacks(mFrameRunnable);
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static class FrameCallbackApi16 implements Choreographer.FrameCallback {
+        private final GestureStatisticsTracker mTracker;
+
+        FrameCallbackApi16(GestureStatisticsTracker tracker) {
+            mTracker = tracker;
+        }
+
+        void post() {
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        void remove() {
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mTracker.onFrame(frameTimeNanos);
+        }
+    }
+}
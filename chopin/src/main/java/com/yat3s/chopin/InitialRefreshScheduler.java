@@ -0,0 +1,174 @@
+package com.yat3s.chopin;
+
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.SystemClock;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+/**
+ * Schedule {@link ChopinLayout#performRefresh(long)} which is called before the first frame, eg. in
+ * Activity#onCreate. The refresh is performed once after the first frame is drawn, and optionally
+ * deferred until the main thread is idle, so it does not compete with cold start rendering.
+ * <p>
+ * It also measures the delay from attached to window until the initial refresh started.
+ */
+final class InitialRefreshScheduler implements ViewTreeObserver.OnPreDrawListener,
+        MessageQueue.IdleHandler, Runnable {
+
+    interface Callback {
+        void onPerformRefresh(long delayMills);
+    }
+
+    private final View mView;
+    private final Callback mCallback;
+
+    private boolean isDeferredToIdle;
+
+    // Whether a frame has been drawn since attached.
+    private boolean isFirstFrameDrawn;
+
+    // Waiting for the first frame or idle.
+    private boolean isPending;
+
+    // Initial refresh has been performed and not started yet.
+    private boolean isMeasuring;
+
+    private boolean isPreDrawListenerAdded, isIdleHandlerAdded;
+    private long mDelayMills;
+    private long mAttachTime = -1, mAttachToRefreshMills = -1;
+
+    InitialRefreshScheduler(View view, Callback callback) {
+        mView = view;
+        mCallback = callback;
+    }
+
+    void setDeferredToIdle(boolean deferredToIdle) {
+        isDeferredToIdle = deferredToIdle;
+    }
+
+    boolean isDeferredToIdle() {
+        return isDeferredToIdle;
+    }
+
+    /**
+     * Perform refresh at once if the first frame has been drawn, otherwise after it. Calling it again
+     * while pending only updates the delay, the refresh is still performed once.
+     */
+    void schedule(long delayMills) {
+        mDelayMills = delayMills;
+        if (isFirstFrameDrawn) {
+            cancel();
+            mCallback.onPerformRefresh(delayMills);
+            return;
+        }
+        isPending = true;
+        addPreDrawListener();
+    }
+
+    void cancel() {
+        isPending = false;
+        isMeasuring = false;
+        removeCallbacks();
+    }
+
+    void onAttachedToWindow() {
+        mAttachTime = SystemClock.uptimeMillis();
+        if (isPending) {
+            addPreDrawListener();
+        }
+    }
+
+    /**
+     * The pending refresh is kept and scheduled again after attached.
+     */
+    void onDetachedFromWindow() {
+        isFirstFrameDrawn = false;
+        removeCallbacks();
+    }
+
+    void onDraw() {
+        isFirstFrameDrawn = true;
+    }
+
+    /**
+     * Called once refresh started, it's recorded if it's the initial refresh.
+     */
+    void onRefreshStarted() {
+        if (isMeasuring && mAttachTime >= 0) {
+            mAttachToRefreshMills = SystemClock.uptimeMillis() - mAttachTime;
+            ChopinTrace.setCounter("ChopinLayout attach to refresh", (int) mAttachToRefreshMills);
+        }
+        isMeasuring = false;
+    }
+
+    /**
+     * @return Delay from attached to window until the initial refresh started, or -1 if it has not
+     * started.
+     */
+    long getAttachToRefreshMills() {
+        return mAttachToRefreshMills;
+    }
+
+    @Override
+    public boolean onPreDraw() {
+        removePreDrawListener();
+        // Runs after this frame is drawn.
+        mView.post(this);
+        return true;
+    }
+
+    @Override
+    public void run() {
+        isFirstFrameDrawn = true;
+        if (!isPending) {
+            return;
+        }
+        if (isDeferredToIdle) {
+            if (!isIdleHandlerAdded) {
+                Looper.myQueue().addIdleHandler(this);
+                isIdleHandlerAdded = true;
+            }
+        } else {
+            performRefresh();
+        }
+    }
+
+    @Override
+    public boolean queueIdle() {
+        isIdleHandlerAdded = false;
+        if (isPending) {
+            performRefresh();
+        }
+        return false;
+    }
+
+    private void performRefresh() {
+        isPending = false;
+        isMeasuring = true;
+        mCallback.onPerformRefresh(mDelayMills);
+    }
+
+    private void addPreDrawListener() {
+        if (!isPreDrawListenerAdded) {
+            mView.getViewTreeObserver().addOnPreDrawListener(this);
+            isPreDrawListenerAdded = true;
+        }
+    }
+
+    private void removePreDrawListener() {
+        if (isPreDrawListenerAdded) {
+            mView.getViewTreeObserver().removeOnPreDrawListener(this);
+            isPreDrawListenerAdded = false;
+        }
+    }
+
+    private void removeCallbacks() {
+        removePreDrawListener();
+        mView.removeCallbacks(this);
+        if (isIdleHandlerAdded) {
+            Looper.myQueue().removeIdleHandler(this);
+            isIdleHandlerAdded = false;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.yat3s.chopin;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.os.SystemClock;
+import android.support.v7.widget.RecyclerView;
+import android.util.TypedValue;
+import android.view.View;
+
+import com.yat3s.chopin.adapter.ViewHolderCounter;
+
+/**
+ * A debug overlay drawn over {@link ChopinLayout}, it shows the cost of each frame without
+ * attaching a profiler, see {@link ChopinLayout#setPerformanceHudEnabled(boolean)}.
+ * <p>
+ * Frame time is the interval between two draws, the layout keeps invalidating itself while the
+ * HUD is shown. Counts of touch events and translations are per frame, indicator callbacks and
+ * view holder create/bind are per second.
+ */
+final class PerformanceHud {
+    private static final long WINDOW_MILLIS = 1000;
+    private static final float TEXT_SIZE_DP = 11;
+    private static final float PADDING_DP = 6;
+    private static final int BACKGROUND_COLOR = 0xB3000000;
+
+    private final Paint mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mBackgroundPaint = new Paint();
+    private final float mPadding, mLineHeight;
+
+    // Reused for each line, so drawing the HUD does not allocate text.
+    private final StringBuilder mLine = new StringBuilder();
+    private final String[] mStateNames;
+
+    // Counted in current frame and shown of last frame.
+    private int mTouchEventCount, mTranslationCount;
+    private int mFrameTouchEventCount, mFrameTranslationCount;
+    private long mLastDrawNanos, mFrameNanos;
+
+    // Counted in current window and shown of last window.
+    private long mWindowStartMillis, mWindowMaxFrameNanos, mMaxFrameNanos;
+    private int mWindowIndicatorCallbackCount, mIndicatorCallbackRate;
+    private int mWindowStartCreatedCount, mWindowStartBoundCount;
+    private int mCreatedRate, mBoundRate;
+
+    PerformanceHud(View view, String[] stateNames) {
+        mStateNames = stateNames;
+        float density = view.getResources().getDisplayMetrics().density;
+        mPadding = PADDING_DP * density;
+        mTextPaint.setColor(Color.WHITE);
+        mTextPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, TEXT_SIZE_DP,
+                view.getResources().getDisplayMetrics()));
+        mLineHeight = mTextPaint.getFontSpacing();
+        mBackgroundPaint.setColor(BACKGROUND_COLOR);
+    }
+
+    void countTouchEvent() {
+        mTouchEventCount++;
+    }
+
+    void countTranslation() {
+        mTranslationCount++;
+    }
+
+    void countIndicatorCallback() {
+        mWindowIndicatorCallbackCount++;
+    }
+
+    /**
+     * @param state       Current state of ChopinLayout.
+     * @param contentView The view nested in ChopinLayout, holder counts are shown if it's a
+     *                    RecyclerView with {@link ViewHolderCounter} adapter.
+     */
+    void draw(Canvas canvas, int state, View contentView) {
+        long nowNanos = System.nanoTime();
+        mFrameNanos = mLastDrawNanos == 0 ? 0 : nowNanos - mLastDrawNanos;
+        mLastDrawNanos = nowNanos;
+        mFrameTouchEventCount = mTouchEventCount;
+        mFrameTranslationCount = mTranslationCount;
+        mTouchEventCount = 0;
+        mTranslationCount = 0;
+
+        ViewHolderCounter counter = null;
+        if (contentView instanceof RecyclerView
+                && ((RecyclerView) contentView).getAdapter() instanceof ViewHolderCounter) {
+            counter = (ViewHolderCounter) ((RecyclerView) contentView).getAdapter();
+        }
+        updateWindow(counter);
+
+        float top = mPadding;
+        float width = mTextPaint.measureText("indicator callbacks 0000/s") + mPadding * 2;
+        int lineCount = null == counter ? 4 : 5;
+        canvas.drawRect(0, 0, width, top + mLineHeight * lineCount + mPadding, mBackgroundPaint);
+
+        mLine.setLength(0);
+        mLine.append("frame ");
+        appendMillis(mFrameNanos);
+        mLine.append(" max ");
+        appendMillis(mMaxFrameNanos);
+        top = drawLine(canvas, top);
+
+        mLine.setLength(0);
+        mLine.append("touch ").append(mFrameTouchEventCount).append(" move ").append(mFrameTranslationCount)
+                .append(" /frame");
+        top = drawLine(canvas, top);
+
+        mLine.setLength(0);
+        if (state >= 0 && state < mStateNames.length) {
+            mLine.append(mStateNames[state]);
+        } else {
+            mLine.append("STATE_").append(state);
+        }
+        top = drawLine(canvas, top);
+
+        mLine.setLength(0);
+        mLine.append("indicator callbacks ").append(mIndicatorCallbackRate).append("/s");
+        top = drawLine(canvas, top);
+
+        if (null != counter) {
+            mLine.setLength(0);
+            mLine.append("holders ").append(counter.getCreatedViewHolderCount()).append('/')
+                    .append(counter.getBoundViewHolderCount()).append(" +").append(mCreatedRate)
+                    .append('/').append(mBoundRate).append("/s");
+            drawLine(canvas, top);
+        }
+    }
+
+    private void updateWindow(ViewHolderCounter counter) {
+        mWindowMaxFrameNanos = Math.max(mWindowMaxFrameNanos, mFrameNanos);
+        long nowMillis = SystemClock.uptimeMillis();
+        int createdCount = null == counter ? 0 : counter.getCreatedViewHolderCount();
+        int boundCount = null == counter ? 0 : counter.getBoundViewHolderCount();
+        if (mWindowStartMillis == 0) {
+            mWindowStartMillis = nowMillis;
+            mWindowStartCreatedCount = createdCount;
+            mWindowStartBoundCount = boundCount;
+            return;
+        }
+        long windowMillis = nowMillis - mWindowStartMillis;
+        if (windowMillis < WINDOW_MILLIS) {
+            return;
+        }
+        mMaxFrameNanos = mWindowMaxFrameNanos;
+        mIndicatorCallbackRate = (int) (mWindowIndicatorCallbackCount * WINDOW_MILLIS / windowMillis);
+        mCreatedRate = (int) ((createdCount - mWindowStartCreatedCount) * WINDOW_MILLIS / windowMillis);
+        mBoundRate = (int) ((boundCount - mWindowStartBoundCount) * WINDOW_MILLIS / windowMillis);
+        mWindowStartMillis = nowMillis;
+        mWindowMaxFrameNanos = 0;
+        mWindowIndicatorCallbackCount = 0;
+        mWindowStartCreatedCount = createdCount;
+        mWindowStartBoundCount = boundCount;
+    }
+
+    int getFrameTouchEventCount() {
+        return mFrameTouchEventCount;
+    }
+
+    int getFrameTranslationCount() {
+        return mFrameTranslationCount;
+    }
+
+    int getIndicatorCallbackRate() {
+        return mIndicatorCallbackRate;
+    }
+
+    int getCreatedRate() {
+        return mCreatedRate;
+    }
+
+    int getBoundRate() {
+        return mBoundRate;
+    }
+
+    private void appendMillis(long nanos) {
+        long tenthMillis = nanos / 100000;
+        mLine.append(tenthMillis / 10).append('.').append(tenthMillis % 10).append("ms");
+    }
+
+    private float drawLine(Canvas canvas, float top) {
+        canvas.drawText(mLine, 0, mLine.length(), mPadding, top - mTextPaint.ascent(), mTextPaint);
+        return top + mLineHeight;
+    }
+}
@@ -0,0 +1,134 @@
+package com.yat3s.chopin.adapter;
+
+import android.content.Context;
+import android.support.annotation.LayoutRes;
+import android.support.v7.widget.RecyclerView;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.yat3s.chopin.ChopinTrace;
+
+/**
+ * The holder, view type, click and counting logic shared by {@link ChopinAdapter},
+ * {@link IntChopinAdapter} and {@link LongChopinAdapter}, subclasses ONLY store the data.
+ */
+public abstract class BaseChopinAdapter<VH extends ChopinViewHolder> extends RecyclerView.Adapter<VH>
+        implements ViewHolderCounter {
+
+    // The context from recycler view.
+    protected Context mContext;
+
+    // The layout inflater to inflate all item view.
+    protected LayoutInflater mInflater;
+
+    // Built once, so tracing does not allocate per create/bind.
+    private final String mCreateSectionName, mBindSectionName;
+
+    // Counted for ViewHolderCounter.
+    private int mCreatedViewHolderCount, mBoundViewHolderCount;
+
+    BaseChopinAdapter(Context context, String traceName) {
+        mContext = context;
+        mInflater = LayoutInflater.from(context);
+        mCreateSectionName = traceName + "#onCreateViewHolder";
+        mBindSectionName = traceName + "#onBindViewHolder";
+    }
+
+    /**
+     * @return The item layout id of position.
+     */
+    @LayoutRes
+    abstract int getItemViewLayoutIdAt(int position);
+
+    abstract void bindItemView(VH holder, int position);
+
+    abstract boolean hasOnItemClickListener();
+
+    abstract boolean hasOnItemLongClickListener();
+
+    abstract void dispatchItemClick(View view, int position);
+
+    abstract void dispatchItemLongClick(View view, int position);
+
+    /**
+     * The view type is shared by all adapters with the same layout id,
+     * see {@link ViewTypeCache}, so this adapter can work with a shared RecycledViewPool.
+     */
+    @Override
+    public int getItemViewType(int position) {
+        return ViewTypeCache.obtainViewType(getItemViewLayoutIdAt(position));
+    }
+
+    /**
+     * @param viewType The view type from {@link #getItemViewType(int)}.
+     * @return The item layout id to inflate.
+     */
+    @LayoutRes
+    int getLayoutIdOfViewType(int viewType) {
+        return ViewTypeCache.getLayoutId(viewType);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public VH onCreateViewHolder(ViewGroup parent, int viewType) {
+        boolean traced = ChopinTrace.beginSection(mCreateSectionName);
+        mCreatedViewHolderCount++;
+        try {
+            ChopinViewHolder chopinViewHolder = new ChopinViewHolder(mInflater.inflate(getLayoutIdOfViewType(viewType),
+                    parent, false));
+            bindClickListenerToItemView(chopinViewHolder);
+            return (VH) chopinViewHolder;
+        } finally {
+            ChopinTrace.endSection(traced);
+        }
+    }
+
+    @Override
+    public void onBindViewHolder(VH holder, int position) {
+        boolean traced = ChopinTrace.beginSection(mBindSectionName);
+        mBoundViewHolderCount++;
+        try {
+            bindItemView(holder, position);
+        } finally {
+            ChopinTrace.endSection(traced);
+        }
+    }
+
+    protected final void bindClickListenerToItemView(final ChopinViewHolder holder) {
+        if (hasOnItemClickListener()) {
+            holder.itemView.setOnClickListener(new View.OnClickListener() {
+                @Override
+                public void onClick(View view) {
+                    int position = holder.getAdapterPosition();
+                    if (position != RecyclerView.NO_POSITION) {
+                        dispatchItemClick(view, position);
+                    }
+                }
+            });
+        }
+
+        if (hasOnItemLongClickListener()) {
+            holder.itemView.setOnLongClickListener(new View.OnLongClickListener() {
+                @Override
+                public boolean onLongClick(View v) {
+                    int position = holder.getAdapterPosition();
+                    if (position != RecyclerView.NO_POSITION) {
+                        dispatchItemLongClick(v, position);
+                    }
+                    return true;
+                }
+            });
+        }
+    }
+
+    @Override
+    public int getCreatedViewHolderCount() {
+        return mCreatedViewHolderCount;
+    }
+
+    @Override
+    public int getBoundViewHolderCount() {
+        return mBoundViewHolderCount;
+    }
+}
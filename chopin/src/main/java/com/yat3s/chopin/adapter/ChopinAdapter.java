@@ -1,11 +1,7 @@
 package com.yat3s.chopin.adapter;
 
 import android.content.Context;
-import android.support.v7.widget.RecyclerView;
-import android.util.SparseIntArray;
-import android.view.LayoutInflater;
 import android.view.View;
-import android.view.ViewGroup;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -15,27 +11,13 @@ import java.util.List;
  * Email: hawkoyates@gmail.com
  * GitHub: https://github.com/yat3s
  */
-public abstract class ChopinAdapter<T, VH extends ChopinViewHolder> extends RecyclerView.Adapter<VH> {
+public abstract class ChopinAdapter<T, VH extends ChopinViewHolder> extends BaseChopinAdapter<VH> {
 
     private static final String TAG = "ChopinAdapter";
 
-    private int mCurrentViewTypeValue = 0x0100;
-
     // The data source of adapter.
     protected List<T> mDataSource;
 
-    // The context from recycler view.
-    protected Context mContext;
-
-    // The layout inflater to inflate all item view.
-    protected LayoutInflater mInflater;
-
-    // Save all layout id, key is view type, value is layout id.
-    private SparseIntArray mLayoutIdCacheArray;
-
-    // Save all view type, key is layout id, value is view type.
-    private SparseIntArray mViewTypeCacheArray;
-
     private OnItemClickListener mOnItemClickListener;
     private OnItemLongClickListener mOnItemLongClickListener;
 
@@ -44,11 +26,8 @@ public abstract class ChopinAdapter<T, VH extends ChopinViewHolder> extends Recy
     }
 
     public ChopinAdapter(Context context, List<T> dataSource) {
+        super(context, TAG);
         mDataSource = null == dataSource ? new ArrayList<T>() : dataSource;
-        mContext = context;
-        mInflater = LayoutInflater.from(context);
-        mLayoutIdCacheArray = new SparseIntArray();
-        mViewTypeCacheArray = new SparseIntArray();
     }
 
     protected abstract void bindDataToItemView(VH holder, T t, int position);
@@ -56,51 +35,35 @@ public abstract class ChopinAdapter<T, VH extends ChopinViewHolder> extends Recy
     protected abstract int getItemViewLayoutId(int position, T t);
 
     @Override
-    public int getItemViewType(int position) {
-        int currentLayoutId = getItemViewLayoutId(position, mDataSource.get(position));
+    int getItemViewLayoutIdAt(int position) {
+        return getItemViewLayoutId(position, mDataSource.get(position));
+    }
 
-        if (mViewTypeCacheArray.get(currentLayoutId) == 0) {
-            mCurrentViewTypeValue++;
-            mViewTypeCacheArray.put(currentLayoutId, mCurrentViewTypeValue);
-            mLayoutIdCacheArray.put(mCurrentViewTypeValue, currentLayoutId);
-        }
-        return mViewTypeCacheArray.get(currentLayoutId);
+    @Override
+    void bindItemView(VH holder, int position) {
+        bindDataToItemView(holder, getItem(position), position);
     }
 
     @Override
-    @SuppressWarnings("unchecked")
-    public VH onCreateViewHolder(ViewGroup parent, int viewType) {
-        ChopinViewHolder chopinViewHolder = new ChopinViewHolder(mInflater.inflate(mLayoutIdCacheArray.get(viewType), parent,
-                false));
-        bindClickListenerToItemView(chopinViewHolder);
-        return (VH) chopinViewHolder;
+    boolean hasOnItemClickListener() {
+        return null != mOnItemClickListener;
     }
 
     @Override
-    public void onBindViewHolder(VH holder, int position) {
-        bindDataToItemView(holder, getItem(position), position);
+    boolean hasOnItemLongClickListener() {
+        return null != mOnItemLongClickListener;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    void dispatchItemClick(View view, int position) {
+        mOnItemClickListener.onClick(view, mDataSource.get(position), position);
     }
 
-    protected final void bindClickListenerToItemView(final ChopinViewHolder holder) {
-        final int position = holder.getAdapterPosition();
-        if (null != mOnItemClickListener) {
-            holder.itemView.setOnClickListener(new View.OnClickListener() {
-                @Override
-                public void onClick(View view) {
-                    mOnItemClickListener.onClick(view, mDataSource.get(position), position);
-                }
-            });
-        }
-
-        if (null != mOnItemLongClickListener) {
-            holder.itemView.setOnLongClickListener(new View.OnLongClickListener() {
-                @Override
-                public boolean onLongClick(View v) {
-                    mOnItemLongClickListener.onLongClick(v, mDataSource.get(position), position);
-                    return true;
-                }
-            });
-        }
+    @Override
+    @SuppressWarnings("unchecked")
+    void dispatchItemLongClick(View view, int position) {
+        mOnItemLongClickListener.onLongClick(view, mDataSource.get(position), position);
     }
 
     public void setOnItemClickListener(OnItemClickListener onItemClickListener) {
@@ -111,6 +74,21 @@ public abstract class ChopinAdapter<T, VH extends ChopinViewHolder> extends Recy
         mOnItemLongClickListener = onItemLongClickListener;
     }
 
+    /**
+     * Replace the data source and refresh all items, it's used to reuse this adapter
+     * instead of creating a new one, eg. the adapter of a nested RecyclerView.
+     *
+     * @param dataSource the new data source
+     */
+    public void setDataSource(List<T> dataSource) {
+        mDataSource = null == dataSource ? new ArrayList<T>() : dataSource;
+        notifyDataSetChanged();
+    }
+
+    public List<T> getDataSource() {
+        return mDataSource;
+    }
+
     /**
      * Retrieve item data from {@link #mDataSource}
      *
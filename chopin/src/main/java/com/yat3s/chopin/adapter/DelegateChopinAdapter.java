@@ -0,0 +1,233 @@
+package com.yat3s.chopin.adapter;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseArray;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link ChopinAdapter} for heterogeneous list, item is created and bound by the
+ * {@link ItemViewDelegate} registered for its class or key.
+ * <p>
+ * Each delegate has a view type of its own, see {@link ViewTypeCache#obtainDelegateViewType}, and
+ * the delegate of a view type is retrieved from an array indexed by view type, so dispatching
+ * create/bind costs O(1).
+ */
+public class DelegateChopinAdapter<T> extends ChopinAdapter<T, ChopinViewHolder> {
+
+    private static final String TAG = "DelegateChopinAdapter";
+
+    // The delegates registered by item class, it also caches the delegate of subclass.
+    private final Map<Class<?>, ItemViewDelegate<?>> mClassDelegates = new IdentityHashMap<>();
+
+    // The delegates registered by item key, see {@link ItemKeyMapper}.
+    private final SparseArray<ItemViewDelegate<?>> mKeyDelegates = new SparseArray<>();
+
+    // All registered delegates.
+    private final List<ItemViewDelegate<?>> mDelegates = new ArrayList<>();
+
+    // The view type of each registered delegate.
+    private final Map<ItemViewDelegate<?>, Integer> mDelegateViewTypes = new IdentityHashMap<>();
+
+    // The dispatch table, index is (view type - ViewTypeCache.FIRST_VIEW_TYPE), it's filled while
+    // registering.
+    private ItemViewDelegate<?>[] mViewTypeDelegates = new ItemViewDelegate<?>[0];
+
+    // The last looked up item class and its delegate, adjacent items are usually of the same class.
+    private Class<?> mLastItemClass;
+    private ItemViewDelegate<?> mLastClassDelegate;
+    private int mLastClassViewType;
+
+    private ItemKeyMapper<T> mItemKeyMapper;
+
+    public DelegateChopinAdapter(Context context) {
+        super(context);
+    }
+
+    public DelegateChopinAdapter(Context context, List<T> dataSource) {
+        super(context, dataSource);
+    }
+
+    /**
+     * Register delegate for item class, the subclass will use this delegate too
+     * if it has no delegate itself.
+     *
+     * @param itemClass The class of item.
+     * @param delegate  The delegate to create and bind item.
+     * @return this
+     */
+    public <E extends T> DelegateChopinAdapter<T> register(@NonNull Class<E> itemClass,
+                                                           @NonNull ItemViewDelegate<? super E> delegate) {
+        mClassDelegates.put(itemClass, delegate);
+        // The cached delegates of subclasses may be stale.
+        mLastItemClass = null;
+        addDelegate(delegate);
+        return this;
+    }
+
+    /**
+     * Register delegate for item key, it is used while {@link ItemKeyMapper} has been set.
+     *
+     * @param itemKey  The key of item, see {@link ItemKeyMapper#getItemKey(int, Object)}
+     * @param delegate The delegate to create and bind item.
+     * @return this
+     */
+    public DelegateChopinAdapter<T> register(int itemKey, @NonNull ItemViewDelegate<? extends T> delegate) {
+        mKeyDelegates.put(itemKey, delegate);
+        addDelegate(delegate);
+        return this;
+    }
+
+    /**
+     * Set key mapper to find delegate by item key instead of item class,
+     * eg. the items with same class but different style.
+     *
+     * @param itemKeyMapper
+     */
+    public void setItemKeyMapper(ItemKeyMapper<T> itemKeyMapper) {
+        mItemKeyMapper = itemKeyMapper;
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        ItemViewDelegate<?> delegate = findDelegate(position, mDataSource.get(position));
+        return delegate == mLastClassDelegate ? mLastClassViewType : getViewType(delegate);
+    }
+
+    @Override
+    protected int getItemViewLayoutId(int position, T t) {
+        return findDelegate(position, t).getItemViewLayoutId();
+    }
+
+    @Override
+    public ChopinViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        ChopinViewHolder holder = super.onCreateViewHolder(parent, viewType);
+        getDelegate(viewType).onViewHolderCreated(holder);
+        return holder;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void bindDataToItemView(ChopinViewHolder holder, T t, int position) {
+        ((ItemViewDelegate<? super T>) getDelegate(holder.getItemViewType())).bindDataToItemView(holder, t, position);
+    }
+
+    /**
+     * Apply max recycled view count of each delegate to pool,
+     * see {@link ItemViewDelegate#getMaxRecycledViews()}.
+     *
+     * @param recycledViewPool The pool of RecyclerView or the shared pool of nested RecyclerViews.
+     */
+    public void configureRecycledViewPool(@NonNull RecyclerView.RecycledViewPool recycledViewPool) {
+        for (ItemViewDelegate<?> delegate : mDelegates) {
+            recycledViewPool.setMaxRecycledViews(getViewType(delegate), delegate.getMaxRecycledViews());
+        }
+    }
+
+    /**
+     * Create one ViewHolder for each delegate whose prefetch priority is positive and put it into
+     * the pool of RecyclerView, higher priority will be created earlier.
+     * It avoids inflating while the first item of this type scrolls into screen.
+     *
+     * @param recyclerView The RecyclerView which this adapter is set to.
+     */
+    public void warmUpRecycledViewPool(@NonNull RecyclerView recyclerView) {
+        List<ItemViewDelegate<?>> delegates = new ArrayList<>(mDelegates);
+        Collections.sort(delegates, new Comparator<ItemViewDelegate<?>>() {
+            @Override
+            public int compare(ItemViewDelegate<?> lhs, ItemViewDelegate<?> rhs) {
+                return rhs.getPrefetchPriority() - lhs.getPrefetchPriority();
+            }
+        });
+        RecyclerView.RecycledViewPool recycledViewPool = recyclerView.getRecycledViewPool();
+        for (ItemViewDelegate<?> delegate : delegates) {
+            if (delegate.getPrefetchPriority() <= 0) {
+                break;
+            }
+            int viewType = getViewType(delegate);
+            if (recycledViewPool.getRecycledViewCount(viewType) == 0) {
+                recycledViewPool.putRecycledView(createViewHolder(recyclerView, viewType));
+            }
+        }
+    }
+
+    private int getViewType(ItemViewDelegate<?> delegate) {
+        return mDelegateViewTypes.get(delegate);
+    }
+
+    private ItemViewDelegate<?> getDelegate(int viewType) {
+        return mViewTypeDelegates[viewType - ViewTypeCache.FIRST_VIEW_TYPE];
+    }
+
+    private ItemViewDelegate<?> findDelegate(int position, T item) {
+        ItemViewDelegate<?> delegate;
+        if (null != mItemKeyMapper) {
+            int itemKey = mItemKeyMapper.getItemKey(position, item);
+            delegate = mKeyDelegates.get(itemKey);
+            if (null == delegate) {
+                throw new IllegalArgumentException("No delegate registered for item key " + itemKey);
+            }
+            return delegate;
+        }
+
+        Class<?> itemClass = item.getClass();
+        if (itemClass == mLastItemClass) {
+            return mLastClassDelegate;
+        }
+        delegate = mClassDelegates.get(itemClass);
+        if (null == delegate) {
+            // Find delegate of super class and cache it for this class.
+            for (Class<?> clazz = itemClass.getSuperclass(); null != clazz; clazz = clazz.getSuperclass()) {
+                delegate = mClassDelegates.get(clazz);
+                if (null != delegate) {
+                    mClassDelegates.put(itemClass, delegate);
+                    break;
+                }
+            }
+        }
+        if (null == delegate) {
+            throw new IllegalArgumentException("No delegate registered for " + itemClass.getName());
+        }
+        mLastItemClass = itemClass;
+        mLastClassDelegate = delegate;
+        mLastClassViewType = getViewType(delegate);
+        return delegate;
+    }
+
+    /**
+     * Add delegate and put it into dispatch table.
+     */
+    private void addDelegate(ItemViewDelegate<?> delegate) {
+        if (mDelegateViewTypes.containsKey(delegate)) {
+            return;
+        }
+        int layoutId = delegate.getItemViewLayoutId();
+        int occurrence = 0;
+        for (ItemViewDelegate<?> added : mDelegates) {
+            if (added.getClass() == delegate.getClass() && added.getItemViewLayoutId() == layoutId) {
+                occurrence++;
+            }
+        }
+        int viewType = ViewTypeCache.obtainDelegateViewType(delegate.getClass(), layoutId, occurrence);
+        mDelegates.add(delegate);
+        mDelegateViewTypes.put(delegate, viewType);
+        int index = viewType - ViewTypeCache.FIRST_VIEW_TYPE;
+        if (index >= mViewTypeDelegates.length) {
+            mViewTypeDelegates = Arrays.copyOf(mViewTypeDelegates, index + 1);
+        }
+        mViewTypeDelegates[index] = delegate;
+    }
+
+    public interface ItemKeyMapper<T> {
+        int getItemKey(int position, T item);
+    }
+}
@@ -0,0 +1,123 @@
+package com.yat3s.chopin.adapter;
+
+import android.content.Context;
+import android.view.View;
+
+import com.yat3s.chopin.util.IntArrayList;
+
+/**
+ * A {@link ChopinAdapter} variant backed by primitive int, eg. resource ids or colors,
+ * it binds item without unboxing and costs no object per item.
+ */
+public abstract class IntChopinAdapter extends BaseChopinAdapter<ChopinViewHolder> {
+
+    private static final String TAG = "IntChopinAdapter";
+
+    // The data source of adapter.
+    protected IntArrayList mDataSource;
+
+    private OnItemClickListener mOnItemClickListener;
+    private OnItemLongClickListener mOnItemLongClickListener;
+
+    public IntChopinAdapter(Context context) {
+        this(context, null);
+    }
+
+    public IntChopinAdapter(Context context, int[] dataSource) {
+        super(context, TAG);
+        mDataSource = new IntArrayList(dataSource);
+    }
+
+    protected abstract void bindDataToItemView(ChopinViewHolder holder, int item, int position);
+
+    protected abstract int getItemViewLayoutId(int position, int item);
+
+    @Override
+    int getItemViewLayoutIdAt(int position) {
+        return getItemViewLayoutId(position, mDataSource.get(position));
+    }
+
+    @Override
+    void bindItemView(ChopinViewHolder holder, int position) {
+        bindDataToItemView(holder, mDataSource.get(position), position);
+    }
+
+    @Override
+    boolean hasOnItemClickListener() {
+        return null != mOnItemClickListener;
+    }
+
+    @Override
+    boolean hasOnItemLongClickListener() {
+        return null != mOnItemLongClickListener;
+    }
+
+    @Override
+    void dispatchItemClick(View view, int position) {
+        mOnItemClickListener.onClick(view, mDataSource.get(position), position);
+    }
+
+    @Override
+    void dispatchItemLongClick(View view, int position) {
+        mOnItemLongClickListener.onLongClick(view, mDataSource.get(position), position);
+    }
+
+    public void setOnItemClickListener(OnItemClickListener onItemClickListener) {
+        mOnItemClickListener = onItemClickListener;
+    }
+
+    public void setOnItemLongClickListener(OnItemLongClickListener onItemLongClickListener) {
+        mOnItemLongClickListener = onItemLongClickListener;
+    }
+
+    /**
+     * Replace the data source with a copy of dataSource and refresh all items.
+     *
+     * @param dataSource the new data source
+     */
+    public void setDataSource(int[] dataSource) {
+        mDataSource = new IntArrayList(dataSource);
+        notifyDataSetChanged();
+    }
+
+    public void addData(int item) {
+        mDataSource.add(item);
+        notifyItemInserted(mDataSource.size() - 1);
+    }
+
+    public void addData(int[] items) {
+        if (null == items || items.length == 0) {
+            return;
+        }
+        int positionStart = mDataSource.size();
+        mDataSource.addAll(items);
+        notifyItemRangeInserted(positionStart, items.length);
+    }
+
+    public void removeData(int position) {
+        mDataSource.removeAt(position);
+        notifyItemRemoved(position);
+    }
+
+    public void clearData() {
+        mDataSource.clear();
+        notifyDataSetChanged();
+    }
+
+    public int getItem(int position) {
+        return mDataSource.get(position);
+    }
+
+    @Override
+    public int getItemCount() {
+        return mDataSource.size();
+    }
+
+    public interface OnItemClickListener {
+        void onClick(View view, int item, int position);
+    }
+
+    public interface OnItemLongClickListener {
+        void onLongClick(View view, int item, int position);
+    }
+}
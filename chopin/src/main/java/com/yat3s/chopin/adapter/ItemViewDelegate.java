@@ -0,0 +1,52 @@
+package com.yat3s.chopin.adapter;
+
+import android.support.annotation.LayoutRes;
+
+/**
+ * Create and bind one type of item in {@link DelegateChopinAdapter}.
+ * <p>
+ * Each delegate owns its layout, so every bind call site only sees one item type
+ * instead of a big if/switch in {@link ChopinAdapter#bindDataToItemView}.
+ */
+public abstract class ItemViewDelegate<T> {
+
+    private static final int DEFAULT_MAX_RECYCLED_VIEWS = 5;
+
+    /**
+     * Every delegate in an adapter has a view type of its own even if it shares layout with another
+     * delegate, delegates of the same class and layout in other adapters reuse it for a shared pool.
+     */
+    @LayoutRes
+    protected abstract int getItemViewLayoutId();
+
+    protected abstract void bindDataToItemView(ChopinViewHolder holder, T item, int position);
+
+    /**
+     * Called once after ViewHolder has been created, you can do some one-time setup here,
+     * eg. configure nested RecyclerView.
+     *
+     * @param holder
+     */
+    protected void onViewHolderCreated(ChopinViewHolder holder) {
+    }
+
+    /**
+     * Max ViewHolder count of this delegate cached in RecycledViewPool,
+     * see {@link DelegateChopinAdapter#configureRecycledViewPool}.
+     *
+     * @return
+     */
+    public int getMaxRecycledViews() {
+        return DEFAULT_MAX_RECYCLED_VIEWS;
+    }
+
+    /**
+     * The priority to create ViewHolder ahead of first layout, higher will be created earlier
+     * and 0 or lower will never be created ahead, see {@link DelegateChopinAdapter#warmUpRecycledViewPool}.
+     *
+     * @return
+     */
+    public int getPrefetchPriority() {
+        return 0;
+    }
+}
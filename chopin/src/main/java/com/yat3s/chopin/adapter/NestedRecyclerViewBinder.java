@@ -0,0 +1,169 @@
+package com.yat3s.chopin.adapter;
+
+import android.content.Context;
+import android.os.Parcelable;
+import android.support.annotation.LayoutRes;
+import android.support.annotation.NonNull;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseArray;
+
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Bind nested RecyclerView (eg. a horizontal carousel in a vertical list) in an item view.
+ * <p>
+ * All nested RecyclerViews bound by the same binder share one {@link RecyclerView.RecycledViewPool},
+ * keep their adapter across rebinds and only swap the data, prefetch the first items while outer
+ * list is scrolling and save/restore the scroll position of each row.
+ */
+public class NestedRecyclerViewBinder {
+
+    private static final int DEFAULT_INITIAL_PREFETCH_ITEM_COUNT = 4;
+
+    // The shared pool for all nested RecyclerViews.
+    private final RecyclerView.RecycledViewPool mRecycledViewPool;
+
+    // Save scroll state of each row, key is row key.
+    private final SparseArray<Parcelable> mScrollStates = new SparseArray<>();
+
+    // The row key that nested RecyclerView is showing now.
+    private final Map<RecyclerView, Integer> mBoundRowKeys = new WeakHashMap<>();
+
+    private int mInitialPrefetchItemCount = DEFAULT_INITIAL_PREFETCH_ITEM_COUNT;
+
+    private int mOrientation = LinearLayoutManager.HORIZONTAL;
+
+    public NestedRecyclerViewBinder() {
+        this(new RecyclerView.RecycledViewPool());
+    }
+
+    public NestedRecyclerViewBinder(@NonNull RecyclerView.RecycledViewPool recycledViewPool) {
+        mRecycledViewPool = recycledViewPool;
+    }
+
+    /**
+     * Limit cached ViewHolder count of a item layout in the shared pool.
+     *
+     * @param layoutId             The item layout id of nested adapter.
+     * @param maxRecycledViewCount Max ViewHolder count to cache.
+     * @return this
+     */
+    public NestedRecyclerViewBinder setMaxRecycledViews(@LayoutRes int layoutId, int maxRecycledViewCount) {
+        mRecycledViewPool.setMaxRecycledViews(ViewTypeCache.obtainViewType(layoutId), maxRecycledViewCount);
+        return this;
+    }
+
+    /**
+     * Set how many items of nested RecyclerView will be prefetched while it's scrolling into screen,
+     * it should be the count of items visible at first.
+     *
+     * @param initialPrefetchItemCount
+     * @return this
+     */
+    public NestedRecyclerViewBinder setInitialPrefetchItemCount(int initialPrefetchItemCount) {
+        mInitialPrefetchItemCount = initialPrefetchItemCount;
+        return this;
+    }
+
+    public NestedRecyclerViewBinder setOrientation(int orientation) {
+        mOrientation = orientation;
+        return this;
+    }
+
+    public RecyclerView.RecycledViewPool getRecycledViewPool() {
+        return mRecycledViewPool;
+    }
+
+    /**
+     * Bind nested RecyclerView to a row, the adapter is ONLY created at the first time,
+     * after that the existing one will be returned so you can swap the data.
+     *
+     * @param nestedRecyclerView The nested RecyclerView in item view.
+     * @param rowKey             The unique key of row, eg. adapter position or item id.
+     * @param adapterCreator     Create adapter while nested RecyclerView has no adapter.
+     * @param <A>                The adapter type.
+     * @return The adapter of nested RecyclerView.
+     */
+    @SuppressWarnings("unchecked")
+    public <A extends RecyclerView.Adapter> A bind(@NonNull RecyclerView nestedRecyclerView, int rowKey,
+                                                   @NonNull AdapterCreator<A> adapterCreator) {
+        // Save scroll position of the last row before it show another row.
+        saveScrollState(nestedRecyclerView);
+
+        if (null == nestedRecyclerView.getLayoutManager()) {
+            nestedRecyclerView.setLayoutManager(new LinearLayoutManager(nestedRecyclerView.getContext(),
+                    mOrientation, false));
+        }
+        // Apply to the layout manager supplied by caller as well.
+        if (nestedRecyclerView.getLayoutManager() instanceof LinearLayoutManager) {
+            LinearLayoutManager layoutManager = (LinearLayoutManager) nestedRecyclerView.getLayoutManager();
+            layoutManager.setInitialPrefetchItemCount(mInitialPrefetchItemCount);
+
+            // Put children back to the shared pool while this row is recycled.
+            layoutManager.setRecycleChildrenOnDetach(true);
+        }
+        if (nestedRecyclerView.getRecycledViewPool() != mRecycledViewPool) {
+            nestedRecyclerView.setRecycledViewPool(mRecycledViewPool);
+        }
+
+        A adapter = (A) nestedRecyclerView.getAdapter();
+        if (null == adapter) {
+            adapter = adapterCreator.create(nestedRecyclerView.getContext());
+            nestedRecyclerView.setAdapter(adapter);
+        }
+
+        // Restore scroll position of this row.
+        RecyclerView.LayoutManager layoutManager = nestedRecyclerView.getLayoutManager();
+        Parcelable scrollState = mScrollStates.get(rowKey);
+        if (null != scrollState) {
+            layoutManager.onRestoreInstanceState(scrollState);
+        } else {
+            layoutManager.scrollToPosition(0);
+        }
+        mBoundRowKeys.put(nestedRecyclerView, rowKey);
+        return adapter;
+    }
+
+    /**
+     * Bind nested RecyclerView to a row and swap the data source of {@link ChopinAdapter}.
+     *
+     * @see #bind(RecyclerView, int, AdapterCreator)
+     */
+    public <T, A extends ChopinAdapter<T, ?>> A bind(@NonNull RecyclerView nestedRecyclerView, int rowKey,
+                                                     List<T> dataSource,
+                                                     @NonNull AdapterCreator<A> adapterCreator) {
+        A adapter = bind(nestedRecyclerView, rowKey, adapterCreator);
+        if (adapter.getDataSource() != dataSource) {
+            adapter.setDataSource(dataSource);
+        }
+        return adapter;
+    }
+
+    /**
+     * Save scroll position of the row that nested RecyclerView is showing,
+     * you can call it in {@link RecyclerView.Adapter#onViewRecycled(RecyclerView.ViewHolder)}.
+     *
+     * @param nestedRecyclerView
+     */
+    public void saveScrollState(@NonNull RecyclerView nestedRecyclerView) {
+        Integer rowKey = mBoundRowKeys.get(nestedRecyclerView);
+        RecyclerView.LayoutManager layoutManager = nestedRecyclerView.getLayoutManager();
+        if (null != rowKey && null != layoutManager) {
+            mScrollStates.put(rowKey, layoutManager.onSaveInstanceState());
+        }
+    }
+
+    /**
+     * Clear all saved scroll positions, eg. while the outer list has been refreshed.
+     */
+    public void clearScrollStates() {
+        mScrollStates.clear();
+    }
+
+    public interface AdapterCreator<A extends RecyclerView.Adapter> {
+        A create(Context context);
+    }
+}
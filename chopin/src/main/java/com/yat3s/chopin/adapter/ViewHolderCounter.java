@@ -0,0 +1,12 @@
+package com.yat3s.chopin.adapter;
+
+/**
+ * Count view holders created and bound by an adapter, eg. shown by the performance HUD of
+ * ChopinLayout to spot holders which are not recycled.
+ */
+public interface ViewHolderCounter {
+
+    int getCreatedViewHolderCount();
+
+    int getBoundViewHolderCount();
+}
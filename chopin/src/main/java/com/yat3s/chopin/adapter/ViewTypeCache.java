@@ -0,0 +1,92 @@
+package com.yat3s.chopin.adapter;
+
+import android.support.annotation.LayoutRes;
+
+import com.yat3s.chopin.core.ViewTypeRegistry;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Process wide mapping between item layout id and RecyclerView view type.
+ * <p>
+ * All adapters in this package resolve their view type from here, so the same layout
+ * always gets the same view type and ViewHolders can be shared through one
+ * {@link android.support.v7.widget.RecyclerView.RecycledViewPool} across adapter instances.
+ * NOTE: It should ONLY be accessed from main thread.
+ */
+final class ViewTypeCache {
+
+    static final int FIRST_VIEW_TYPE = 0x0101;
+
+    private static final ViewTypeRegistry sViewTypeRegistry = new ViewTypeRegistry(FIRST_VIEW_TYPE);
+
+    private static final Map<DelegateKey, Integer> sDelegateViewTypes = new HashMap<>();
+
+    private ViewTypeCache() {
+    }
+
+    /**
+     * Retrieve view type of layout id, a new view type will be assigned while it's the first time
+     * to see this layout id.
+     *
+     * @param layoutId The item layout id.
+     * @return view type
+     */
+    static int obtainViewType(@LayoutRes int layoutId) {
+        return sViewTypeRegistry.obtainViewType(layoutId);
+    }
+
+    /**
+     * Retrieve view type of an {@link ItemViewDelegate}, it's NOT shared with other users of this
+     * layout id. Delegates recreated with another adapter reuse the view type of the same class and
+     * layout, so the registry is bounded by the delegate classes of app.
+     *
+     * @param delegateClass The class of delegate.
+     * @param layoutId      The item layout id of delegate.
+     * @param occurrence    The index of delegate among the delegates of the same class and layout in
+     *                      one adapter.
+     * @return view type
+     */
+    static int obtainDelegateViewType(Class<?> delegateClass, @LayoutRes int layoutId, int occurrence) {
+        DelegateKey key = new DelegateKey(delegateClass, layoutId, occurrence);
+        Integer viewType = sDelegateViewTypes.get(key);
+        if (null == viewType) {
+            viewType = sViewTypeRegistry.newViewType(layoutId);
+            sDelegateViewTypes.put(key, viewType);
+        }
+        return viewType;
+    }
+
+    @LayoutRes
+    static int getLayoutId(int viewType) {
+        return sViewTypeRegistry.getLayoutId(viewType);
+    }
+
+    private static final class DelegateKey {
+        private final Class<?> mDelegateClass;
+        private final int mLayoutId;
+        private final int mOccurrence;
+
+        DelegateKey(Class<?> delegateClass, int layoutId, int occurrence) {
+            mDelegateClass = delegateClass;
+            mLayoutId = layoutId;
+            mOccurrence = occurrence;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof DelegateKey)) {
+                return false;
+            }
+            DelegateKey key = (DelegateKey) o;
+            return mDelegateClass == key.mDelegateClass && mLayoutId == key.mLayoutId
+                    && mOccurrence == key.mOccurrence;
+        }
+
+        @Override
+        public int hashCode() {
+            return (mDelegateClass.hashCode() * 31 + mLayoutId) * 31 + mOccurrence;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.yat3s.chopin.decoration;
+
+import android.util.SparseArray;
+
+import com.yat3s.chopin.adapter.ChopinViewHolder;
+
+import java.util.ArrayList;
+
+/**
+ * A LRU cache of bound and measured header ViewHolders, key is the header position of section.
+ * <p>
+ * The evicted ViewHolder is kept as scrap by layout id and reused for the next section with
+ * the same layout, so header view is only inflated while no scrap is available.
+ * The capacity is small, so it's looked up by a linear scan without any allocation.
+ */
+class HeaderViewCache {
+
+    private final int[] mKeys;
+
+    private final ChopinViewHolder[] mHolders;
+
+    private final int[] mLayoutIds;
+
+    private final long[] mAccessOrders;
+
+    // The evicted ViewHolders, key is layout id.
+    private final SparseArray<ArrayList<ChopinViewHolder>> mScrapHolders = new SparseArray<>();
+
+    private int mSize;
+
+    private long mAccessCounter;
+
+    HeaderViewCache(int maxSize) {
+        mKeys = new int[maxSize];
+        mHolders = new ChopinViewHolder[maxSize];
+        mLayoutIds = new int[maxSize];
+        mAccessOrders = new long[maxSize];
+    }
+
+    ChopinViewHolder get(int headerPosition) {
+        for (int idx = 0; idx < mSize; idx++) {
+            if (mKeys[idx] == headerPosition) {
+                mAccessOrders[idx] = ++mAccessCounter;
+                return mHolders[idx];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Put ViewHolder into cache, the least recently used one will be moved to scrap
+     * while cache is full.
+     */
+    void put(int headerPosition, int layoutId, ChopinViewHolder holder) {
+        int index = mSize;
+        if (mSize == mKeys.length) {
+            index = 0;
+            for (int idx = 1; idx < mSize; idx++) {
+                if (mAccessOrders[idx] < mAccessOrders[index]) {
+                    index = idx;
+                }
+            }
+            addScrap(mLayoutIds[index], mHolders[index]);
+        } else {
+            mSize++;
+        }
+        mKeys[index] = headerPosition;
+        mHolders[index] = holder;
+        mLayoutIds[index] = layoutId;
+        mAccessOrders[index] = ++mAccessCounter;
+    }
+
+    /**
+     * Retrieve an evicted ViewHolder with this layout.
+     *
+     * @return ViewHolder or null if there is no scrap.
+     */
+    ChopinViewHolder obtainScrap(int layoutId) {
+        ArrayList<ChopinViewHolder> scrapHolders = mScrapHolders.get(layoutId);
+        if (null == scrapHolders || scrapHolders.isEmpty()) {
+            return null;
+        }
+        return scrapHolders.remove(scrapHolders.size() - 1);
+    }
+
+    /**
+     * Move the ViewHolders of header positions from start(inclusive) to end(inclusive) to scrap.
+     */
+    void evictRange(int start, int end) {
+        int idx = 0;
+        while (idx < mSize) {
+            if (mKeys[idx] >= start && mKeys[idx] <= end) {
+                addScrap(mLayoutIds[idx], mHolders[idx]);
+                removeAt(idx);
+            } else {
+                idx++;
+            }
+        }
+    }
+
+    /**
+     * Offset the header positions which are not less than fromPosition, eg. items are inserted
+     * or removed before them.
+     */
+    void shiftPositions(int fromPosition, int offset) {
+        for (int idx = 0; idx < mSize; idx++) {
+            if (mKeys[idx] >= fromPosition) {
+                mKeys[idx] += offset;
+            }
+        }
+    }
+
+    /**
+     * Move all ViewHolders to scrap, they should be bound again before using.
+     */
+    void evictAll() {
+        for (int idx = 0; idx < mSize; idx++) {
+            addScrap(mLayoutIds[idx], mHolders[idx]);
+            mHolders[idx] = null;
+        }
+        mSize = 0;
+    }
+
+    private void removeAt(int index) {
+        int last = --mSize;
+        mKeys[index] = mKeys[last];
+        mHolders[index] = mHolders[last];
+        mLayoutIds[index] = mLayoutIds[last];
+        mAccessOrders[index] = mAccessOrders[last];
+        mHolders[last] = null;
+    }
+
+    private void addScrap(int layoutId, ChopinViewHolder holder) {
+        ArrayList<ChopinViewHolder> scrapHolders = mScrapHolders.get(layoutId);
+        if (null == scrapHolders) {
+            scrapHolders = new ArrayList<>();
+            mScrapHolders.put(layoutId, scrapHolders);
+        }
+        if (scrapHolders.size() < mKeys.length) {
+            scrapHolders.add(holder);
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.yat3s.chopin.decoration;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.support.annotation.ColorInt;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.StaggeredGridLayoutManager;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+import android.widget.TextView;
+
+/**
+ * A fast scroll thumb with section bubble for vertical list which uses {@link StickyHeaderItemDecoration}.
+ * <p>
+ * While dragging the thumb, list jumps to the position under thumb directly by scrollToPositionWithOffset,
+ * so the items between are never bound. The section is found from {@link StickyHeaderSectionIndex} by
+ * binary search, and the bubble label is the text of the first {@link TextView} in its bound header view.
+ */
+public class StickyHeaderFastScroller extends RecyclerView.ItemDecoration implements RecyclerView.OnItemTouchListener {
+
+    private static final int THUMB_WIDTH_DP = 6;
+    private static final int THUMB_HEIGHT_DP = 48;
+    private static final int TOUCH_AREA_WIDTH_DP = 32;
+    private static final int BUBBLE_SIZE_DP = 64;
+    private static final int BUBBLE_MARGIN_DP = 16;
+    private static final int BUBBLE_TEXT_SIZE_DP = 28;
+
+    // Hide thumb after scroll stopped for a while.
+    private static final long HIDE_DELAY_MILLIS = 1500;
+
+    private final StickyHeaderItemDecoration mStickyHeaderItemDecoration;
+    private final StickyHeaderSectionIndex mSectionIndex;
+
+    private RecyclerView mRecyclerView;
+
+    private final Paint mThumbPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mBubblePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mBubbleTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final RectF mThumbRect = new RectF();
+    private final RectF mBubbleRect = new RectF();
+
+    private int mThumbWidth, mThumbHeight, mTouchAreaWidth, mBubbleSize, mBubbleMargin;
+
+    private boolean isVisible, isDragging;
+
+    // The touch y of thumb center while dragging.
+    private float mDraggingY;
+
+    private int mCurrentSection = -1;
+    private int mCurrentPosition = RecyclerView.NO_POSITION;
+    private CharSequence mBubbleText;
+
+    private final Runnable mHideThumbRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (!isDragging) {
+                isVisible = false;
+                invalidate();
+            }
+        }
+    };
+
+    private final RecyclerView.OnScrollListener mOnScrollListener = new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+            if (dy != 0 && isScrollable()) {
+                isVisible = true;
+                scheduleHideThumb();
+            }
+        }
+    };
+
+    public StickyHeaderFastScroller(@NonNull StickyHeaderItemDecoration stickyHeaderItemDecoration) {
+        mStickyHeaderItemDecoration = stickyHeaderItemDecoration;
+        mSectionIndex = stickyHeaderItemDecoration.getSectionIndex();
+        mThumbPaint.setColor(Color.GRAY);
+        mBubblePaint.setColor(Color.DKGRAY);
+        mBubbleTextPaint.setColor(Color.WHITE);
+        mBubbleTextPaint.setTextAlign(Paint.Align.CENTER);
+    }
+
+    /**
+     * Attach fast scroller to the RecyclerView which has added the {@link StickyHeaderItemDecoration},
+     * pass null to detach it from current one.
+     *
+     * @param recyclerView
+     */
+    public void attachToRecyclerView(@Nullable RecyclerView recyclerView) {
+        if (mRecyclerView == recyclerView) {
+            return;
+        }
+        if (null != mRecyclerView) {
+            mRecyclerView.removeItemDecoration(this);
+            mRecyclerView.removeOnItemTouchListener(this);
+            mRecyclerView.removeOnScrollListener(mOnScrollListener);
+            mRecyclerView.removeCallbacks(mHideThumbRunnable);
+        }
+        mRecyclerView = recyclerView;
+        if (null != recyclerView) {
+            float density = recyclerView.getResources().getDisplayMetrics().density;
+            mThumbWidth = (int) (THUMB_WIDTH_DP * density);
+            mThumbHeight = (int) (THUMB_HEIGHT_DP * density);
+            mTouchAreaWidth = (int) (TOUCH_AREA_WIDTH_DP * density);
+            mBubbleSize = (int) (BUBBLE_SIZE_DP * density);
+            mBubbleMargin = (int) (BUBBLE_MARGIN_DP * density);
+            mBubbleTextPaint.setTextSize(BUBBLE_TEXT_SIZE_DP * density);
+            recyclerView.addItemDecoration(this);
+            recyclerView.addOnItemTouchListener(this);
+            recyclerView.addOnScrollListener(mOnScrollListener);
+        }
+    }
+
+    public void setThumbColor(@ColorInt int color) {
+        mThumbPaint.setColor(color);
+    }
+
+    public void setBubbleColor(@ColorInt int color) {
+        mBubblePaint.setColor(color);
+    }
+
+    public void setBubbleTextColor(@ColorInt int color) {
+        mBubbleTextPaint.setColor(color);
+    }
+
+    @Override
+    public void onDrawOver(Canvas canvas, RecyclerView parent, RecyclerView.State state) {
+        if (!isVisible && !isDragging) {
+            return;
+        }
+        final int width = parent.getWidth();
+        final float thumbTop = isDragging ? clampThumbTop(mDraggingY - mThumbHeight / 2f) : computeThumbTop();
+        mThumbRect.set(width - mThumbWidth, thumbTop, width, thumbTop + mThumbHeight);
+        canvas.drawRoundRect(mThumbRect, mThumbWidth / 2f, mThumbWidth / 2f, mThumbPaint);
+
+        if (isDragging && null != mBubbleText) {
+            float bubbleTop = Math.max(0, mThumbRect.centerY() - mBubbleSize);
+            float bubbleRight = width - mThumbWidth - mBubbleMargin;
+            mBubbleRect.set(bubbleRight - mBubbleSize, bubbleTop, bubbleRight, bubbleTop + mBubbleSize);
+            canvas.drawRoundRect(mBubbleRect, mBubbleSize / 2f, mBubbleSize / 2f, mBubblePaint);
+            float baseline = mBubbleRect.centerY()
+                    - (mBubbleTextPaint.descent() + mBubbleTextPaint.ascent()) / 2f;
+            canvas.drawText(mBubbleText, 0, mBubbleText.length(), mBubbleRect.centerX(), baseline,
+                    mBubbleTextPaint);
+        }
+    }
+
+    @Override
+    public boolean onInterceptTouchEvent(RecyclerView rv, MotionEvent e) {
+        if (e.getAction() == MotionEvent.ACTION_DOWN && isVisible && isInThumbTouchArea(e.getX(), e.getY())) {
+            isDragging = true;
+            mCurrentSection = -1;
+            mCurrentPosition = RecyclerView.NO_POSITION;
+            rv.stopScroll();
+            rv.removeCallbacks(mHideThumbRunnable);
+
+            // Stop parent (eg. ChopinLayout) dragging the content while the thumb is dragging.
+            ViewParent parent = rv.getParent();
+            if (null != parent) {
+                parent.requestDisallowInterceptTouchEvent(true);
+            }
+            scrollToTouchY(e.getY());
+            return true;
+        }
+        return isDragging;
+    }
+
+    @Override
+    public void onTouchEvent(RecyclerView rv, MotionEvent e) {
+        if (!isDragging) {
+            return;
+        }
+        switch (e.getAction()) {
+            case MotionEvent.ACTION_MOVE:
+                scrollToTouchY(e.getY());
+                break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                isDragging = false;
+                mBubbleText = null;
+                scheduleHideThumb();
+                invalidate();
+                break;
+        }
+    }
+
+    @Override
+    public void onRequestDisallowInterceptTouchEvent(boolean disallowIntercept) {
+    }
+
+    /**
+     * Map touch y to an adapter position and jump to it, the list is ONLY scrolled while the
+     * position has changed and the header label is ONLY looked up while the section has changed.
+     *
+     * @param y
+     */
+    private void scrollToTouchY(float y) {
+        mDraggingY = y;
+        RecyclerView.Adapter adapter = mRecyclerView.getAdapter();
+        final int itemCount = null == adapter ? 0 : adapter.getItemCount();
+        if (itemCount == 0) {
+            return;
+        }
+        if (mStickyHeaderItemDecoration.updateAttachedAdapter(mRecyclerView)) {
+            // Position and label belong to the previous adapter.
+            mCurrentPosition = RecyclerView.NO_POSITION;
+            mCurrentSection = -1;
+        }
+        float scrollRange = mRecyclerView.getHeight() - mThumbHeight;
+        float fraction = scrollRange <= 0 ? 0 : clampThumbTop(y - mThumbHeight / 2f) / scrollRange;
+        int targetPosition = Math.round(fraction * (itemCount - 1));
+        if (targetPosition != mCurrentPosition) {
+            mCurrentPosition = targetPosition;
+            scrollToPositionWithOffset(targetPosition);
+        }
+
+        int section = mSectionIndex.getSectionForPosition(targetPosition);
+        if (section < 0) {
+            // No header before target position.
+            mCurrentSection = -1;
+            mBubbleText = null;
+        } else if (section != mCurrentSection) {
+            mCurrentSection = section;
+            int headerPosition = mSectionIndex.getHeaderPosition(section);
+            mBubbleText = findLabel(mStickyHeaderItemDecoration.getHeaderView(headerPosition, mRecyclerView));
+        }
+        invalidate();
+    }
+
+    private void scrollToPositionWithOffset(int position) {
+        RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
+        if (layoutManager instanceof LinearLayoutManager) {
+            ((LinearLayoutManager) layoutManager).scrollToPositionWithOffset(position, 0);
+        } else if (layoutManager instanceof StaggeredGridLayoutManager) {
+            ((StaggeredGridLayoutManager) layoutManager).scrollToPositionWithOffset(position, 0);
+        } else if (null != layoutManager) {
+            layoutManager.scrollToPosition(position);
+        }
+    }
+
+    /**
+     * Find the text of first {@link TextView} in header view.
+     *
+     * @param view The bound header view.
+     * @return label or null if there is no TextView, it is copied since the header view may be rebound.
+     */
+    private static CharSequence findLabel(View view) {
+        if (view instanceof TextView) {
+            return ((TextView) view).getText().toString();
+        }
+        if (view instanceof ViewGroup) {
+            ViewGroup viewGroup = (ViewGroup) view;
+            for (int idx = 0; idx < viewGroup.getChildCount(); idx++) {
+                CharSequence label = findLabel(viewGroup.getChildAt(idx));
+                if (null != label) {
+                    return label;
+                }
+            }
+        }
+        return null;
+    }
+
+    private float computeThumbTop() {
+        int scrollRange = mRecyclerView.computeVerticalScrollRange() - mRecyclerView.computeVerticalScrollExtent();
+        if (scrollRange <= 0) {
+            return 0;
+        }
+        float fraction = mRecyclerView.computeVerticalScrollOffset() / (float) scrollRange;
+        return clampThumbTop(fraction * (mRecyclerView.getHeight() - mThumbHeight));
+    }
+
+    private float clampThumbTop(float thumbTop) {
+        return Math.max(0, Math.min(thumbTop, mRecyclerView.getHeight() - mThumbHeight));
+    }
+
+    private boolean isInThumbTouchArea(float x, float y) {
+        float thumbTop = computeThumbTop();
+        return x >= mRecyclerView.getWidth() - mTouchAreaWidth
+                && y >= thumbTop - mThumbHeight / 2f
+                && y <= thumbTop + mThumbHeight * 1.5f;
+    }
+
+    private boolean isScrollable() {
+        return mRecyclerView.computeVerticalScrollRange() > mRecyclerView.computeVerticalScrollExtent() * 2;
+    }
+
+    private void scheduleHideThumb() {
+        mRecyclerView.removeCallbacks(mHideThumbRunnable);
+        mRecyclerView.postDelayed(mHideThumbRunnable, HIDE_DELAY_MILLIS);
+    }
+
+    private void invalidate() {
+        if (null != mRecyclerView) {
+            mRecyclerView.invalidate();
+        }
+    }
+}
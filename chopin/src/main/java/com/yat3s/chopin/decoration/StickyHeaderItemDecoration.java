@@ -5,14 +5,18 @@ import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Rect;
+import android.support.annotation.Nullable;
+import android.support.v7.widget.GridLayoutManager;
+import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
-import android.util.Log;
-import android.util.SparseArray;
+import android.support.v7.widget.StaggeredGridLayoutManager;
 import android.view.LayoutInflater;
 import android.view.View;
 
+import com.yat3s.chopin.ChopinTrace;
 import com.yat3s.chopin.adapter.ChopinViewHolder;
 import com.yat3s.chopin.adapter.StickyHeaderAdapter;
+import com.yat3s.chopin.util.IntArrayList;
 
 /**
  * Created by Yat3s on 24/05/2017.
@@ -21,116 +25,409 @@ import com.yat3s.chopin.adapter.StickyHeaderAdapter;
  */
 public class StickyHeaderItemDecoration extends RecyclerView.ItemDecoration {
     private static final String TAG = "StickyHeader";
+
+    private static final int DEFAULT_MAX_CACHED_HEADER_COUNT = 8;
+
+    private static final String TRACE_COUNTER_HEADER_BINDS = "StickyHeaderItemDecoration binds";
+
     private Paint mPaint;
     Rect mBounds = new Rect();
     private StickyHeaderAdapter mStickyHeaderAdapter;
-    private SparseArray<View> mHeaderViewCache;
+    private StickyHeaderSectionIndex mSectionIndex;
+
+    // The RecyclerView this decoration is attached to, see #attachToRecyclerView().
+    private RecyclerView mRecyclerView;
+
+    // The adapter observed by section index, compared on layout and draw to catch an adapter swap.
+    private RecyclerView.Adapter mAttachedAdapter;
+
+    // The bound and measured header of each section.
+    private HeaderViewCache mHeaderViewCache;
     private Context mContext;
-    private int mCurrentStickyHeaderHeight;
+
+    // The size which the cached headers are measured with, width in vertical list
+    // and height in horizontal list.
+    private int mHeaderMeasuredSize;
+    private boolean mHeaderMeasuredVertical = true;
+
+    // Start positions of the grid rows scanned so far, a private memo of span indices, so the
+    // cache of caller's SpanSizeLookup is left as it is. It's dropped with the section index.
+    private final IntArrayList mGridRowStarts = new IntArrayList();
+    // The next position to scan and the spans taken in its row before it.
+    private int mGridScanPosition;
+    private int mGridScanSpan;
+    private int mGridRowSpanCount;
+    private GridLayoutManager.SpanSizeLookup mGridRowSpanSizeLookup;
+
+    // Evict ONLY the cached headers of sections touched by a data change and shift the others, so
+    // appending a page does not rebind every visible header. Positions before the range are not
+    // changed by either index update, so it does not matter whether the index has been updated.
+    private final RecyclerView.AdapterDataObserver mHeaderCacheObserver = new RecyclerView.AdapterDataObserver() {
+        @Override
+        public void onChanged() {
+            mHeaderViewCache.evictAll();
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            mHeaderViewCache.evictRange(getSectionStart(positionStart), positionStart + itemCount);
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+            onItemRangeChanged(positionStart, itemCount);
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            mHeaderViewCache.evictRange(getSectionStart(positionStart), positionStart);
+            mHeaderViewCache.shiftPositions(positionStart + 1, itemCount);
+            // The inserted items and the item after them may have header now.
+            mHeaderViewCache.evictRange(positionStart, positionStart + itemCount);
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            mHeaderViewCache.evictRange(getSectionStart(positionStart), positionStart + itemCount);
+            mHeaderViewCache.shiftPositions(positionStart + itemCount + 1, -itemCount);
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            mHeaderViewCache.evictAll();
+        }
+    };
+
+    // Draw sticky header over items, it's disabled while a pinned view is used, see StickyHeaderLayout.
+    private boolean mDrawStickyHeader = true;
+
+    // Headers bound since onDraw of current frame, traced as a counter after onDrawOver.
+    private int mFrameHeaderBindCount;
 
     public StickyHeaderItemDecoration(Context context, StickyHeaderAdapter adapter) {
+        this(context, adapter, DEFAULT_MAX_CACHED_HEADER_COUNT);
+    }
+
+    /**
+     * @param context
+     * @param adapter              The adapter provides header.
+     * @param maxCachedHeaderCount Max count of bound header to cache, the least recently used
+     *                             one will be rebound for another section.
+     */
+    public StickyHeaderItemDecoration(Context context, StickyHeaderAdapter adapter, int maxCachedHeaderCount) {
         mPaint = new Paint();
         mPaint.setColor(Color.BLUE);
         mStickyHeaderAdapter = adapter;
-        mHeaderViewCache = new SparseArray<>();
+        mHeaderViewCache = new HeaderViewCache(maxCachedHeaderCount);
+        mSectionIndex = new StickyHeaderSectionIndex(adapter);
+        mSectionIndex.addOnIndexChangedListener(new StickyHeaderSectionIndex.OnIndexChangedListener() {
+            @Override
+            public void onIndexChanged(StickyHeaderSectionIndex sectionIndex) {
+                // The changed headers have been evicted by mHeaderCacheObserver.
+                invalidateCachedRow();
+            }
+        });
         mContext = context;
     }
 
     @Override
     public void onDraw(Canvas canvas, RecyclerView parent, RecyclerView.State state) {
+        mFrameHeaderBindCount = 0;
+        boolean traced = ChopinTrace.beginSection("StickyHeaderItemDecoration#onDraw");
+        try {
+            drawHeaders(canvas, parent);
+        } finally {
+            ChopinTrace.endSection(traced);
+        }
+    }
+
+    private void drawHeaders(Canvas canvas, RecyclerView parent) {
+        updateAttachedAdapter(parent);
         final int childCount = parent.getChildCount();
         if (childCount <= 0) {
             return;
         }
 
-        int left = 0;
-        for (int idx = 1; idx < childCount; idx++) {
+        final boolean vertical = isVertical(parent);
+        int lastDrawnHeaderPosition = RecyclerView.NO_POSITION;
+        for (int idx = 0; idx < childCount; idx++) {
             View itemView = parent.getChildAt(idx);
-            parent.getDecoratedBoundsWithMargins(itemView, mBounds);
-            final int top = mBounds.top;
             final int position = parent.getChildAdapterPosition(itemView);
-            if (hasHeader(position)) {
-                drawHeader(parent, position, left, top, canvas);
+            final int headerPosition = getRowHeaderPosition(parent, itemView, position);
+
+            // All cells in a row share one header, draw it ONLY once.
+            if (headerPosition == RecyclerView.NO_POSITION || headerPosition == lastDrawnHeaderPosition) {
+                continue;
+            }
+            lastDrawnHeaderPosition = headerPosition;
+            parent.getDecoratedBoundsWithMargins(itemView, mBounds);
+            if (vertical) {
+                drawHeader(parent, headerPosition, 0, mBounds.top, canvas);
+            } else {
+                drawHeader(parent, headerPosition, mBounds.left, 0, canvas);
             }
         }
     }
 
     @Override
     public void onDrawOver(Canvas canvas, RecyclerView parent, RecyclerView.State state) {
+        boolean traced = ChopinTrace.beginSection("StickyHeaderItemDecoration#onDrawOver");
+        try {
+            drawStickyHeader(canvas, parent);
+        } finally {
+            ChopinTrace.endSection(traced);
+            ChopinTrace.setCounter(TRACE_COUNTER_HEADER_BINDS, mFrameHeaderBindCount);
+        }
+    }
 
-        View nearestHasHeaderChildView = null;
-        int childCount = parent.getChildCount();
-
-        // Find nearest child view with header.
-        for (int idx = 1; idx < childCount; idx++) {
-            int position = parent.getChildAdapterPosition(parent.getChildAt(idx));
-            if (hasHeader(position)) {
-                nearestHasHeaderChildView = parent.getChildAt(idx);
-                break;
-            }
+    private void drawStickyHeader(Canvas canvas, RecyclerView parent) {
+        // The adapter has been attached by onDraw of this frame.
+        if (!mDrawStickyHeader || parent.getChildCount() <= 0) {
+            return;
         }
 
-        if (null == nearestHasHeaderChildView) {
-            drawHeaderOver(parent, 0, 0, 0, canvas);
+        // Find the section which owns the first visible child.
+        int firstPosition = parent.getChildAdapterPosition(parent.getChildAt(0));
+        int headerPosition = mSectionIndex.getHeaderPositionForPosition(firstPosition);
+        if (headerPosition == RecyclerView.NO_POSITION) {
             return;
         }
+        View headerView = getHeaderView(headerPosition, parent);
+        final boolean vertical = isVertical(parent);
 
-        int position = parent.getChildAdapterPosition(nearestHasHeaderChildView);
-        int top = (int) (nearestHasHeaderChildView.getY() - 2 * mCurrentStickyHeaderHeight);
-        if (hasHeader(position) && top < 0) {
-            drawHeaderOver(parent, position, 0, top, canvas);
+        // The header of next section pushes sticky header out while it's reaching the start edge.
+        int offset = 0;
+        int nextHeaderPosition = mSectionIndex.getNextHeaderPosition(firstPosition);
+        if (nextHeaderPosition != RecyclerView.NO_POSITION) {
+            View nextHeaderChildView = parent.getLayoutManager().findViewByPosition(nextHeaderPosition);
+            if (null != nextHeaderChildView) {
+                View nextHeaderView = getHeaderView(nextHeaderPosition, parent);
+                if (vertical) {
+                    int nextHeaderTop = (int) nextHeaderChildView.getY() - nextHeaderView.getMeasuredHeight();
+                    offset = Math.min(0, nextHeaderTop - headerView.getMeasuredHeight());
+                } else {
+                    int nextHeaderLeft = (int) nextHeaderChildView.getX() - nextHeaderView.getMeasuredWidth();
+                    offset = Math.min(0, nextHeaderLeft - headerView.getMeasuredWidth());
+                }
+            }
+        }
+        if (vertical) {
+            drawView(canvas, headerView, 0, offset);
         } else {
-            drawHeaderOver(parent, position, 0, 0, canvas);
+            drawView(canvas, headerView, offset, 0);
         }
     }
 
     @Override
     public void getItemOffsets(Rect outRect, View view, RecyclerView parent, RecyclerView.State state) {
+        // Layout runs before the first draw, eg. the adapter has just been swapped.
+        updateAttachedAdapter(parent);
         final int position = parent.getChildAdapterPosition(view);
-        if (hasHeader(position)) {
-            View headerView = getHeaderViewAndBindViewHolder(position, parent);
-            if (headerView.getHeight() <= 0) {
-                measureView(headerView, parent.getWidth(), 0);
-            }
-            outRect.set(0, headerView.getHeight(), 0, 0);
-        } else {
+        final int headerPosition = getRowHeaderPosition(parent, view, position);
+        if (headerPosition == RecyclerView.NO_POSITION) {
             outRect.set(0, 0, 0, 0);
+            return;
         }
-    }
 
-    private int lastMeasureOverItemPosition = -1;
+        // Every cell in the header row is offset, so the row is still aligned.
+        View headerView = getHeaderView(headerPosition, parent);
+        if (isVertical(parent)) {
+            outRect.set(0, headerView.getMeasuredHeight(), 0, 0);
+        } else {
+            outRect.set(headerView.getMeasuredWidth(), 0, 0, 0);
+        }
+    }
 
-    private void drawHeaderOver(RecyclerView parent, int position, int left, int top, Canvas canvas) {
-        View headerView = getHeaderViewAndBindViewHolder(position, parent);
+    private void drawHeader(RecyclerView parent, int position, int left, int top, Canvas canvas) {
+        View headerView = getHeaderView(position, parent);
+        drawView(canvas, headerView, left, top);
+    }
 
+    /**
+     * Retrieve the header position which is drawn before the row of this item.
+     * <p>
+     * In a {@link GridLayoutManager} the header is the full span item of row, row starts are
+     * memoized until the section index changes, so a row is found by binary search.
+     * In a {@link StaggeredGridLayoutManager} header item should be full span, see
+     * {@link StaggeredGridLayoutManager.LayoutParams#setFullSpan(boolean)}.
+     *
+     * @param parent
+     * @param itemView
+     * @param position The adapter position of item.
+     * @return The header position or {@link RecyclerView#NO_POSITION} if this row has no header.
+     */
+    private int getRowHeaderPosition(RecyclerView parent, View itemView, int position) {
+        if (position == RecyclerView.NO_POSITION) {
+            return RecyclerView.NO_POSITION;
+        }
+        RecyclerView.LayoutManager layoutManager = parent.getLayoutManager();
+        if (!(layoutManager instanceof GridLayoutManager)) {
+            if (layoutManager instanceof StaggeredGridLayoutManager
+                    && itemView.getLayoutParams() instanceof StaggeredGridLayoutManager.LayoutParams
+                    && !((StaggeredGridLayoutManager.LayoutParams) itemView.getLayoutParams()).isFullSpan()) {
+                // Partial span cells are not aligned in rows, a header is only attached to a full span item.
+                return RecyclerView.NO_POSITION;
+            }
+            return hasHeader(position) ? position : RecyclerView.NO_POSITION;
+        }
 
-        // Measure & layout
-        if (lastMeasureOverItemPosition != position) {
-            measureView(headerView, parent.getWidth(), 0);
-            mCurrentStickyHeaderHeight = headerView.getMeasuredHeight();
-            lastMeasureOverItemPosition = position;
-            Log.d(TAG, "MeasureItemViewOver: " + position);
+        GridLayoutManager gridLayoutManager = (GridLayoutManager) layoutManager;
+        GridLayoutManager.SpanSizeLookup spanSizeLookup = gridLayoutManager.getSpanSizeLookup();
+        final int spanCount = gridLayoutManager.getSpanCount();
+        final int itemCount = gridLayoutManager.getItemCount();
+        if (position >= itemCount) {
+            return RecyclerView.NO_POSITION;
+        }
+        if (spanCount != mGridRowSpanCount || spanSizeLookup != mGridRowSpanSizeLookup) {
+            invalidateCachedRow();
+            mGridRowSpanCount = spanCount;
+            mGridRowSpanSizeLookup = spanSizeLookup;
         }
 
-        drawView(canvas, headerView, left, top);
+        // Scan until the row after position has started, rows are [start, end) position ranges.
+        while (mGridScanPosition < itemCount
+                && (mGridRowStarts.isEmpty() || mGridRowStarts.get(mGridRowStarts.size() - 1) <= position)) {
+            scanGridPosition(spanSizeLookup, spanCount);
+        }
+        int rowIndex = mGridRowStarts.binarySearch(position);
+        if (rowIndex < 0) {
+            rowIndex = -rowIndex - 2;
+        }
+        int rowStart = mGridRowStarts.get(rowIndex);
+        int rowEnd = rowIndex + 1 < mGridRowStarts.size() ? mGridRowStarts.get(rowIndex + 1) : itemCount;
+        int headerPosition = mSectionIndex.getNextHeaderPosition(rowStart - 1);
+        return headerPosition < rowEnd ? headerPosition : RecyclerView.NO_POSITION;
     }
 
-    private int lastMeasureItemPosition = -1;
+    /**
+     * Take the span of next position as SpanSizeLookup#getSpanIndex() does, a row starts at
+     * span index 0.
+     */
+    private void scanGridPosition(GridLayoutManager.SpanSizeLookup spanSizeLookup, int spanCount) {
+        int spanSize = spanSizeLookup.getSpanSize(mGridScanPosition);
+        if (mGridScanSpan == 0 || mGridScanSpan + spanSize > spanCount) {
+            mGridRowStarts.add(mGridScanPosition);
+        }
+        mGridScanSpan += spanSize;
+        if (mGridScanSpan == spanCount) {
+            mGridScanSpan = 0;
+        } else if (mGridScanSpan > spanCount) {
+            mGridScanSpan = spanSize;
+        }
+        mGridScanPosition++;
+    }
 
-    private void drawHeader(RecyclerView parent, int position, int left, int top, Canvas canvas) {
-        View headerView = getHeaderViewAndBindViewHolder(position, parent);
+    private void invalidateCachedRow() {
+        mGridRowStarts.clear();
+        mGridScanPosition = 0;
+        mGridScanSpan = 0;
+    }
 
-        // Measure & layout
-        if (lastMeasureItemPosition != position) {
-            measureView(headerView, parent.getWidth(), 0);
-            Log.d(TAG, "MeasureItemView: " + position);
-            lastMeasureItemPosition = position;
+    private static boolean isVertical(RecyclerView parent) {
+        RecyclerView.LayoutManager layoutManager = parent.getLayoutManager();
+        if (layoutManager instanceof LinearLayoutManager) {
+            return ((LinearLayoutManager) layoutManager).getOrientation() == LinearLayoutManager.VERTICAL;
         }
-        drawView(canvas, headerView, left, top);
+        if (layoutManager instanceof StaggeredGridLayoutManager) {
+            return ((StaggeredGridLayoutManager) layoutManager).getOrientation()
+                    == StaggeredGridLayoutManager.VERTICAL;
+        }
+        return true;
     }
 
     private boolean hasHeader(int position) {
-        return mStickyHeaderAdapter.hasHeader(position);
+        return mSectionIndex.hasHeader(position);
+    }
+
+    /**
+     * Add this decoration to RecyclerView and observe its adapter, pass null to remove it from
+     * current one and stop observing, so the adapter does not keep this decoration alive.
+     * Adding it by {@link RecyclerView#addItemDecoration} works too, but it can not be detached.
+     *
+     * @param recyclerView
+     */
+    public void attachToRecyclerView(@Nullable RecyclerView recyclerView) {
+        if (mRecyclerView == recyclerView) {
+            return;
+        }
+        if (null != mRecyclerView) {
+            mRecyclerView.removeItemDecoration(this);
+        }
+        mRecyclerView = recyclerView;
+        if (null != recyclerView) {
+            recyclerView.addItemDecoration(this);
+            attachAdapter(recyclerView.getAdapter());
+        } else {
+            attachAdapter(null);
+        }
+    }
+
+    /**
+     * Attach the adapter of parent while it has been swapped, so the section index and cached headers
+     * never belong to the previous adapter. Called on each layout and draw, it costs a comparison.
+     *
+     * @param parent
+     * @return true if the adapter has been swapped.
+     */
+    boolean updateAttachedAdapter(RecyclerView parent) {
+        if (parent.getAdapter() == mAttachedAdapter) {
+            return false;
+        }
+        attachAdapter(parent.getAdapter());
+        return true;
+    }
+
+    /**
+     * Observe adapter by section index, ONLY called while the adapter has changed.
+     */
+    void attachAdapter(@Nullable RecyclerView.Adapter adapter) {
+        if (null != mAttachedAdapter) {
+            mAttachedAdapter.unregisterAdapterDataObserver(mHeaderCacheObserver);
+        }
+        mAttachedAdapter = adapter;
+        mSectionIndex.attachAdapter(adapter);
+        mHeaderViewCache.evictAll();
+        if (null != adapter) {
+            adapter.registerAdapterDataObserver(mHeaderCacheObserver);
+        }
+    }
+
+    /**
+     * @return The header position of the section before position, its content may depend on the
+     * items of section, or position itself if there is no such section.
+     */
+    private int getSectionStart(int position) {
+        int headerPosition = mSectionIndex.getHeaderPositionForPosition(position - 1);
+        return headerPosition == RecyclerView.NO_POSITION ? position : headerPosition;
+    }
+
+    /**
+     * The index of header positions, it is available after this decoration has been added to
+     * RecyclerView.
+     *
+     * @return
+     */
+    public StickyHeaderSectionIndex getSectionIndex() {
+        return mSectionIndex;
+    }
+
+    /**
+     * If false, the sticky header will not be drawn over items and ONLY headers in list are drawn,
+     * eg. {@link StickyHeaderLayout} pins a real header view above RecyclerView instead.
+     *
+     * @param drawStickyHeader
+     */
+    public void setDrawStickyHeader(boolean drawStickyHeader) {
+        mDrawStickyHeader = drawStickyHeader;
+    }
+
+    /**
+     * Drop all cached headers, they will be bound and measured again while drawing. Call it as
+     * well while span sizes of a grid are changed without data change.
+     */
+    public void invalidateHeaders() {
+        mHeaderViewCache.evictAll();
+        invalidateCachedRow();
     }
 
     private void drawView(Canvas canvas, View needDrawView, int left, int top) {
@@ -140,29 +437,51 @@ public class StickyHeaderItemDecoration extends RecyclerView.ItemDecoration {
         canvas.restore();
     }
 
-    private void measureView(View view, int width, int height) {
-        int widthSpec = View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY);
-        int heightSpec = View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.UNSPECIFIED);
+    private void measureView(View view, int size, boolean vertical) {
+        int widthSpec, heightSpec;
+        if (vertical) {
+            widthSpec = View.MeasureSpec.makeMeasureSpec(size, View.MeasureSpec.EXACTLY);
+            heightSpec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        } else {
+            widthSpec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+            heightSpec = View.MeasureSpec.makeMeasureSpec(size, View.MeasureSpec.EXACTLY);
+        }
         view.measure(widthSpec, heightSpec);
         view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
     }
 
-    private View getHeaderViewAndBindViewHolder(int position, RecyclerView parent) {
-        int layoutResId = mStickyHeaderAdapter.getHeaderViewLayoutId(position);
-        View headerView = mHeaderViewCache.get(layoutResId);
-        if (null == headerView) {
-            View inflatedView = LayoutInflater
-                    .from(mContext)
-                    .inflate(layoutResId, parent, false);
-
-            RecyclerView.ViewHolder vh = new ChopinViewHolder(inflatedView);
-            mStickyHeaderAdapter.onBindHeaderViewHolder(vh, position);
-            headerView = vh.itemView;
-
-            measureView(headerView, parent.getWidth(), 0);
-            mHeaderViewCache.put(layoutResId, headerView);
+    /**
+     * Retrieve the header of section from cache, it's ONLY bound and measured while it's not cached.
+     *
+     * @param headerPosition The header position of section.
+     * @param parent
+     * @return The bound and measured header view.
+     */
+    View getHeaderView(int headerPosition, RecyclerView parent) {
+        // Measured size has changed, eg. screen rotated or orientation of layout manager changed.
+        final boolean vertical = isVertical(parent);
+        final int measureSize = vertical ? parent.getWidth() : parent.getHeight();
+        if (mHeaderMeasuredSize != measureSize || mHeaderMeasuredVertical != vertical) {
+            mHeaderMeasuredSize = measureSize;
+            mHeaderMeasuredVertical = vertical;
+            mHeaderViewCache.evictAll();
         }
 
-        return headerView;
+        ChopinViewHolder holder = mHeaderViewCache.get(headerPosition);
+        if (null == holder) {
+            int layoutResId = mStickyHeaderAdapter.getHeaderViewLayoutId(headerPosition);
+            holder = mHeaderViewCache.obtainScrap(layoutResId);
+            if (null == holder) {
+                View inflatedView = LayoutInflater
+                        .from(mContext)
+                        .inflate(layoutResId, parent, false);
+                holder = new ChopinViewHolder(inflatedView);
+            }
+            mStickyHeaderAdapter.onBindHeaderViewHolder(holder, headerPosition);
+            mFrameHeaderBindCount++;
+            measureView(holder.itemView, mHeaderMeasuredSize, vertical);
+            mHeaderViewCache.put(headerPosition, layoutResId, holder);
+        }
+        return holder.itemView;
     }
 }
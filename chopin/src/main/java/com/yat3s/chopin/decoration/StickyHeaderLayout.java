@@ -0,0 +1,235 @@
+package com.yat3s.chopin.decoration;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+import android.util.AttributeSet;
+import android.util.SparseArray;
+import android.view.Gravity;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewTreeObserver;
+import android.widget.FrameLayout;
+
+import com.yat3s.chopin.adapter.ChopinViewHolder;
+import com.yat3s.chopin.adapter.StickyHeaderAdapter;
+
+/**
+ * Another sticky header mode, the sticky header is a real child view pinned above RecyclerView
+ * instead of drawing into canvas on every frame by {@link StickyHeaderItemDecoration}.
+ * <p>
+ * The pinned header is ONLY rebound while the section has changed and is translated while the
+ * next section is pushing it up, so it keeps its display list and can receive touch events.
+ * <p>
+ * Usage: wrap RecyclerView with this layout and call {@link #setup(RecyclerView, StickyHeaderAdapter)},
+ * it also works as the content view of {@link com.yat3s.chopin.ChopinLayout}.
+ */
+public class StickyHeaderLayout extends FrameLayout {
+    private static final String TAG = "StickyHeaderLayout";
+
+    private RecyclerView mRecyclerView;
+
+    private StickyHeaderAdapter mStickyHeaderAdapter;
+
+    private StickyHeaderItemDecoration mStickyHeaderItemDecoration;
+
+    // The container of pinned header view.
+    private FrameLayout mPinnedHeaderContainer;
+
+    // The pinned header ViewHolder of each header layout, key is layout id.
+    private final SparseArray<ChopinViewHolder> mPinnedHeaderHolders = new SparseArray<>();
+
+    private ChopinViewHolder mCurrentPinnedHeaderHolder;
+
+    private int mPinnedHeaderPosition = RecyclerView.NO_POSITION;
+
+    // Pinned header should be rebound while adapter data has changed.
+    private boolean mPinnedHeaderInvalid;
+
+    private OnStickyHeaderClickListener mOnStickyHeaderClickListener;
+
+    private final ViewTreeObserver.OnPreDrawListener mOnPreDrawListener = new ViewTreeObserver.OnPreDrawListener() {
+        @Override
+        public boolean onPreDraw() {
+            // Never cancel the frame, a rebound pinned header is laid out in place.
+            updatePinnedHeader();
+            return true;
+        }
+    };
+
+    public StickyHeaderLayout(Context context) {
+        this(context, null);
+    }
+
+    public StickyHeaderLayout(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public StickyHeaderLayout(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+    }
+
+    /**
+     * Setup sticky header for RecyclerView, the RecyclerView must be a child of this layout.
+     *
+     * @param recyclerView The RecyclerView nested in this layout.
+     * @param adapter      The adapter provides header.
+     */
+    public void setup(@NonNull RecyclerView recyclerView, @NonNull StickyHeaderAdapter adapter) {
+        if (recyclerView.getParent() != this) {
+            throw new IllegalArgumentException("RecyclerView should be a child of StickyHeaderLayout!");
+        }
+        if (null != mRecyclerView) {
+            mStickyHeaderItemDecoration.attachToRecyclerView(null);
+            removeView(mPinnedHeaderContainer);
+        }
+        mRecyclerView = recyclerView;
+        mStickyHeaderAdapter = adapter;
+        mPinnedHeaderHolders.clear();
+        mCurrentPinnedHeaderHolder = null;
+        mPinnedHeaderPosition = RecyclerView.NO_POSITION;
+
+        // Decoration ONLY offsets items and draws headers in list.
+        mStickyHeaderItemDecoration = new StickyHeaderItemDecoration(getContext(), adapter);
+        mStickyHeaderItemDecoration.setDrawStickyHeader(false);
+        mStickyHeaderItemDecoration.getSectionIndex().addOnIndexChangedListener(
+                new StickyHeaderSectionIndex.OnIndexChangedListener() {
+                    @Override
+                    public void onIndexChanged(StickyHeaderSectionIndex sectionIndex) {
+                        mPinnedHeaderInvalid = true;
+                    }
+                });
+        mStickyHeaderItemDecoration.attachToRecyclerView(recyclerView);
+
+        mPinnedHeaderContainer = new FrameLayout(getContext());
+        mPinnedHeaderContainer.setVisibility(INVISIBLE);
+        mPinnedHeaderContainer.setOnClickListener(new OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                if (null != mOnStickyHeaderClickListener && mPinnedHeaderPosition != RecyclerView.NO_POSITION) {
+                    mOnStickyHeaderClickListener.onClick(v, mPinnedHeaderPosition);
+                }
+            }
+        });
+        addView(mPinnedHeaderContainer, new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.WRAP_CONTENT,
+                Gravity.TOP));
+    }
+
+    public StickyHeaderItemDecoration getStickyHeaderItemDecoration() {
+        return mStickyHeaderItemDecoration;
+    }
+
+    public void setOnStickyHeaderClickListener(OnStickyHeaderClickListener onStickyHeaderClickListener) {
+        mOnStickyHeaderClickListener = onStickyHeaderClickListener;
+    }
+
+    /**
+     * Delegate to RecyclerView, so {@link com.yat3s.chopin.DefaultViewScrollChecker} works
+     * while this layout is the content view of ChopinLayout.
+     */
+    @Override
+    public boolean canScrollVertically(int direction) {
+        return null != mRecyclerView ? mRecyclerView.canScrollVertically(direction)
+                : super.canScrollVertically(direction);
+    }
+
+    @Override
+    public boolean canScrollHorizontally(int direction) {
+        return null != mRecyclerView ? mRecyclerView.canScrollHorizontally(direction)
+                : super.canScrollHorizontally(direction);
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        getViewTreeObserver().addOnPreDrawListener(mOnPreDrawListener);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        getViewTreeObserver().removeOnPreDrawListener(mOnPreDrawListener);
+        super.onDetachedFromWindow();
+    }
+
+    /**
+     * Update section and position of pinned header.
+     */
+    private void updatePinnedHeader() {
+        if (null == mRecyclerView || mRecyclerView.getChildCount() <= 0) {
+            return;
+        }
+        // Evicts the cached headers of the previous adapter as well.
+        mStickyHeaderItemDecoration.updateAttachedAdapter(mRecyclerView);
+        StickyHeaderSectionIndex sectionIndex = mStickyHeaderItemDecoration.getSectionIndex();
+
+        int firstPosition = mRecyclerView.getChildAdapterPosition(mRecyclerView.getChildAt(0));
+        int headerPosition = sectionIndex.getHeaderPositionForPosition(firstPosition);
+        if (headerPosition == RecyclerView.NO_POSITION) {
+            mPinnedHeaderPosition = RecyclerView.NO_POSITION;
+            if (mPinnedHeaderContainer.getVisibility() != INVISIBLE) {
+                mPinnedHeaderContainer.setVisibility(INVISIBLE);
+            }
+            return;
+        }
+
+        if (headerPosition != mPinnedHeaderPosition || mPinnedHeaderInvalid) {
+            bindPinnedHeader(headerPosition);
+        }
+
+        // The header of next section pushes pinned header up while it's reaching the top.
+        int offset = 0;
+        int nextHeaderPosition = sectionIndex.getNextHeaderPosition(firstPosition);
+        if (nextHeaderPosition != RecyclerView.NO_POSITION) {
+            View nextHeaderChildView = mRecyclerView.getLayoutManager().findViewByPosition(nextHeaderPosition);
+            if (null != nextHeaderChildView) {
+                int nextHeaderTop = (int) nextHeaderChildView.getY() - mStickyHeaderItemDecoration
+                        .getHeaderView(nextHeaderPosition, mRecyclerView).getMeasuredHeight();
+                offset = Math.min(0, nextHeaderTop - mPinnedHeaderContainer.getHeight());
+            }
+        }
+        float translationY = mRecyclerView.getTop() + offset;
+        if (mPinnedHeaderContainer.getTranslationY() != translationY) {
+            mPinnedHeaderContainer.setTranslationY(translationY);
+        }
+    }
+
+    private void bindPinnedHeader(int headerPosition) {
+        int layoutResId = mStickyHeaderAdapter.getHeaderViewLayoutId(headerPosition);
+        ChopinViewHolder holder = mPinnedHeaderHolders.get(layoutResId);
+        if (null == holder) {
+            holder = new ChopinViewHolder(LayoutInflater.from(getContext())
+                    .inflate(layoutResId, mPinnedHeaderContainer, false));
+            mPinnedHeaderHolders.put(layoutResId, holder);
+        }
+        if (holder != mCurrentPinnedHeaderHolder) {
+            mPinnedHeaderContainer.removeAllViews();
+            mPinnedHeaderContainer.addView(holder.itemView);
+            mCurrentPinnedHeaderHolder = holder;
+        }
+        mStickyHeaderAdapter.onBindHeaderViewHolder(holder, headerPosition);
+        mPinnedHeaderPosition = headerPosition;
+        mPinnedHeaderInvalid = false;
+        mPinnedHeaderContainer.setVisibility(VISIBLE);
+        if (mPinnedHeaderContainer.isLayoutRequested()) {
+            layoutPinnedHeader();
+        }
+    }
+
+    /**
+     * Measure and lay out the pinned header at once as FrameLayout does for it, so the frame being
+     * drawn shows the rebound header instead of waiting for the next layout pass.
+     */
+    private void layoutPinnedHeader() {
+        int left = getPaddingLeft();
+        int top = getPaddingTop();
+        int width = Math.max(0, getWidth() - left - getPaddingRight());
+        int height = Math.max(0, getHeight() - top - getPaddingBottom());
+        mPinnedHeaderContainer.measure(MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY),
+                MeasureSpec.makeMeasureSpec(height, MeasureSpec.AT_MOST));
+        mPinnedHeaderContainer.layout(left, top, left + width, top + mPinnedHeaderContainer.getMeasuredHeight());
+    }
+
+    public interface OnStickyHeaderClickListener {
+        void onClick(View headerView, int headerPosition);
+    }
+}
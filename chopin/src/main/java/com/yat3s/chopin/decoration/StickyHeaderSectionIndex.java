@@ -0,0 +1,154 @@
+package com.yat3s.chopin.decoration;
+
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+
+import com.yat3s.chopin.adapter.StickyHeaderAdapter;
+import com.yat3s.chopin.core.SectionIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Index of sticky header positions, it is built once from {@link StickyHeaderAdapter}
+ * and then updated incrementally by adapter data changes.
+ * <p>
+ * The lookups are done by {@link SectionIndex}, finding the section of a position
+ * or the next header after a position is a binary search.
+ */
+public class StickyHeaderSectionIndex extends RecyclerView.AdapterDataObserver {
+
+    private final SectionIndex mSectionIndex;
+
+    private RecyclerView.Adapter mObservedAdapter;
+
+    private final List<OnIndexChangedListener> mOnIndexChangedListeners = new ArrayList<>();
+
+    public StickyHeaderSectionIndex(@NonNull final StickyHeaderAdapter stickyHeaderAdapter) {
+        mSectionIndex = new SectionIndex(new SectionIndex.HeaderLookup() {
+            @Override
+            public boolean hasHeader(int position) {
+                return stickyHeaderAdapter.hasHeader(position);
+            }
+        });
+    }
+
+    /**
+     * Observe data changes of adapter, the index will be rebuilt while adapter changed.
+     *
+     * @param adapter The adapter of RecyclerView.
+     */
+    public void attachAdapter(RecyclerView.Adapter adapter) {
+        if (mObservedAdapter == adapter) {
+            return;
+        }
+        if (null != mObservedAdapter) {
+            mObservedAdapter.unregisterAdapterDataObserver(this);
+        }
+        mObservedAdapter = adapter;
+        if (null != adapter) {
+            adapter.registerAdapterDataObserver(this);
+            rebuild(adapter.getItemCount());
+        } else {
+            rebuild(0);
+        }
+    }
+
+    public void rebuild(int itemCount) {
+        mSectionIndex.rebuild(itemCount);
+        notifyIndexChanged();
+    }
+
+    public void addOnIndexChangedListener(OnIndexChangedListener onIndexChangedListener) {
+        mOnIndexChangedListeners.add(onIndexChangedListener);
+    }
+
+    public void removeOnIndexChangedListener(OnIndexChangedListener onIndexChangedListener) {
+        mOnIndexChangedListeners.remove(onIndexChangedListener);
+    }
+
+    public boolean hasHeader(int position) {
+        return mSectionIndex.hasHeader(position);
+    }
+
+    public int getSectionCount() {
+        return mSectionIndex.getSectionCount();
+    }
+
+    public int getHeaderPosition(int section) {
+        return mSectionIndex.getHeaderPosition(section);
+    }
+
+    /**
+     * Find the section which owns this position.
+     *
+     * @param position The adapter position.
+     * @return section index, or -1 if there is no header before this position.
+     */
+    public int getSectionForPosition(int position) {
+        return mSectionIndex.getSectionForPosition(position);
+    }
+
+    /**
+     * Find the header position of the section which owns this position.
+     *
+     * @param position The adapter position.
+     * @return header position, or {@link RecyclerView#NO_POSITION} if there is no header before it.
+     */
+    public int getHeaderPositionForPosition(int position) {
+        return mSectionIndex.getHeaderPositionForPosition(position);
+    }
+
+    /**
+     * Find the first header position after this position.
+     *
+     * @param position The adapter position.
+     * @return header position, or {@link RecyclerView#NO_POSITION} if it is in the last section.
+     */
+    public int getNextHeaderPosition(int position) {
+        return mSectionIndex.getNextHeaderPosition(position);
+    }
+
+    @Override
+    public void onChanged() {
+        rebuild(null == mObservedAdapter ? 0 : mObservedAdapter.getItemCount());
+    }
+
+    @Override
+    public void onItemRangeChanged(int positionStart, int itemCount) {
+        mSectionIndex.onItemRangeChanged(positionStart, itemCount);
+        notifyIndexChanged();
+    }
+
+    @Override
+    public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+        onItemRangeChanged(positionStart, itemCount);
+    }
+
+    @Override
+    public void onItemRangeInserted(int positionStart, int itemCount) {
+        mSectionIndex.onItemRangeInserted(positionStart, itemCount);
+        notifyIndexChanged();
+    }
+
+    @Override
+    public void onItemRangeRemoved(int positionStart, int itemCount) {
+        mSectionIndex.onItemRangeRemoved(positionStart, itemCount);
+        notifyIndexChanged();
+    }
+
+    @Override
+    public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+        rebuild(mSectionIndex.getItemCount());
+    }
+
+    private void notifyIndexChanged() {
+        for (int idx = 0; idx < mOnIndexChangedListeners.size(); idx++) {
+            mOnIndexChangedListeners.get(idx).onIndexChanged(this);
+        }
+    }
+
+    public interface OnIndexChangedListener {
+        void onIndexChanged(StickyHeaderSectionIndex sectionIndex);
+    }
+}
@@ -13,7 +13,10 @@ import com.yat3s.chopin.ChopinLayout;
  * Email: hawkoyates@gmail.com
  * GitHub: https://github.com/yat3s
  */
-public class LottieIndicator extends LottieAnimationView implements Indicator {
+public class LottieIndicator extends LottieAnimationView implements PausableIndicator {
+
+    private boolean isPausedByLayout;
+
     public LottieIndicator(Context context) {
         super(context);
     }
@@ -49,19 +52,38 @@ public class LottieIndicator extends LottieAnimationView implements Indicator {
 
     @Override
     public void onCancel(ChopinLayout chopinLayout) {
+        isPausedByLayout = false;
         cancelAnimation();
     }
 
     @Override
     public void onStart(ChopinLayout chopinLayout) {
+        isPausedByLayout = false;
         playAnimation();
     }
 
     @Override
     public void onComplete(ChopinLayout chopinLayout) {
+        isPausedByLayout = false;
         cancelAnimation();
     }
 
+    @Override
+    public void onPause(ChopinLayout chopinLayout) {
+        if (isAnimating()) {
+            pauseAnimation();
+            isPausedByLayout = true;
+        }
+    }
+
+    @Override
+    public void onResume(ChopinLayout chopinLayout) {
+        if (isPausedByLayout) {
+            isPausedByLayout = false;
+            resumeAnimation();
+        }
+    }
+
     @Override
     public void onPositionChange(ChopinLayout chopinLayout, float progress, STATE state, int touchX, int touchY) {
         if ((state == STATE.DRAGGING_DOWN || state == STATE.DRAGGING_UP)
@@ -0,0 +1,18 @@
+package com.yat3s.chopin.indicator;
+
+import com.yat3s.chopin.ChopinLayout;
+
+/**
+ * An indicator which has its own animation, eg. a looping {@link LottieIndicator}. It is paused
+ * while {@link ChopinLayout} is detached from window or invisible, so a background page costs no CPU.
+ */
+public interface PausableIndicator extends Indicator {
+
+    public void onPause(ChopinLayout chopinLayout);
+
+    /**
+     * Resume the animation paused by {@link #onPause(ChopinLayout)}, nothing should happen if it
+     * was not animating.
+     */
+    public void onResume(ChopinLayout chopinLayout);
+}
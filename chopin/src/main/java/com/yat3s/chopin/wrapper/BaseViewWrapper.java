@@ -5,6 +5,8 @@ import android.support.annotation.Nullable;
 import android.support.v4.view.ViewCompat;
 import android.view.View;
 
+import com.yat3s.chopin.ChopinTrace;
+
 /**
  * Created by Yat3s on 19/07/2017.
  * Email: hawkoyates@gmail.com
@@ -15,6 +17,48 @@ public class BaseViewWrapper {
 
     protected View mContentView;
 
+    // Reused by every animateTranslationY(int, int, AnimateListener).
+    private ValueAnimator mAnimator;
+    private int mAnimateStart, mAnimateEnd;
+    private AnimateListener mAnimateListener;
+
+    private int mPendingStart, mPendingEnd;
+    private AnimateListener mPendingListener;
+    private boolean isDispatchingUpdate, isPendingAnimationPosted;
+
+    // While paused, the running animation and the ones going to start are parked as pending.
+    private boolean isPaused, isParked;
+
+    private final ValueAnimator.AnimatorUpdateListener mAnimatorUpdateListener = new ValueAnimator.AnimatorUpdateListener() {
+        @Override
+        public void onAnimationUpdate(ValueAnimator animation) {
+            boolean traced = ChopinTrace.beginSection("BaseViewWrapper#animateTranslationY");
+            try {
+                int start = mAnimateStart, end = mAnimateEnd;
+                int value = (int) (start + animation.getAnimatedFraction() * (end - start));
+                translateVerticalWithOffset(value);
+                AnimateListener animateListener = mAnimateListener;
+                if (null != animateListener) {
+                    isDispatchingUpdate = true;
+                    animateListener.onAnimate(value);
+                    if (end == value) {
+                        animateListener.onFinish();
+                    }
+                    isDispatchingUpdate = false;
+                }
+            } finally {
+                ChopinTrace.endSection(traced);
+            }
+        }
+    };
+
+    private final Runnable mStartPendingAnimationRunnable = new Runnable() {
+        @Override
+        public void run() {
+            startPendingAnimation();
+        }
+    };
+
     public BaseViewWrapper(View contentView) {
         mContentView = contentView;
     }
@@ -43,25 +87,103 @@ public class BaseViewWrapper {
         ViewCompat.setTranslationY(mContentView, offset);
     }
 
-    public void animateTranslationY(final int start, final int end,
-                                    @Nullable final AnimateListener animateListener) {
-        ValueAnimator valueAnimator = ValueAnimator.ofInt(start, end);
-        valueAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                int value = (int) animation.getAnimatedValue();
-                translateVerticalWithOffset(value);
-                if (null != animateListener) {
-                    animateListener.onAnimate(value);
-                    if (end == value) {
-                        animateListener.onFinish();
-                    }
-                }
-            }
-        });
-        int dy = Math.abs(end - start);
-        valueAnimator.setDuration(dy > MAX_SCROLL_DURATION ? MAX_SCROLL_DURATION : dy);
-        valueAnimator.start();
+    /**
+     * Animate translation from start to end, the animator is reused so a running animation is canceled
+     * and its listener will not be notified any more.
+     */
+    public void animateTranslationY(int start, int end, @Nullable AnimateListener animateListener) {
+        mPendingStart = start;
+        mPendingEnd = end;
+        mPendingListener = animateListener;
+        mContentView.removeCallbacks(mStartPendingAnimationRunnable);
+        isPendingAnimationPosted = false;
+        if (isDispatchingUpdate) {
+            // Restarting the animator in its own callback is overridden by its end of this frame.
+            mContentView.post(mStartPendingAnimationRunnable);
+            isPendingAnimationPosted = true;
+            return;
+        }
+        startPendingAnimation();
+    }
+
+    /**
+     * @return Whether an animation of animateTranslationY(int, int, AnimateListener) is running or
+     * going to start.
+     */
+    public boolean isAnimating() {
+        return isPendingAnimationPosted || isParked || (null != mAnimator && mAnimator.isRunning());
+    }
+
+    /**
+     * Cancel the running or going to start animation, its listener will not be notified any more.
+     */
+    public void cancelAnimation() {
+        if (isPendingAnimationPosted) {
+            mContentView.removeCallbacks(mStartPendingAnimationRunnable);
+            isPendingAnimationPosted = false;
+        }
+        isParked = false;
+        mPendingListener = null;
+        mAnimateListener = null;
+        if (null != mAnimator && mAnimator.isRunning()) {
+            mAnimator.cancel();
+        }
+    }
+
+    /**
+     * Stop the running animation at current position, it continues from there with the same listener
+     * after {@link #resumeAnimation()}. Animations started while paused are parked as well.
+     */
+    public void pauseAnimation() {
+        if (isPaused) {
+            return;
+        }
+        isPaused = true;
+        if (isPendingAnimationPosted) {
+            mContentView.removeCallbacks(mStartPendingAnimationRunnable);
+            isPendingAnimationPosted = false;
+            isParked = true;
+        } else if (null != mAnimator && mAnimator.isRunning()) {
+            mPendingStart = getTranslationY();
+            mPendingEnd = mAnimateEnd;
+            mPendingListener = mAnimateListener;
+            mAnimateListener = null;
+            mAnimator.cancel();
+            isParked = true;
+        }
+    }
+
+    public void resumeAnimation() {
+        if (!isPaused) {
+            return;
+        }
+        isPaused = false;
+        if (isParked) {
+            isParked = false;
+            startPendingAnimation();
+        }
+    }
+
+    private void startPendingAnimation() {
+        isPendingAnimationPosted = false;
+        if (isPaused) {
+            isParked = true;
+            return;
+        }
+        if (null == mAnimator) {
+            // Animate fraction rather than int value, ValueAnimator#ofInt boxes value on each frame.
+            mAnimator = ValueAnimator.ofFloat(0f, 1f);
+            mAnimator.addUpdateListener(mAnimatorUpdateListener);
+        } else if (mAnimator.isRunning()) {
+            mAnimator.cancel();
+        }
+        mAnimateStart = mPendingStart;
+        mAnimateEnd = mPendingEnd;
+        mAnimateListener = mPendingListener;
+        mPendingListener = null;
+        int dy = Math.abs(mAnimateEnd - mAnimateStart);
+        mAnimator.setDuration(dy > MAX_SCROLL_DURATION ? MAX_SCROLL_DURATION : dy);
+        mAnimator.start();
     }
 
     public interface AnimateListener {
@@ -0,0 +1,139 @@
+package com.yat3s.chopin;
+
+import android.animation.ValueAnimator;
+import android.content.Context;
+import android.view.View;
+import android.widget.TextView;
+
+import com.yat3s.chopin.core.GestureRecording;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Count bytes allocated by replayed gestures, the steady drag, release and complete collapse of
+ * ChopinLayout should not allocate after warmed up. It relies on HotSpot thread allocation counter.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 25, manifest = Config.NONE)
+public class ChopinLayoutAllocationTest {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+
+    private static final int PULL_DISTANCE = 600;
+
+    private static final long MAX_ANIMATION_DURATION = 300;
+
+    // Same as default collapse delay of ChopinLayout#refreshComplete().
+    private static final long COLLAPSE_DELAY = 100;
+
+    // The first gestures load classes and create the reused animators.
+    private static final int WARM_UP_GESTURE_COUNT = 3;
+
+    // Move events after dragging started are consumed by ChopinLayout only.
+    private static final long DRAG_BUDGET_BYTES = 256;
+
+    // Robolectric allocates for each posted frame, it is measured by the same animations on a bare
+    // view and subtracted, so the budget is only for ChopinLayout.
+    private static final long RELEASE_BUDGET_BYTES = 1024;
+
+    private Context mContext;
+    private GestureReplayer mReplayer;
+    private GestureRecording mRecording;
+
+    // A reused animator on a bare view runs the same frames as ChopinLayout does.
+    private View mBareView;
+    private ValueAnimator mBareAnimator;
+
+    private final Runnable mBareCollapseRunnable = new Runnable() {
+        @Override
+        public void run() {
+            startBareAnimation(GestureReplayer.INDICATOR_HEIGHT, 0);
+        }
+    };
+
+    @Before
+    public void setUp() throws IOException {
+        mContext = RuntimeEnvironment.application;
+        mReplayer = new GestureReplayer(new TextView(mContext), WIDTH, HEIGHT);
+        mRecording = GestureReplayer.recordPull(WIDTH, HEIGHT, PULL_DISTANCE);
+        for (int idx = 0; idx < WARM_UP_GESTURE_COUNT; idx++) {
+            replayAndComplete();
+        }
+    }
+
+    @Test
+    public void steadyDrag_allocatesNothing() {
+        GestureReplayer.Report report = replayAndComplete();
+
+        // Skip DOWN, the move which starts dragging, the first dragging move which dispatches a cancel
+        // event to content view and UP, they go through framework dispatching.
+        long bytes = 0;
+        for (int idx = 3; idx < report.eventAllocatedBytes.size() - 1; idx++) {
+            bytes += report.eventAllocatedBytes.get(idx);
+        }
+        assertTrue(report + ", drag allocated: " + bytes, bytes <= DRAG_BUDGET_BYTES);
+    }
+
+    @Test
+    public void releaseAndCollapse_allocateNoMoreThanBareAnimations() {
+        GestureReplayer.Report report = replayAndComplete();
+        assertEquals(report.toString(), ChopinLayout.STATE_DEFAULT,
+                (int) report.stateTransitions.get(report.stateTransitions.size() - 1));
+
+        mBareView = new View(mContext);
+        mBareAnimator = ValueAnimator.ofFloat(0f, 1f);
+        mBareAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+            @Override
+            public void onAnimationUpdate(ValueAnimator animation) {
+                mBareView.setTranslationY(animation.getAnimatedFraction());
+            }
+        });
+        int releaseOffset = report.getMaxTranslation();
+        long bareBytes = 0;
+        for (int idx = 0; idx <= WARM_UP_GESTURE_COUNT; idx++) {
+            bareBytes = animateBareView(releaseOffset);
+        }
+        long bytes = report.settleAllocatedBytes - bareBytes;
+        assertTrue(report + ", bare animations allocated: " + bareBytes, bytes <= RELEASE_BUDGET_BYTES);
+    }
+
+    /**
+     * Pull to refresh, then complete refreshing and wait until collapsed.
+     */
+    private GestureReplayer.Report replayAndComplete() {
+        GestureReplayer.Report report = mReplayer.replay(mRecording);
+        mReplayer.getChopinLayout().refreshComplete();
+        mReplayer.settle();
+        return report;
+    }
+
+    /**
+     * Run the animations of a release to refresh and a complete collapse on a bare view, the collapse
+     * is started by a delayed runnable as ChopinLayout#refreshComplete() does.
+     *
+     * @return Bytes allocated while running the frames.
+     */
+    private long animateBareView(int releaseOffset) {
+        startBareAnimation(releaseOffset, GestureReplayer.INDICATOR_HEIGHT);
+        long bytes = GestureReplayer.runUntilIdle();
+        mBareView.postDelayed(mBareCollapseRunnable, COLLAPSE_DELAY);
+        return bytes + GestureReplayer.runUntilIdle();
+    }
+
+    private void startBareAnimation(int start, int end) {
+        // Same duration as BaseViewWrapper#animateTranslationY(int, int, AnimateListener).
+        mBareAnimator.setDuration(Math.min(Math.abs(end - start), MAX_ANIMATION_DURATION));
+        mBareAnimator.start();
+    }
+}
@@ -0,0 +1,672 @@
+package com.yat3s.chopin;
+
+import android.app.Activity;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.SystemClock;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.webkit.WebView;
+import android.widget.TextView;
+
+import com.yat3s.chopin.core.GestureRecording;
+import com.yat3s.chopin.core.GestureStatistics;
+import com.yat3s.chopin.core.LatencyBreakdown;
+import com.yat3s.chopin.core.RefreshPolicy;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowSystemClock;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Replay recorded gestures into ChopinLayout with the content views of sample Case*Activity.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 25, manifest = Config.NONE)
+public class ChopinLayoutReplayTest {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+
+    @Test
+    public void pullDownOverRecyclerView_startsRefreshing() throws IOException {
+        Context context = RuntimeEnvironment.application;
+        RecyclerView recyclerView = new RecyclerView(context);
+        recyclerView.setLayoutManager(new LinearLayoutManager(context));
+        assertRefreshing(replay(recyclerView, recordPull(600)));
+    }
+
+    @Test
+    public void pullDownOverTextView_startsRefreshing() throws IOException {
+        assertRefreshing(replay(new TextView(RuntimeEnvironment.application), recordPull(600)));
+    }
+
+    @Test
+    public void pullDownOverWebView_startsRefreshing() throws IOException {
+        assertRefreshing(replay(new WebView(RuntimeEnvironment.application), recordPull(600)));
+    }
+
+    @Test
+    @Config(shadows = ShadowRecordingTrace.class)
+    public void pullDownWithTracing_keepsSectionsBalanced() throws IOException {
+        ShadowRecordingTrace.reset();
+        ChopinTrace.setEnabled(true);
+        try {
+            GestureReplayer replayer = new GestureReplayer(new TextView(RuntimeEnvironment.application), WIDTH, HEIGHT);
+            ChopinLayout chopinLayout = replayer.getChopinLayout();
+            assertRefreshing(replayer.replay(recordPull(600)));
+            int cookie = System.identityHashCode(chopinLayout);
+            assertEquals(Collections.singletonList("STATE_REFRESHING#" + cookie),
+                    ShadowRecordingTrace.sOpenAsyncSections);
+            assertTrue(ShadowRecordingTrace.sCounters.toString(), ShadowRecordingTrace.sCounters
+                    .containsKey("ChopinLayout#" + Integer.toHexString(cookie) + " translationY"));
+
+            chopinLayout.refreshComplete(0);
+            replayer.settle();
+            assertTrue(ShadowRecordingTrace.sSectionCount > 0);
+            assertEquals(0, ShadowRecordingTrace.sSectionDepth);
+            assertEquals(0, ShadowRecordingTrace.sUnbalancedEndCount);
+            assertTrue(ShadowRecordingTrace.sOpenAsyncSections.isEmpty());
+        } finally {
+            ChopinTrace.setEnabled(false);
+        }
+    }
+
+    @Test
+    public void pullDownWithPerformanceHud_drawsOverContent() throws IOException {
+        GestureReplayer replayer = new GestureReplayer(new TextView(RuntimeEnvironment.application), WIDTH, HEIGHT);
+        ChopinLayout chopinLayout = replayer.getChopinLayout();
+        chopinLayout.setPerformanceHudEnabled(true);
+        assertRefreshing(replayer.replay(recordPull(600)));
+        chopinLayout.draw(new Canvas(Bitmap.createBitmap(WIDTH / 4, HEIGHT / 4, Bitmap.Config.ARGB_8888)));
+        chopinLayout.draw(new Canvas(Bitmap.createBitmap(WIDTH / 4, HEIGHT / 4, Bitmap.Config.ARGB_8888)));
+        assertTrue(chopinLayout.isPerformanceHudEnabled());
+
+        chopinLayout.setPerformanceHudEnabled(false);
+        assertFalse(chopinLayout.isPerformanceHudEnabled());
+    }
+
+    @Test
+    public void shortPullDown_isCanceled() throws IOException {
+        GestureReplayer.Report report = replay(new TextView(RuntimeEnvironment.application), recordPull(120));
+        assertTrue(report.toString(), report.indicatorCallbacks.contains("header:cancel"));
+        assertEquals(report.toString(), ChopinLayout.STATE_DEFAULT, lastState(report));
+    }
+
+    @Test
+    public void pullUpOverTextView_startsLoading() throws IOException {
+        GestureReplayer.Report report = replay(new TextView(RuntimeEnvironment.application), recordPull(-600));
+        assertTrue(report.toString(), report.indicatorCallbacks.contains("footer:start"));
+        assertEquals(report.toString(), ChopinLayout.STATE_LOADING, lastState(report));
+    }
+
+    @Test
+    public void pullDownAndComplete_reportsGestureAndCollapseStatistics() throws IOException {
+        GestureReplayer replayer = new GestureReplayer(new TextView(RuntimeEnvironment.application), WIDTH, HEIGHT);
+        final List<String> statistics = new ArrayList<>();
+        replayer.getChopinLayout().setOnGestureStatisticsListener(new ChopinLayout.OnGestureStatisticsListener() {
+            @Override
+            public void onGestureStatistics(ChopinLayout layout, GestureStatistics gestureStatistics) {
+                statistics.add(gestureStatistics.getType()
+                        + ":" + gestureStatistics.getTouchEventCount()
+                        + ":" + (gestureStatistics.getTranslationCount() > 0)
+                        + ":" + (gestureStatistics.getDragFrameCount() > 0)
+                        + ":" + (gestureStatistics.getAnimationFrameCount() > 0)
+                        + ":" + (gestureStatistics.getReleaseToRefreshPositionNanos() >= 0));
+            }
+        });
+        GestureRecording recording = recordPull(600);
+        replayer.replay(recording);
+        replayer.getChopinLayout().refreshComplete();
+        replayer.settle();
+
+        assertEquals(2, statistics.size());
+        assertEquals(GestureStatistics.TYPE_GESTURE + ":" + recording.getEventCount() + ":true:true:true:true",
+                statistics.get(0));
+        assertEquals(GestureStatistics.TYPE_COLLAPSE + ":0:true:false:true:false", statistics.get(1));
+    }
+
+    @Test
+    public void pullDownAndComplete_recordsRefreshLatency() throws IOException {
+        GestureReplayer replayer = new GestureReplayer(new TextView(RuntimeEnvironment.application), WIDTH, HEIGHT);
+        ChopinLayout chopinLayout = replayer.getChopinLayout();
+        replayer.replay(recordPull(600));
+        ShadowSystemClock.sleep(300);
+        chopinLayout.refreshComplete(200);
+        replayer.settle();
+
+        LatencyBreakdown latency = chopinLayout.getRefreshLatency();
+        assertEquals(1, latency.getTotal().getCount());
+        assertEquals(0, chopinLayout.getLoadMoreLatency().getTotal().getCount());
+        long waiting = latency.getWaiting().getMax();
+        long animating = latency.getAnimating().getMax();
+        assertTrue("waiting " + waiting, waiting >= 300);
+        assertTrue("animating " + animating, animating > 0);
+        assertTrue("total " + latency.getTotal().getMax(), latency.getTotal().getMax() >= waiting + animating + 200);
+
+        latency.reset();
+        assertEquals(0, latency.getTotal().getCount());
+    }
+
+    @Test
+    public void tapWhileCollapsing_isIgnored() throws IOException {
+        GestureReplayer replayer = new GestureReplayer(new TextView(RuntimeEnvironment.application), WIDTH, HEIGHT);
+        ChopinLayout chopinLayout = replayer.getChopinLayout();
+        GestureReplayer.Report report = replayer.replay(recordPull(600));
+        chopinLayout.refreshComplete(0);
+        // Collapse has started but not reached rest position.
+        Robolectric.getForegroundThreadScheduler().advanceBy(32, TimeUnit.MILLISECONDS);
+        assertEquals(ChopinLayout.STATE_BOUNCING_UP, lastState(report));
+        touch(chopinLayout, MotionEvent.ACTION_DOWN, HEIGHT / 2);
+        touch(chopinLayout, MotionEvent.ACTION_UP, HEIGHT / 2);
+        replayer.settle();
+
+        assertEquals(report.toString(), 1, count(report.indicatorCallbacks, "header:start"));
+        assertEquals(report.toString(), 0, count(report.indicatorCallbacks, "header:cancel"));
+        assertEquals(report.toString(), ChopinLayout.STATE_DEFAULT, lastState(report));
+    }
+
+    @Test
+    public void completeWhileDragging_collapsesAfterRelease() throws IOException {
+        GestureReplayer replayer = new GestureReplayer(new TextView(RuntimeEnvironment.application), WIDTH, HEIGHT);
+        ChopinLayout chopinLayout = replayer.getChopinLayout();
+        GestureReplayer.Report report = replayer.replay(recordPull(600));
+        touch(chopinLayout, MotionEvent.ACTION_DOWN, HEIGHT / 2);
+        touch(chopinLayout, MotionEvent.ACTION_MOVE, HEIGHT / 2 + 100);
+        chopinLayout.refreshComplete(0);
+        replayer.settle();
+        // Completion is deferred, content is still under finger.
+        assertEquals(report.toString(), ChopinLayout.STATE_REFRESHING, lastState(report));
+
+        touch(chopinLayout, MotionEvent.ACTION_UP, HEIGHT / 2 + 100);
+        replayer.settle();
+        assertEquals(report.toString(), 1, count(report.indicatorCallbacks, "header:start"));
+        assertEquals(report.toString(), ChopinLayout.STATE_DEFAULT, lastState(report));
+    }
+
+    @Test
+    public void performRefreshBeforeFirstFrame_refreshesOnceAfterIt() {
+        GestureReplayer replayer = new GestureReplayer(new TextView(RuntimeEnvironment.application), WIDTH, HEIGHT);
+        ChopinLayout chopinLayout = replayer.getChopinLayout();
+        final List<Integer> states = new ArrayList<>();
+        chopinLayout.setOnStateChangeListener(new ChopinLayout.OnStateChangeListener() {
+            @Override
+            public void onStateChanged(ChopinLayout layout, int newState) {
+                states.add(newState);
+            }
+        });
+        chopinLayout.performRefresh();
+        chopinLayout.performRefresh();
+        GestureReplayer.runUntilIdle();
+        // Laid out but not attached, nothing is drawn yet.
+        assertTrue(states.toString(), states.isEmpty());
+        assertEquals(-1, chopinLayout.getAttachToInitialRefreshMills());
+
+        attach(chopinLayout);
+        GestureReplayer.runUntilIdle();
+        assertEquals(states.toString(), 1, Collections.frequency(states, ChopinLayout.STATE_REFRESHING));
+        assertTrue(chopinLayout.getAttachToInitialRefreshMills() >= 0);
+    }
+
+    @Test
+    public void detachWhileCollapsing_parksUntilReattached() throws IOException {
+        GestureReplayer replayer = new GestureReplayer(new TextView(RuntimeEnvironment.application), WIDTH, HEIGHT);
+        ChopinLayout chopinLayout = replayer.getChopinLayout();
+        attach(chopinLayout);
+        GestureReplayer.Report report = replayer.replay(recordPull(600));
+        chopinLayout.refreshComplete(0);
+        Robolectric.getForegroundThreadScheduler().advanceBy(32, TimeUnit.MILLISECONDS);
+        assertEquals(ChopinLayout.STATE_BOUNCING_UP, lastState(report));
+
+        ((ViewGroup) chopinLayout.getParent()).removeView(chopinLayout);
+        int translation = (int) chopinLayout.getChildAt(0).getTranslationY();
+        replayer.settle();
+        // Nothing runs while detached.
+        assertFalse(Robolectric.getForegroundThreadScheduler().areAnyRunnable());
+        assertEquals(report.toString(), ChopinLayout.STATE_BOUNCING_UP, lastState(report));
+        assertEquals(translation, (int) chopinLayout.getChildAt(0).getTranslationY());
+        assertEquals(report.toString(), 1, count(report.indicatorCallbacks, "header:pause"));
+
+        attach(chopinLayout);
+        replayer.settle();
+        assertEquals(report.toString(), 1, count(report.indicatorCallbacks, "header:resume"));
+        assertEquals(report.toString(), ChopinLayout.STATE_DEFAULT, lastState(report));
+    }
+
+    @Test
+    public void hiddenWithPendingCompletion_collapsesOnceShown() throws IOException {
+        GestureReplayer replayer = new GestureReplayer(new TextView(RuntimeEnvironment.application), WIDTH, HEIGHT);
+        ChopinLayout chopinLayout = replayer.getChopinLayout();
+        attach(chopinLayout);
+        GestureReplayer.Report report = replayer.replay(recordPull(600));
+        chopinLayout.setVisibility(View.GONE);
+        chopinLayout.refreshComplete(1000);
+        replayer.settle();
+        assertEquals(report.toString(), ChopinLayout.STATE_REFRESHING, lastState(report));
+
+        chopinLayout.setVisibility(View.VISIBLE);
+        replayer.settle();
+        assertEquals(report.toString(), ChopinLayout.STATE_DEFAULT, lastState(report));
+    }
+
+    @Test
+    public void asyncRefresh_appliesResultAndCompletes() throws IOException {
+        GestureReplayer replayer = new GestureReplayer(new TextView(RuntimeEnvironment.application), WIDTH, HEIGHT);
+        List<String> results = new ArrayList<>();
+        replayer.getChopinLayout().setOnAsyncRefreshListener(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        }, new RecordingLoader(results));
+        GestureReplayer.Report report = replayer.replay(recordPull(600));
+
+        assertEquals(report.toString(), 1, count(report.indicatorCallbacks, "header:complete"));
+        assertEquals(report.toString(), ChopinLayout.STATE_DEFAULT, lastState(report));
+        assertEquals(Collections.singletonList("loaded:data"), results);
+    }
+
+    @Test
+    public void asyncRefreshTimeout_cancelsAndCompletes() throws IOException {
+        GestureReplayer replayer = new GestureReplayer(new TextView(RuntimeEnvironment.application), WIDTH, HEIGHT);
+        List<String> results = new ArrayList<>();
+        final List<Runnable> tasks = new ArrayList<>();
+        replayer.getChopinLayout().setAsyncLoadTimeout(5000);
+        replayer.getChopinLayout().setOnAsyncRefreshListener(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        }, new RecordingLoader(results));
+        GestureReplayer.Report report = replayer.replay(recordPull(600));
+
+        assertEquals(report.toString(), ChopinLayout.STATE_DEFAULT, lastState(report));
+        assertEquals(Collections.singletonList("failed:TimeoutException"), results);
+        assertTrue(((Future<?>) tasks.get(0)).isCancelled());
+    }
+
+    @Test
+    public void asyncRefreshTimeout_doesNotSkipNextPull() throws IOException {
+        GestureReplayer replayer = new GestureReplayer(new TextView(RuntimeEnvironment.application), WIDTH, HEIGHT);
+        ChopinLayout chopinLayout = replayer.getChopinLayout();
+        List<String> results = new ArrayList<>();
+        final List<Runnable> tasks = new ArrayList<>();
+        chopinLayout.setMinRefreshInterval(60000);
+        chopinLayout.setAsyncLoadTimeout(5000);
+        chopinLayout.setOnAsyncRefreshListener(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        }, new RecordingLoader(results));
+        replayer.replay(recordPull(600));
+        assertEquals(Collections.singletonList("failed:TimeoutException"), results);
+
+        GestureReplayer.Report report = replayer.replay(recordPull(600));
+        assertEquals(report.toString(), 2, tasks.size());
+        assertEquals(0, chopinLayout.getRefreshPolicy().getDecisionCount(RefreshPolicy.DECISION_SKIP));
+    }
+
+    @Test
+    public void detachWhileAsyncRefreshing_cancelsWork() throws IOException {
+        GestureReplayer replayer = new GestureReplayer(new TextView(RuntimeEnvironment.application), WIDTH, HEIGHT);
+        ChopinLayout chopinLayout = replayer.getChopinLayout();
+        List<String> results = new ArrayList<>();
+        final List<Runnable> tasks = new ArrayList<>();
+        // Settling runs every delayed runnable, so it would time out.
+        chopinLayout.setAsyncLoadTimeout(0);
+        chopinLayout.setOnAsyncRefreshListener(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        }, new RecordingLoader(results));
+        attach(chopinLayout);
+        GestureReplayer.Report report = replayer.replay(recordPull(600));
+        assertEquals(report.toString(), ChopinLayout.STATE_REFRESHING, lastState(report));
+
+        ((ViewGroup) chopinLayout.getParent()).removeView(chopinLayout);
+        assertTrue(((Future<?>) tasks.get(0)).isCancelled());
+        // The late result of canceled work is dropped.
+        tasks.get(0).run();
+        attach(chopinLayout);
+        replayer.settle();
+        assertEquals(report.toString(), ChopinLayout.STATE_DEFAULT, lastState(report));
+        assertTrue(results.toString(), results.isEmpty());
+    }
+
+    @Test
+    public void completeFromWorkerThreads_coalescesIntoOnePost() throws Exception {
+        GestureReplayer replayer = new GestureReplayer(new TextView(RuntimeEnvironment.application), WIDTH, HEIGHT);
+        final ChopinLayout chopinLayout = replayer.getChopinLayout();
+        GestureReplayer.Report report = replayer.replay(recordPull(600));
+        Thread[] threads = new Thread[4];
+        for (int idx = 0; idx < threads.length; idx++) {
+            threads[idx] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int count = 0; count < 10; count++) {
+                        chopinLayout.refreshComplete(0);
+                    }
+                }
+            });
+            threads[idx].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1, Robolectric.getForegroundThreadScheduler().size());
+        assertEquals(report.toString(), ChopinLayout.STATE_REFRESHING, lastState(report));
+
+        replayer.settle();
+        assertEquals(report.toString(), 1, count(report.indicatorCallbacks, "header:complete"));
+        assertEquals(report.toString(), ChopinLayout.STATE_DEFAULT, lastState(report));
+    }
+
+    @Test
+    public void pullStorm_isSkippedThenRevalidated() throws IOException {
+        GestureReplayer replayer = new GestureReplayer(new TextView(RuntimeEnvironment.application), WIDTH, HEIGHT);
+        ChopinLayout chopinLayout = replayer.getChopinLayout();
+        final List<String> calls = new ArrayList<>();
+        chopinLayout.setOnRefreshListener(new ChopinLayout.OnRefreshListener() {
+            @Override
+            public void onRefresh() {
+                calls.add("refresh");
+            }
+        });
+        chopinLayout.setMinRefreshInterval(5000);
+        chopinLayout.setStaleWhileRevalidate(60000, new ChopinLayout.OnRevalidateListener() {
+            @Override
+            public void onRevalidate(ChopinLayout layout) {
+                calls.add("revalidate");
+            }
+        });
+        replayer.replay(recordPull(600));
+        chopinLayout.refreshComplete();
+        replayer.settle();
+
+        GestureReplayer.Report report = replayer.replay(recordPull(600));
+        assertEquals(report.toString(), ChopinLayout.STATE_DEFAULT, lastState(report));
+        assertEquals(report.toString(), 1, count(report.indicatorCallbacks, "header:complete"));
+        Robolectric.getForegroundThreadScheduler().advanceBy(5000, TimeUnit.MILLISECONDS);
+        report = replayer.replay(recordPull(600));
+        assertEquals(report.toString(), ChopinLayout.STATE_DEFAULT, lastState(report));
+
+        assertEquals(Arrays.asList("refresh", "revalidate"), calls);
+        assertEquals(1, chopinLayout.getRefreshPolicy().getDecisionCount(RefreshPolicy.DECISION_SKIP));
+    }
+
+    @Test
+    public void preRefresh_isPromotedOnRelease() throws IOException {
+        final GestureReplayer replayer = new GestureReplayer(new TextView(RuntimeEnvironment.application), WIDTH, HEIGHT);
+        ChopinLayout chopinLayout = replayer.getChopinLayout();
+        final List<String> calls = new ArrayList<>();
+        chopinLayout.setOnRefreshListener(new ChopinLayout.OnRefreshListener() {
+            @Override
+            public void onRefresh() {
+                calls.add("refresh");
+            }
+        });
+        final List<String> indicatorCallbacksWhileLoaded = new ArrayList<>();
+        RecordingLoader loader = new RecordingLoader(calls) {
+            @Override
+            public void onLoaded(ChopinLayout chopinLayout, String result) {
+                super.onLoaded(chopinLayout, result);
+                indicatorCallbacksWhileLoaded.addAll(replayer.getReport().indicatorCallbacks);
+            }
+        };
+        chopinLayout.setOnAsyncRefreshListener(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                calls.add("load");
+                command.run();
+            }
+        }, loader);
+        chopinLayout.setPreRefreshThreshold(0.8f, new RecordingPreRefreshListener(calls));
+        GestureReplayer.Report report = replayer.replay(recordPull(600));
+
+        // The result arrived while dragging, it's held and applied ONLY once refreshing.
+        assertEquals(Arrays.asList("pre", "load", "loaded:data"), calls);
+        assertEquals(Collections.singletonList("header:start"), indicatorCallbacksWhileLoaded);
+        assertTrue(report.toString(), report.indicatorCallbacks.indexOf("header:start")
+                < report.indicatorCallbacks.indexOf("header:complete"));
+        assertTrue(report.toString(), report.stateTransitions.contains(ChopinLayout.STATE_REFRESHING));
+        assertEquals(report.toString(), ChopinLayout.STATE_DEFAULT, lastState(report));
+    }
+
+    @Test
+    public void preRefresh_isCanceledByAbort() throws IOException {
+        GestureReplayer replayer = new GestureReplayer(new TextView(RuntimeEnvironment.application), WIDTH, HEIGHT);
+        ChopinLayout chopinLayout = replayer.getChopinLayout();
+        List<String> calls = new ArrayList<>();
+        chopinLayout.setPreRefreshThreshold(0.5f, new RecordingPreRefreshListener(calls));
+        GestureReplayer.Report report = replayer.replay(recordPull(120));
+
+        assertTrue(report.toString(), report.indicatorCallbacks.contains("header:cancel"));
+        assertEquals(Arrays.asList("pre", "cancel"), calls);
+        assertFalse(chopinLayout.getRefreshPolicy().isInFlight(SystemClock.uptimeMillis()));
+    }
+
+    @Test
+    public void preRefresh_heldResultIsDiscardedByAbort() throws IOException {
+        GestureReplayer replayer = new GestureReplayer(new TextView(RuntimeEnvironment.application), WIDTH, HEIGHT);
+        ChopinLayout chopinLayout = replayer.getChopinLayout();
+        List<String> calls = new ArrayList<>();
+        chopinLayout.setMinRefreshInterval(60000);
+        chopinLayout.setOnAsyncRefreshListener(DIRECT_EXECUTOR, new RecordingLoader(calls));
+        chopinLayout.setPreRefreshThreshold(0.5f, new RecordingPreRefreshListener(calls));
+        GestureReplayer.Report report = replayer.replay(recordPull(120));
+
+        assertTrue(report.toString(), report.indicatorCallbacks.contains("header:cancel"));
+        assertEquals(Arrays.asList("pre", "cancel"), calls);
+        // Nothing is counted as refreshed, the next pull refreshes.
+        assertEquals(RefreshPolicy.DECISION_REFRESH,
+                chopinLayout.getRefreshPolicy().decide(SystemClock.uptimeMillis(), false));
+    }
+
+    @Test
+    public void stagedData_isShownThenAppliedByTap() {
+        GestureReplayer replayer = new GestureReplayer(new TextView(RuntimeEnvironment.application), WIDTH, HEIGHT);
+        ChopinLayout chopinLayout = replayer.getChopinLayout();
+        TextView notificationView = new TextView(RuntimeEnvironment.application);
+        chopinLayout.setHeaderNotificationView(notificationView);
+        List<String> calls = new ArrayList<>();
+        chopinLayout.setFreshnessProbe(DIRECT_EXECUTOR, 60000, new RecordingProbe(calls));
+        attach(chopinLayout);
+        replayer.settle();
+        assertEquals(Arrays.asList("probe", "staged:data1"), calls);
+        assertEquals(View.VISIBLE, notificationView.getVisibility());
+
+        notificationView.performClick();
+        assertEquals(Arrays.asList("probe", "staged:data1", "apply:data1"), calls);
+        assertEquals(View.GONE, notificationView.getVisibility());
+        assertFalse(chopinLayout.hasStagedData());
+    }
+
+    @Test
+    public void stagedNotificationTap_isDispatchedToAppListener() {
+        GestureReplayer replayer = new GestureReplayer(new TextView(RuntimeEnvironment.application), WIDTH, HEIGHT);
+        ChopinLayout chopinLayout = replayer.getChopinLayout();
+        TextView notificationView = new TextView(RuntimeEnvironment.application);
+        chopinLayout.setHeaderNotificationView(notificationView);
+        final List<String> calls = new ArrayList<>();
+        chopinLayout.setOnHeaderNotificationClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                calls.add("click");
+            }
+        });
+        chopinLayout.setFreshnessProbe(DIRECT_EXECUTOR, 60000, new RecordingProbe(calls));
+        attach(chopinLayout);
+        replayer.settle();
+
+        notificationView.performClick();
+        assertEquals(Arrays.asList("probe", "staged:data1", "apply:data1", "click"), calls);
+        notificationView.performClick();
+        assertEquals(Arrays.asList("probe", "staged:data1", "apply:data1", "click", "click"), calls);
+
+        chopinLayout.setOnHeaderNotificationClickListener(null);
+        assertFalse(notificationView.isClickable());
+    }
+
+    @Test
+    public void pullWithStagedData_appliesWithoutRefreshing() throws IOException {
+        GestureReplayer replayer = new GestureReplayer(new TextView(RuntimeEnvironment.application), WIDTH, HEIGHT);
+        ChopinLayout chopinLayout = replayer.getChopinLayout();
+        final List<String> calls = new ArrayList<>();
+        chopinLayout.setOnRefreshListener(new ChopinLayout.OnRefreshListener() {
+            @Override
+            public void onRefresh() {
+                calls.add("refresh");
+            }
+        });
+        chopinLayout.setHeaderNotificationView(new TextView(RuntimeEnvironment.application));
+        chopinLayout.setFreshnessProbe(DIRECT_EXECUTOR, 60000, new RecordingProbe(calls));
+        attach(chopinLayout);
+        replayer.settle();
+        GestureReplayer.Report report = replayer.replay(recordPull(600));
+
+        // The next probe stages newer data once an interval has passed.
+        assertEquals(Arrays.asList("probe", "staged:data1", "apply:data1", "probe", "staged:data2"), calls);
+        assertEquals(report.toString(), 1, count(report.indicatorCallbacks, "header:complete"));
+        assertEquals(report.toString(), ChopinLayout.STATE_DEFAULT, lastState(report));
+    }
+
+    private static Activity attach(View view) {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        activity.setContentView(view);
+        // Robolectric does not run traversals of ViewRootImpl, which dispatch window visibility.
+        activity.getWindow().getDecorView().dispatchWindowVisibilityChanged(View.VISIBLE);
+        return activity;
+    }
+
+    private static void touch(ChopinLayout chopinLayout, int action, int y) {
+        long now = SystemClock.uptimeMillis();
+        MotionEvent event = MotionEvent.obtain(now, now, action, WIDTH / 2, y, 0);
+        chopinLayout.dispatchTouchEvent(event);
+        event.recycle();
+    }
+
+    private static int count(List<String> values, String value) {
+        int count = 0;
+        for (String item : values) {
+            if (value.equals(item)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void assertRefreshing(GestureReplayer.Report report) {
+        assertTrue(report.toString(), report.stateTransitions.contains(ChopinLayout.STATE_DRAGGING_DOWN));
+        assertTrue(report.toString(), report.indicatorCallbacks.contains("header:start"));
+        assertEquals(report.toString(), ChopinLayout.STATE_REFRESHING, lastState(report));
+        assertTrue(report.toString(), report.getMaxTranslation() > 0);
+    }
+
+    private static int lastState(GestureReplayer.Report report) {
+        return report.stateTransitions.get(report.stateTransitions.size() - 1);
+    }
+
+    private static GestureReplayer.Report replay(View contentView, GestureRecording recording) {
+        return new GestureReplayer(contentView, WIDTH, HEIGHT).replay(recording);
+    }
+
+    private static GestureRecording recordPull(int distance) throws IOException {
+        return GestureReplayer.recordPull(WIDTH, HEIGHT, distance);
+    }
+
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private static class RecordingProbe implements FreshnessProbe<String> {
+        private final List<String> mCalls;
+        private int mProbeCount;
+
+        RecordingProbe(List<String> calls) {
+            mCalls = calls;
+        }
+
+        @Override
+        public String probe() {
+            mCalls.add("probe");
+            return "data" + ++mProbeCount;
+        }
+
+        @Override
+        public void onStaged(ChopinLayout chopinLayout, String staged) {
+            mCalls.add("staged:" + staged);
+        }
+
+        @Override
+        public void onApply(ChopinLayout chopinLayout, String staged) {
+            mCalls.add("apply:" + staged);
+        }
+    }
+
+    private static class RecordingPreRefreshListener implements ChopinLayout.OnPreRefreshListener {
+        private final List<String> mCalls;
+
+        RecordingPreRefreshListener(List<String> calls) {
+            mCalls = calls;
+        }
+
+        @Override
+        public void onPreRefresh(ChopinLayout layout) {
+            mCalls.add("pre");
+        }
+
+        @Override
+        public void onCancelPreRefresh(ChopinLayout layout) {
+            mCalls.add("cancel");
+        }
+    }
+
+    private static class RecordingLoader implements AsyncLoader<String> {
+        private final List<String> mResults;
+
+        RecordingLoader(List<String> results) {
+            mResults = results;
+        }
+
+        @Override
+        public String load() {
+            return "data";
+        }
+
+        @Override
+        public void onLoaded(ChopinLayout chopinLayout, String result) {
+            mResults.add("loaded:" + result);
+        }
+
+        @Override
+        public void onFailed(ChopinLayout chopinLayout, Throwable error) {
+            mResults.add("failed:" + error.getClass().getSimpleName());
+        }
+    }
+}
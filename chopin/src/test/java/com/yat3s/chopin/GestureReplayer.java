@@ -0,0 +1,289 @@
+package com.yat3s.chopin;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import com.sun.management.ThreadMXBean;
+import com.yat3s.chopin.core.GestureRecorder;
+import com.yat3s.chopin.core.GestureRecording;
+import com.yat3s.chopin.indicator.PausableIndicator;
+
+import org.robolectric.Robolectric;
+import org.robolectric.shadows.ShadowChoreographer;
+import org.robolectric.util.Scheduler;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replay a {@link GestureRecording} into a {@link ChopinLayout} on Robolectric main looper,
+ * the recorded time between events is advanced on the scheduler so animations and delayed
+ * runnables run as they did while recording.
+ */
+public class GestureReplayer {
+
+    static final int INDICATOR_HEIGHT = 120;
+
+    private static final int FRAME_MILLIS = 16;
+
+    // Guard against an endless animation, e.g. a looping indicator.
+    private static final int MAX_SETTLE_RUNNABLES = 10000;
+
+    private static final ThreadMXBean THREAD_MX_BEAN = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Measuring itself allocates a few arrays.
+    private static final long MEASURE_OVERHEAD_BYTES = measureOverheadBytes();
+
+    private final ChopinLayout mChopinLayout;
+    private final View mContentView;
+    private Report mReport = new Report();
+
+    /**
+     * Wrap content view with a ChopinLayout which has a recording header and footer indicator.
+     *
+     * @param contentView The content, eg. RecyclerView, TextView or WebView.
+     * @param width       The layout width.
+     * @param height      The layout height.
+     */
+    public GestureReplayer(@NonNull View contentView, int width, int height) {
+        mContentView = contentView;
+        mChopinLayout = new ChopinLayout(contentView.getContext());
+        mChopinLayout.addView(contentView);
+        mChopinLayout.onFinishInflate();
+        mChopinLayout.setRefreshHeaderIndicator(new RecordingIndicator("header"));
+        mChopinLayout.setLoadingFooterIndicator(new RecordingIndicator("footer"));
+        mChopinLayout.setOnStateChangeListener(new ChopinLayout.OnStateChangeListener() {
+            @Override
+            public void onStateChanged(ChopinLayout layout, int newState) {
+                mReport.stateTransitions.add(newState);
+            }
+        });
+        mChopinLayout.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.EXACTLY));
+        mChopinLayout.layout(0, 0, width, height);
+    }
+
+    public ChopinLayout getChopinLayout() {
+        return mChopinLayout;
+    }
+
+    /**
+     * @return The report of the replay in progress, eg. checked by a callback while replaying.
+     */
+    public Report getReport() {
+        return mReport;
+    }
+
+    /**
+     * Dispatch every recorded event and wait until all animations finished.
+     *
+     * @param recording
+     * @return The report of this replay, callbacks after it returned are added to it as well.
+     */
+    public Report replay(@NonNull GestureRecording recording) {
+        mReport = new Report();
+        // Frame callbacks run inline without a delay, queue them so animators advance with the clock.
+        ShadowChoreographer.setPostFrameCallbackDelay(FRAME_MILLIS);
+        final long startTime = SystemClock.uptimeMillis();
+        long downTime = startTime;
+        long lastEventTime = 0;
+        for (int idx = 0; idx < recording.getEventCount(); idx++) {
+            long eventTime = recording.getEventTime(idx);
+            advanceBy(eventTime - lastEventTime);
+            lastEventTime = eventTime;
+
+            int action = recording.getAction(idx);
+            if (action == GestureRecording.ACTION_DOWN) {
+                downTime = startTime + eventTime;
+            }
+            MotionEvent event = MotionEvent.obtain(downTime, startTime + eventTime, action,
+                    recording.getX(idx), recording.getY(idx), 0);
+            long startBytes = getAllocatedBytes();
+            long start = System.nanoTime();
+            mChopinLayout.dispatchTouchEvent(event);
+            long nanos = System.nanoTime() - start;
+            long allocatedBytes = getAllocatedBytes() - startBytes - MEASURE_OVERHEAD_BYTES;
+            mReport.eventNanos.add(nanos);
+            mReport.eventAllocatedBytes.add(allocatedBytes);
+            mReport.translations.add((int) mContentView.getTranslationY());
+            event.recycle();
+        }
+        settle();
+        return mReport;
+    }
+
+    /**
+     * Run animations and delayed runnables until nothing is left, eg. after
+     * {@link ChopinLayout#refreshComplete()}. Animations post a new frame callback on each frame,
+     * so posted runnables are run one by one instead of running the current queue once.
+     * Allocated bytes are added to {@link Report#settleAllocatedBytes}.
+     */
+    public void settle() {
+        mReport.settleAllocatedBytes += runUntilIdle();
+    }
+
+    /**
+     * Run all posted runnables of main looper, include animation frames of any view.
+     *
+     * @return Bytes allocated while running.
+     */
+    public static long runUntilIdle() {
+        long startBytes = getAllocatedBytes();
+        Scheduler scheduler = Robolectric.getForegroundThreadScheduler();
+        for (int idx = 0; idx < MAX_SETTLE_RUNNABLES && scheduler.advanceToNextPostedRunnable(); idx++) {
+        }
+        return getAllocatedBytes() - startBytes - MEASURE_OVERHEAD_BYTES;
+    }
+
+    /**
+     * Record a vertical drag from the middle of view in 30 frames, then save and read it back
+     * as it is loaded from a production trace.
+     *
+     * @param distance Drag distance, positive is pulling down.
+     */
+    public static GestureRecording recordPull(int width, int height, int distance) throws IOException {
+        final int frameCount = 30;
+        GestureRecorder recorder = new GestureRecorder();
+        recorder.setViewSize(width, height);
+        float x = width / 2f, y = height / 2f;
+        long time = 0;
+        recorder.record(GestureRecording.ACTION_DOWN, time, x, y);
+        for (int frame = 1; frame <= frameCount; frame++) {
+            time += FRAME_MILLIS;
+            recorder.record(GestureRecording.ACTION_MOVE, time, x, y + distance * frame / (float) frameCount);
+        }
+        recorder.record(GestureRecording.ACTION_UP, time + FRAME_MILLIS, x, y + distance);
+        return GestureRecording.readFrom(new ByteArrayInputStream(recorder.toRecording().toByteArray()));
+    }
+
+    private static void advanceBy(long millis) {
+        if (millis > 0) {
+            Robolectric.getForegroundThreadScheduler().advanceBy(millis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @return Bytes allocated by current thread so far, it is only available on HotSpot.
+     */
+    private static long getAllocatedBytes() {
+        return THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static long measureOverheadBytes() {
+        long start = getAllocatedBytes();
+        return getAllocatedBytes() - start;
+    }
+
+    public static class Report {
+        // Dispatch time of each event.
+        public final List<Long> eventNanos = new ArrayList<>();
+
+        // Bytes allocated while dispatching each event.
+        public final List<Long> eventAllocatedBytes = new ArrayList<>();
+
+        // Bytes allocated while running animations and delayed runnables after the last event.
+        public long settleAllocatedBytes;
+
+        // Translation of content view after each event.
+        public final List<Integer> translations = new ArrayList<>();
+
+        public final List<Integer> stateTransitions = new ArrayList<>();
+
+        public final List<String> indicatorCallbacks = new ArrayList<>();
+
+        public int getMaxTranslation() {
+            int max = 0;
+            for (int translation : translations) {
+                max = Math.max(max, Math.abs(translation));
+            }
+            return max;
+        }
+
+        public long getDispatchAllocatedBytes() {
+            long total = 0;
+            for (long bytes : eventAllocatedBytes) {
+                total += bytes;
+            }
+            return total;
+        }
+
+        @Override
+        public String toString() {
+            long total = 0, max = 0;
+            for (long nanos : eventNanos) {
+                total += nanos;
+                max = Math.max(max, nanos);
+            }
+            return "events: " + eventNanos.size()
+                    + ", avg ns: " + (eventNanos.isEmpty() ? 0 : total / eventNanos.size())
+                    + ", max ns: " + max
+                    + ", dispatch allocated: " + getDispatchAllocatedBytes()
+                    + ", settle allocated: " + settleAllocatedBytes
+                    + ", max translation: " + getMaxTranslation()
+                    + ", states: " + stateTransitions
+                    + ", indicator: " + indicatorCallbacks;
+        }
+    }
+
+    private class RecordingIndicator implements PausableIndicator {
+        // Callback names are built once, so recording does not count in allocations of replay.
+        private final String mCancel, mStart, mComplete, mPause, mResume;
+        private final View mView;
+
+        RecordingIndicator(String name) {
+            mCancel = name + ":cancel";
+            mStart = name + ":start";
+            mComplete = name + ":complete";
+            mPause = name + ":pause";
+            mResume = name + ":resume";
+            mView = new FrameLayout(mChopinLayout.getContext());
+            mView.setMinimumHeight(INDICATOR_HEIGHT);
+        }
+
+        @NonNull
+        @Override
+        public View getView() {
+            return mView;
+        }
+
+        @Override
+        public void onViewMeasured(ChopinLayout chopinLayout, View indicatorView) {
+        }
+
+        @Override
+        public void onCancel(ChopinLayout chopinLayout) {
+            mReport.indicatorCallbacks.add(mCancel);
+        }
+
+        @Override
+        public void onStart(ChopinLayout chopinLayout) {
+            mReport.indicatorCallbacks.add(mStart);
+        }
+
+        @Override
+        public void onComplete(ChopinLayout chopinLayout) {
+            mReport.indicatorCallbacks.add(mComplete);
+        }
+
+        @Override
+        public void onPause(ChopinLayout chopinLayout) {
+            mReport.indicatorCallbacks.add(mPause);
+        }
+
+        @Override
+        public void onResume(ChopinLayout chopinLayout) {
+            mReport.indicatorCallbacks.add(mResume);
+        }
+
+        @Override
+        public void onPositionChange(ChopinLayout chopinLayout, float progress, STATE state, int touchX, int touchY) {
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.yat3s.chopin;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.yat3s.chopin.adapter.ViewHolderCounter;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowSystemClock;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 25, manifest = Config.NONE)
+public class PerformanceHudTest {
+
+    private final Canvas mCanvas = new Canvas(Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888));
+
+    @Test
+    public void draw_showsCountsOfLastFrame() {
+        View view = new View(RuntimeEnvironment.application);
+        PerformanceHud hud = new PerformanceHud(view, new String[]{"STATE_DEFAULT"});
+        hud.countTouchEvent();
+        hud.countTouchEvent();
+        hud.countTouchEvent();
+        hud.countTranslation();
+        hud.countTranslation();
+        hud.draw(mCanvas, 0, view);
+        assertEquals(3, hud.getFrameTouchEventCount());
+        assertEquals(2, hud.getFrameTranslationCount());
+
+        hud.draw(mCanvas, 0, view);
+        assertEquals(0, hud.getFrameTouchEventCount());
+        assertEquals(0, hud.getFrameTranslationCount());
+    }
+
+    @Test
+    public void draw_showsRatesOfLastWindow() {
+        RecyclerView recyclerView = new RecyclerView(RuntimeEnvironment.application);
+        CountingAdapter adapter = new CountingAdapter();
+        recyclerView.setAdapter(adapter);
+        PerformanceHud hud = new PerformanceHud(recyclerView, new String[]{"STATE_DEFAULT"});
+        hud.draw(mCanvas, 0, recyclerView);
+
+        for (int idx = 0; idx < 4; idx++) {
+            hud.countIndicatorCallback();
+        }
+        adapter.mCreatedCount = 6;
+        adapter.mBoundCount = 10;
+        ShadowSystemClock.sleep(500);
+        hud.draw(mCanvas, 0, recyclerView);
+        assertEquals(0, hud.getIndicatorCallbackRate());
+
+        ShadowSystemClock.sleep(1500);
+        hud.draw(mCanvas, 0, recyclerView);
+        assertEquals(2, hud.getIndicatorCallbackRate());
+        assertEquals(3, hud.getCreatedRate());
+        assertEquals(5, hud.getBoundRate());
+    }
+
+    private static class CountingAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
+            implements ViewHolderCounter {
+        int mCreatedCount, mBoundCount;
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+        }
+
+        @Override
+        public int getItemCount() {
+            return 0;
+        }
+
+        @Override
+        public int getCreatedViewHolderCount() {
+            return mCreatedCount;
+        }
+
+        @Override
+        public int getBoundViewHolderCount() {
+            return mBoundCount;
+        }
+    }
+}
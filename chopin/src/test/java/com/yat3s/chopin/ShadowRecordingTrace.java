@@ -0,0 +1,63 @@
+package com.yat3s.chopin;
+
+import android.os.Trace;
+
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Record sections, async sections and counters which are written to android.os.Trace.
+ */
+@Implements(Trace.class)
+public class ShadowRecordingTrace {
+    static int sSectionCount;
+    static int sSectionDepth;
+    static int sUnbalancedEndCount;
+    static final List<String> sOpenAsyncSections = new ArrayList<>();
+    static final Map<String, Integer> sCounters = new HashMap<>();
+
+    static void reset() {
+        sSectionCount = 0;
+        sSectionDepth = 0;
+        sUnbalancedEndCount = 0;
+        sOpenAsyncSections.clear();
+        sCounters.clear();
+    }
+
+    @Implementation
+    public static void beginSection(String sectionName) {
+        sSectionCount++;
+        sSectionDepth++;
+    }
+
+    @Implementation
+    public static void endSection() {
+        if (sSectionDepth == 0) {
+            sUnbalancedEndCount++;
+        } else {
+            sSectionDepth--;
+        }
+    }
+
+    @Implementation
+    public static void asyncTraceBegin(long traceTag, String methodName, int cookie) {
+        sOpenAsyncSections.add(methodName + "#" + cookie);
+    }
+
+    @Implementation
+    public static void asyncTraceEnd(long traceTag, String methodName, int cookie) {
+        if (!sOpenAsyncSections.remove(methodName + "#" + cookie)) {
+            sUnbalancedEndCount++;
+        }
+    }
+
+    @Implementation
+    public static void traceCounter(long traceTag, String counterName, int counterValue) {
+        sCounters.put(counterName, counterValue);
+    }
+}
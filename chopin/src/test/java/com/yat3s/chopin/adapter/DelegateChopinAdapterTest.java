@@ -0,0 +1,113 @@
+package com.yat3s.chopin.adapter;
+
+import android.content.Context;
+import android.widget.FrameLayout;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 25, manifest = Config.NONE)
+public class DelegateChopinAdapterTest {
+
+    private static final int ITEM_LAYOUT_ID = android.R.layout.simple_list_item_1;
+
+    @Test
+    public void keyedDelegatesSharingLayout_bindWithTheirOwnDelegate() {
+        Context context = RuntimeEnvironment.application;
+        List<String> calls = new ArrayList<>();
+        DelegateChopinAdapter<String> adapter = new DelegateChopinAdapter<>(context, Arrays.asList("title", "subtitle"));
+        adapter.register(0, new RecordingDelegate<String>("title", calls))
+                .register(1, new RecordingDelegate<String>("subtitle", calls));
+        adapter.setItemKeyMapper(new DelegateChopinAdapter.ItemKeyMapper<String>() {
+            @Override
+            public int getItemKey(int position, String item) {
+                return position;
+            }
+        });
+        int titleViewType = adapter.getItemViewType(0);
+        int subtitleViewType = adapter.getItemViewType(1);
+        assertNotEquals(titleViewType, subtitleViewType);
+        assertEquals(ITEM_LAYOUT_ID, ViewTypeCache.getLayoutId(titleViewType));
+        assertEquals(ITEM_LAYOUT_ID, ViewTypeCache.getLayoutId(subtitleViewType));
+
+        // The delegate looked up last does not matter.
+        FrameLayout parent = new FrameLayout(context);
+        ChopinViewHolder titleHolder = adapter.createViewHolder(parent, titleViewType);
+        adapter.bindViewHolder(titleHolder, 0);
+        assertEquals(Arrays.asList("title:title@0"), calls);
+    }
+
+    @Test
+    public void subclassItem_usesDelegateOfSuperClass() {
+        Context context = RuntimeEnvironment.application;
+        List<String> calls = new ArrayList<>();
+        List<Number> items = new ArrayList<>();
+        items.add(1);
+        items.add(2L);
+        DelegateChopinAdapter<Number> adapter = new DelegateChopinAdapter<>(context, items);
+        RecordingDelegate<Number> numberDelegate = new RecordingDelegate<>("number", calls);
+        RecordingDelegate<Long> longDelegate = new RecordingDelegate<>("long", calls);
+        adapter.register(Number.class, numberDelegate).register(Long.class, longDelegate);
+
+        int numberViewType = adapter.getItemViewType(0);
+        assertNotEquals(numberViewType, adapter.getItemViewType(1));
+        assertEquals(numberViewType, adapter.getItemViewType(0));
+        items.add(3);
+        assertEquals(numberViewType, adapter.getItemViewType(2));
+    }
+
+    @Test
+    public void recreatedAdapter_reusesViewTypes() {
+        Context context = RuntimeEnvironment.application;
+        List<String> calls = new ArrayList<>();
+        List<String> items = Arrays.asList("title", "subtitle");
+        DelegateChopinAdapter<String> adapter = new DelegateChopinAdapter<>(context, items);
+        adapter.register(0, new RecordingDelegate<String>("title", calls))
+                .register(1, new RecordingDelegate<String>("subtitle", calls));
+        DelegateChopinAdapter<String> recreatedAdapter = new DelegateChopinAdapter<>(context, items);
+        recreatedAdapter.register(0, new RecordingDelegate<String>("title", calls))
+                .register(1, new RecordingDelegate<String>("subtitle", calls));
+        DelegateChopinAdapter.ItemKeyMapper<String> itemKeyMapper = new DelegateChopinAdapter.ItemKeyMapper<String>() {
+            @Override
+            public int getItemKey(int position, String item) {
+                return position;
+            }
+        };
+        adapter.setItemKeyMapper(itemKeyMapper);
+        recreatedAdapter.setItemKeyMapper(itemKeyMapper);
+
+        assertEquals(adapter.getItemViewType(0), recreatedAdapter.getItemViewType(0));
+        assertEquals(adapter.getItemViewType(1), recreatedAdapter.getItemViewType(1));
+    }
+
+    private static class RecordingDelegate<E> extends ItemViewDelegate<E> {
+        private final String mName;
+        private final List<String> mCalls;
+
+        RecordingDelegate(String name, List<String> calls) {
+            mName = name;
+            mCalls = calls;
+        }
+
+        @Override
+        protected int getItemViewLayoutId() {
+            return ITEM_LAYOUT_ID;
+        }
+
+        @Override
+        protected void bindDataToItemView(ChopinViewHolder holder, E item, int position) {
+            mCalls.add(mName + ":" + item + "@" + position);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.yat3s.chopin.adapter;
+
+import android.content.Context;
+import android.support.v7.widget.RecyclerView;
+import android.widget.TextView;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 25, manifest = Config.NONE)
+public class IntChopinAdapterTest {
+
+    private static final int ITEM_LAYOUT_ID = 0x7f0a0101;
+
+    @Test
+    public void bind_passesPrimitiveItemAndCounts() {
+        TestAdapter adapter = new TestAdapter(RuntimeEnvironment.application, new int[]{7, 8});
+        ChopinViewHolder holder = new ChopinViewHolder(new TextView(RuntimeEnvironment.application));
+        adapter.onBindViewHolder(holder, 1);
+
+        assertEquals(Arrays.asList("8@1"), adapter.mBoundItems);
+        assertEquals(1, adapter.getBoundViewHolderCount());
+        assertEquals(ViewTypeCache.obtainViewType(ITEM_LAYOUT_ID), adapter.getItemViewType(0));
+    }
+
+    @Test
+    public void editData_notifiesRanges() {
+        TestAdapter adapter = new TestAdapter(RuntimeEnvironment.application, null);
+        final List<String> notifications = new ArrayList<>();
+        adapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                notifications.add("insert:" + positionStart + "+" + itemCount);
+            }
+
+            @Override
+            public void onItemRangeRemoved(int positionStart, int itemCount) {
+                notifications.add("remove:" + positionStart + "+" + itemCount);
+            }
+        });
+        adapter.addData(1);
+        adapter.addData(new int[]{2, 3});
+        adapter.addData(new int[0]);
+        adapter.removeData(0);
+
+        assertEquals(Arrays.asList("insert:0+1", "insert:1+2", "remove:0+1"), notifications);
+        assertEquals(2, adapter.getItemCount());
+        assertEquals(2, adapter.getItem(0));
+    }
+
+    private static class TestAdapter extends IntChopinAdapter {
+        final List<String> mBoundItems = new ArrayList<>();
+
+        TestAdapter(Context context, int[] dataSource) {
+            super(context, dataSource);
+        }
+
+        @Override
+        protected void bindDataToItemView(ChopinViewHolder holder, int item, int position) {
+            mBoundItems.add(item + "@" + position);
+        }
+
+        @Override
+        protected int getItemViewLayoutId(int position, int item) {
+            return ITEM_LAYOUT_ID;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.yat3s.chopin.adapter;
+
+import android.content.Context;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 25, manifest = Config.NONE)
+public class NestedRecyclerViewBinderTest {
+
+    private static final int ITEM_LAYOUT_ID = 0x7f0a0001;
+    private static final int OTHER_ITEM_LAYOUT_ID = 0x7f0a0002;
+
+    private final NestedRecyclerViewBinder.AdapterCreator<TestAdapter> mAdapterCreator =
+            new NestedRecyclerViewBinder.AdapterCreator<TestAdapter>() {
+                @Override
+                public TestAdapter create(Context context) {
+                    return new TestAdapter(context);
+                }
+            };
+
+    @Test
+    public void bind_createsLayoutManagerWithPrefetchAndSharedPool() {
+        NestedRecyclerViewBinder binder = new NestedRecyclerViewBinder().setInitialPrefetchItemCount(6);
+        RecyclerView recyclerView = new RecyclerView(RuntimeEnvironment.application);
+        binder.bind(recyclerView, 0, mAdapterCreator);
+
+        LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+        assertEquals(6, layoutManager.getInitialPrefetchItemCount());
+        assertSame(binder.getRecycledViewPool(), recyclerView.getRecycledViewPool());
+    }
+
+    @Test
+    public void bind_appliesPrefetchAndSharedPoolToSuppliedLayoutManager() {
+        Context context = RuntimeEnvironment.application;
+        NestedRecyclerViewBinder binder = new NestedRecyclerViewBinder().setInitialPrefetchItemCount(6);
+        RecyclerView recyclerView = new RecyclerView(context);
+        LinearLayoutManager layoutManager = new LinearLayoutManager(context, LinearLayoutManager.HORIZONTAL, false);
+        recyclerView.setLayoutManager(layoutManager);
+        binder.bind(recyclerView, 0, mAdapterCreator);
+
+        assertSame(layoutManager, recyclerView.getLayoutManager());
+        assertEquals(6, layoutManager.getInitialPrefetchItemCount());
+        assertTrue(layoutManager.getRecycleChildrenOnDetach());
+        assertSame(binder.getRecycledViewPool(), recyclerView.getRecycledViewPool());
+    }
+
+    @Test
+    public void bindAgain_keepsAdapterAndSwapsDataSource() {
+        NestedRecyclerViewBinder binder = new NestedRecyclerViewBinder();
+        RecyclerView recyclerView = new RecyclerView(RuntimeEnvironment.application);
+        List<String> firstRow = Arrays.asList("a", "b");
+        List<String> secondRow = Arrays.asList("c");
+        TestAdapter adapter = binder.bind(recyclerView, 0, firstRow, mAdapterCreator);
+        assertSame(firstRow, adapter.getDataSource());
+
+        assertSame(adapter, binder.bind(recyclerView, 1, secondRow, mAdapterCreator));
+        assertSame(secondRow, adapter.getDataSource());
+        assertEquals(1, adapter.getItemCount());
+    }
+
+    @Test
+    public void setDataSourceNull_becomesEmpty() {
+        TestAdapter adapter = new TestAdapter(RuntimeEnvironment.application);
+        adapter.setDataSource(null);
+        assertEquals(0, adapter.getItemCount());
+    }
+
+    @Test
+    public void viewTypeCache_sharesViewTypeOfSameLayout() {
+        int viewType = ViewTypeCache.obtainViewType(ITEM_LAYOUT_ID);
+        assertEquals(viewType, ViewTypeCache.obtainViewType(ITEM_LAYOUT_ID));
+        assertNotEquals(viewType, ViewTypeCache.obtainViewType(OTHER_ITEM_LAYOUT_ID));
+        assertEquals(ITEM_LAYOUT_ID, ViewTypeCache.getLayoutId(viewType));
+        assertEquals(OTHER_ITEM_LAYOUT_ID, ViewTypeCache.getLayoutId(ViewTypeCache.obtainViewType(OTHER_ITEM_LAYOUT_ID)));
+        assertTrue(viewType >= ViewTypeCache.FIRST_VIEW_TYPE);
+    }
+
+    private static class TestAdapter extends SimpleChopinAdapter<String> {
+
+        TestAdapter(Context context) {
+            super(context);
+        }
+
+        @Override
+        protected void bindDataToItemView(ChopinViewHolder holder, String item, int position) {
+        }
+
+        @Override
+        protected int getItemViewLayoutId(int position, String item) {
+            return ITEM_LAYOUT_ID;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.yat3s.chopin.decoration;
+
+import android.graphics.Rect;
+import android.support.v7.widget.GridLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import com.yat3s.chopin.adapter.ChopinViewHolder;
+import com.yat3s.chopin.adapter.StickyHeaderAdapter;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 25, manifest = Config.NONE)
+public class StickyHeaderItemDecorationTest {
+
+    @Test
+    public void attachToRecyclerView_observesAdapterUntilDetached() {
+        RecyclerView recyclerView = new RecyclerView(RuntimeEnvironment.application);
+        GroupedAdapter adapter = new GroupedAdapter("aabbcc");
+        recyclerView.setAdapter(adapter);
+        StickyHeaderItemDecoration decoration = new StickyHeaderItemDecoration(RuntimeEnvironment.application, adapter);
+
+        decoration.attachToRecyclerView(recyclerView);
+        assertTrue(adapter.hasObservers());
+        assertEquals(3, decoration.getSectionIndex().getSectionCount());
+
+        decoration.attachToRecyclerView(null);
+        assertFalse(adapter.hasObservers());
+        assertEquals(0, decoration.getSectionIndex().getSectionCount());
+    }
+
+    @Test
+    public void swapAdapter_isAttachedOnNextLayout() {
+        RecyclerView recyclerView = new RecyclerView(RuntimeEnvironment.application);
+        GroupedAdapter adapter = new GroupedAdapter("aabbcc");
+        recyclerView.setAdapter(adapter);
+        StickyHeaderItemDecoration decoration = new StickyHeaderItemDecoration(RuntimeEnvironment.application, adapter);
+        decoration.attachToRecyclerView(recyclerView);
+
+        GroupedAdapter newAdapter = new GroupedAdapter("ab");
+        recyclerView.setAdapter(newAdapter);
+        decoration.getItemOffsets(new Rect(), new View(RuntimeEnvironment.application), recyclerView,
+                new RecyclerView.State());
+        assertFalse(adapter.hasObservers());
+        assertTrue(newAdapter.hasObservers());
+    }
+
+    @Test
+    public void appendPage_rebindsOnlyTheLastSectionHeader() {
+        RecyclerView recyclerView = new RecyclerView(RuntimeEnvironment.application);
+        GroupedAdapter adapter = new GroupedAdapter("aabbcc");
+        recyclerView.setAdapter(adapter);
+        StickyHeaderItemDecoration decoration = new StickyHeaderItemDecoration(RuntimeEnvironment.application, adapter);
+        decoration.attachToRecyclerView(recyclerView);
+        decoration.getHeaderView(0, recyclerView);
+        decoration.getHeaderView(2, recyclerView);
+        decoration.getHeaderView(4, recyclerView);
+        adapter.mBoundHeaderPositions.clear();
+
+        adapter.mItems.add('c');
+        adapter.mItems.add('d');
+        adapter.notifyItemRangeInserted(6, 2);
+        decoration.getHeaderView(0, recyclerView);
+        decoration.getHeaderView(2, recyclerView);
+        decoration.getHeaderView(4, recyclerView);
+        decoration.getHeaderView(7, recyclerView);
+        assertEquals(Arrays.asList(4, 7), adapter.mBoundHeaderPositions);
+    }
+
+    @Test
+    public void removeItems_shiftsCachedHeaders() {
+        RecyclerView recyclerView = new RecyclerView(RuntimeEnvironment.application);
+        GroupedAdapter adapter = new GroupedAdapter("aabbbcc");
+        recyclerView.setAdapter(adapter);
+        StickyHeaderItemDecoration decoration = new StickyHeaderItemDecoration(RuntimeEnvironment.application, adapter);
+        decoration.attachToRecyclerView(recyclerView);
+        decoration.getHeaderView(0, recyclerView);
+        decoration.getHeaderView(2, recyclerView);
+        View lastHeader = decoration.getHeaderView(5, recyclerView);
+        adapter.mBoundHeaderPositions.clear();
+
+        adapter.mItems.remove(3);
+        adapter.notifyItemRangeRemoved(3, 1);
+        decoration.getHeaderView(0, recyclerView);
+        assertTrue(lastHeader == decoration.getHeaderView(4, recyclerView));
+        decoration.getHeaderView(2, recyclerView);
+        assertEquals(Arrays.asList(2), adapter.mBoundHeaderPositions);
+    }
+
+    @Test
+    public void gridRows_areOffsetWithoutEnablingSpanIndexCache() {
+        RecyclerView recyclerView = new RecyclerView(RuntimeEnvironment.application) {
+            @Override
+            public int getChildAdapterPosition(View child) {
+                return (Integer) child.getTag();
+            }
+        };
+        GridLayoutManager layoutManager = new GridLayoutManager(RuntimeEnvironment.application, 3,
+                GridLayoutManager.VERTICAL, false);
+        // The header item of each section takes a full row.
+        final GroupedAdapter adapter = new GroupedAdapter("aaaabbbbb");
+        GridLayoutManager.SpanSizeLookup spanSizeLookup = new GridLayoutManager.SpanSizeLookup() {
+            @Override
+            public int getSpanSize(int position) {
+                return adapter.hasHeader(position) ? 3 : 1;
+            }
+        };
+        layoutManager.setSpanSizeLookup(spanSizeLookup);
+        recyclerView.setLayoutManager(layoutManager);
+        recyclerView.setAdapter(adapter);
+        StickyHeaderItemDecoration decoration = new StickyHeaderItemDecoration(RuntimeEnvironment.application, adapter);
+        decoration.attachToRecyclerView(recyclerView);
+        // Headers are measured with the width of list.
+        recyclerView.setRight(300);
+        recyclerView.setBottom(300);
+
+        // Rows are [0], [1, 4), [4], [5, 8) and [8].
+        boolean[] offsets = new boolean[adapter.getItemCount()];
+        for (int position = offsets.length - 1; position >= 0; position--) {
+            View itemView = new View(RuntimeEnvironment.application);
+            itemView.setTag(position);
+            Rect outRect = new Rect();
+            decoration.getItemOffsets(outRect, itemView, recyclerView, new RecyclerView.State());
+            offsets[position] = outRect.top > 0;
+        }
+        assertTrue(Arrays.equals(new boolean[]{true, false, false, false, true, false, false, false, false},
+                offsets));
+        assertFalse(spanSizeLookup.isSpanIndexCacheEnabled());
+    }
+
+    /**
+     * Items are letters, an item has header while its letter differs from the previous one.
+     */
+    static class GroupedAdapter extends RecyclerView.Adapter<ChopinViewHolder>
+            implements StickyHeaderAdapter<ChopinViewHolder> {
+        static final int HEADER_MIN_HEIGHT = 10;
+
+        final List<Character> mItems = new ArrayList<>();
+        final List<Integer> mBoundHeaderPositions = new ArrayList<>();
+
+        GroupedAdapter(String items) {
+            for (int idx = 0; idx < items.length(); idx++) {
+                mItems.add(items.charAt(idx));
+            }
+        }
+
+        @Override
+        public ChopinViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            return new ChopinViewHolder(new TextView(parent.getContext()));
+        }
+
+        @Override
+        public void onBindViewHolder(ChopinViewHolder holder, int position) {
+        }
+
+        @Override
+        public int getItemCount() {
+            return mItems.size();
+        }
+
+        @Override
+        public void onBindHeaderViewHolder(ChopinViewHolder holder, int position) {
+            mBoundHeaderPositions.add(position);
+            ((TextView) holder.itemView).setText(String.valueOf(mItems.get(position)));
+            // Text is not measured here, a header should still take space to be offset.
+            ((TextView) holder.itemView).setMinHeight(HEADER_MIN_HEIGHT);
+        }
+
+        @Override
+        public int getHeaderViewLayoutId(int position) {
+            return android.R.layout.simple_list_item_1;
+        }
+
+        @Override
+        public boolean hasHeader(int position) {
+            return position == 0 || !mItems.get(position).equals(mItems.get(position - 1));
+        }
+    }
+}
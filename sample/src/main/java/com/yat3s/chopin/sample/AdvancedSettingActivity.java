@@ -48,6 +48,7 @@ public class AdvancedSettingActivity extends AppCompatActivity {
         configureFooterIndicatorLocation();
         configureIndicatorStyle();
         configureNotificationView();
+        configurePerformanceHud();
         final ScrollView scrollView = findViewById(R.id.scroll_view);
         findViewById(R.id.perform_refresh).setOnClickListener(new View.OnClickListener() {
             @Override
@@ -257,6 +258,16 @@ public class AdvancedSettingActivity extends AppCompatActivity {
         notificationSwitch.setChecked(true);
     }
 
+    private void configurePerformanceHud() {
+        SwitchCompat performanceHudSwitch = findViewById(R.id.performance_hud_switch);
+        performanceHudSwitch.setOnCheckedChangeListener(new CompoundButton.OnCheckedChangeListener() {
+            @Override
+            public void onCheckedChanged(CompoundButton buttonView, boolean isChecked) {
+                mChopinLayout.setPerformanceHudEnabled(isChecked);
+            }
+        });
+    }
+
     private void setupLottieIndicator() {
         LottieIndicator headerLottieIndicator = new LottieIndicator(AdvancedSettingActivity.this, "Plane.json", 0.2f);
         mChopinLayout.setRefreshHeaderIndicator(headerLottieIndicator);
@@ -1,16 +1,15 @@
 package com.yat3s.chopin.sample;
 
 import android.content.Context;
-import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.widget.ImageView;
 
 import com.yat3s.chopin.adapter.ChopinViewHolder;
-import com.yat3s.chopin.adapter.SimpleChopinAdapter;
+import com.yat3s.chopin.adapter.IntChopinAdapter;
+import com.yat3s.chopin.adapter.NestedRecyclerViewBinder;
 import com.yat3s.library.adapter.BaseAdapter;
 import com.yat3s.library.adapter.BaseViewHolder;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -23,30 +22,37 @@ public class MusicAdapter extends BaseAdapter<MusicAdapter.Music> {
 
     private static final String TAG = "MusicAdapter";
 
+    private static final int MAX_RECYCLED_STAMP_VIEW_COUNT = 8;
+
+    private static final int[] STAMP_RES_IDS = {R.mipmap.img_cd_4, R.mipmap.img_cd_1,
+            R.mipmap.img_cd_3, R.mipmap.img_cd_1};
+
     private int mPositionHeader = 0;
 
-    private StampAdapter mNestedStampAdapter;
+    private NestedRecyclerViewBinder mNestedRecyclerViewBinder;
+
+    private NestedRecyclerViewBinder.AdapterCreator<StampAdapter> mStampAdapterCreator =
+            new NestedRecyclerViewBinder.AdapterCreator<StampAdapter>() {
+                @Override
+                public StampAdapter create(Context context) {
+                    return new StampAdapter(context, STAMP_RES_IDS);
+                }
+            };
 
     public MusicAdapter(Context context, List<Music> data, boolean showHeader) {
         super(context, data);
         mPositionHeader = showHeader ? 0 : -1;
+        mNestedRecyclerViewBinder = new NestedRecyclerViewBinder()
+                .setMaxRecycledViews(R.layout.item_nested_cd, MAX_RECYCLED_STAMP_VIEW_COUNT)
+                .setInitialPrefetchItemCount(STAMP_RES_IDS.length);
     }
 
     @Override
     protected void bindDataToItemView(BaseViewHolder holder, Music item, final int position) {
         if (position == mPositionHeader) {
-            if (null == mNestedStampAdapter) {
-                RecyclerView recyclerView = holder.getView(R.id.recycler_view);
-                recyclerView.setFocusable(false);
-                List<Integer> stampResIds = new ArrayList<>();
-                stampResIds.add(R.mipmap.img_cd_4);
-                stampResIds.add(R.mipmap.img_cd_1);
-                stampResIds.add(R.mipmap.img_cd_3);
-                stampResIds.add(R.mipmap.img_cd_1);
-                mNestedStampAdapter = new StampAdapter(getContext(), stampResIds);
-                recyclerView.setLayoutManager(new LinearLayoutManager(getContext(), LinearLayoutManager.HORIZONTAL, false));
-                recyclerView.setAdapter(new StampAdapter(getContext(), stampResIds));
-            }
+            RecyclerView recyclerView = holder.getView(R.id.recycler_view);
+            recyclerView.setFocusable(false);
+            mNestedRecyclerViewBinder.bind(recyclerView, position, mStampAdapterCreator);
         } else {
             ImageView img = holder.getView(R.id.card_iv);
             img.setImageResource(item.coverImageResId);
@@ -64,19 +70,19 @@ public class MusicAdapter extends BaseAdapter<MusicAdapter.Music> {
         return R.layout.item_music;
     }
 
-    public static class StampAdapter extends SimpleChopinAdapter<Integer> {
+    public static class StampAdapter extends IntChopinAdapter {
 
-        public StampAdapter(Context context, List<Integer> dataSource) {
+        public StampAdapter(Context context, int[] dataSource) {
             super(context, dataSource);
         }
 
         @Override
-        protected void bindDataToItemView(ChopinViewHolder holder, Integer resId, int position) {
+        protected void bindDataToItemView(ChopinViewHolder holder, int resId, int position) {
             ((ImageView) holder.getView(R.id.cd_iv)).setImageResource(resId);
         }
 
         @Override
-        protected int getItemViewLayoutId(int position, Integer resId) {
+        protected int getItemViewLayoutId(int position, int resId) {
             return R.layout.item_nested_cd;
         }
     }